@@ -3,9 +3,11 @@ package tech.realworks.yusuf.zaikabox;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class ZaikaboxApiApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,298 @@
+package tech.realworks.yusuf.zaikabox.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import tech.realworks.yusuf.zaikabox.entity.AdminPasswordResetToken;
+import tech.realworks.yusuf.zaikabox.entity.AuditEntity;
+import tech.realworks.yusuf.zaikabox.entity.CartEntity;
+import tech.realworks.yusuf.zaikabox.entity.IdempotencyRecordEntity;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.OutboxEventEntity;
+import tech.realworks.yusuf.zaikabox.entity.PaymentRequestEntity;
+import tech.realworks.yusuf.zaikabox.entity.RateLimitCounterEntity;
+import tech.realworks.yusuf.zaikabox.entity.RefreshTokenEntity;
+import tech.realworks.yusuf.zaikabox.entity.TokenRevocationEntity;
+import tech.realworks.yusuf.zaikabox.entity.UserEntity;
+import tech.realworks.yusuf.zaikabox.entity.WebhookEventEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the indexes declared on the entities, since automatic index creation is disabled, and reports how
+ * the live indexes compare to the declared ones.
+ * <p>
+ * Indexes are built in the background once the application is ready, so startup never waits on a large build.
+ * A unique index is skipped, and reported, when existing documents already violate it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexManager {
+
+    static final List<Class<?>> MANAGED_ENTITIES = List.of(
+            UserEntity.class,
+            CartEntity.class,
+            OrderEntity.class,
+            PaymentRequestEntity.class,
+            AdminPasswordResetToken.class,
+            AuditEntity.class,
+            RefreshTokenEntity.class,
+            TokenRevocationEntity.class,
+            RateLimitCounterEntity.class,
+            IdempotencyRecordEntity.class,
+            WebhookEventEntity.class,
+            OutboxEventEntity.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mongoMappingContext;
+
+    // collection.indexName of unique indexes that could not be built because of duplicate documents
+    private final Set<String> skippedIndexes = ConcurrentHashMap.newKeySet();
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        // The unique userId index cannot be built while users still own more than one cart
+        mergeDuplicateCarts();
+
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        for (Class<?> entity : MANAGED_ENTITIES) {
+            String collection = collectionName(entity);
+            IndexOperations indexOps = mongoTemplate.indexOps(collection);
+            for (IndexDefinition index : resolver.resolveIndexFor(entity)) {
+                ensureIndex(collection, indexOps, index);
+            }
+            log.info("Ensured indexes for {} collection", collection);
+        }
+    }
+
+    /**
+     * Compare the declared indexes of every managed collection with the ones that exist.
+     * Access counts come from {@code $indexStats} and reset when the server restarts.
+     */
+    public List<CollectionIndexReport> report() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        List<CollectionIndexReport> reports = new ArrayList<>();
+        for (Class<?> entity : MANAGED_ENTITIES) {
+            String collection = collectionName(entity);
+
+            Map<String, String> declared = new LinkedHashMap<>();
+            for (IndexDefinition index : resolver.resolveIndexFor(entity)) {
+                declared.put(signature(index.getIndexKeys()), indexName(index));
+            }
+
+            Map<String, String> existing = new LinkedHashMap<>();
+            Set<String> ttlIndexes = new HashSet<>();
+            for (IndexInfo info : mongoTemplate.indexOps(collection).getIndexInfo()) {
+                existing.put(signature(info.getIndexFields()), info.getName());
+                if (info.getExpireAfter().isPresent()) {
+                    ttlIndexes.add(info.getName());
+                }
+            }
+
+            List<String> missing = new ArrayList<>();
+            declared.forEach((signature, name) -> {
+                if (!existing.containsKey(signature)) {
+                    missing.add(name);
+                }
+            });
+            List<String> undeclared = new ArrayList<>();
+            existing.forEach((signature, name) -> {
+                if (!declared.containsKey(signature) && !"_id_".equals(name)) {
+                    undeclared.add(name);
+                }
+            });
+
+            Map<String, Long> accesses = indexAccesses(collection);
+            List<String> unused = new ArrayList<>();
+            accesses.forEach((name, ops) -> {
+                // TTL deletes do not count as accesses, so TTL indexes would always look unused
+                if (ops == 0 && !"_id_".equals(name) && !ttlIndexes.contains(name)) {
+                    unused.add(name);
+                }
+            });
+
+            List<String> skipped = skippedIndexes.stream()
+                    .filter(id -> id.startsWith(collection + "."))
+                    .map(id -> id.substring(collection.length() + 1))
+                    .sorted()
+                    .toList();
+
+            reports.add(new CollectionIndexReport(collection, missing, skipped, undeclared, unused, accesses));
+        }
+        return reports;
+    }
+
+    private void ensureIndex(String collection, IndexOperations indexOps, IndexDefinition index) {
+        String name = indexName(index);
+        if (Boolean.TRUE.equals(index.getIndexOptions().get("unique"))) {
+            long duplicates = countDuplicates(collection, index);
+            if (duplicates > 0) {
+                log.error("Skipping unique index {} on {}: {} values are used by more than one document",
+                        name, collection, duplicates);
+                skippedIndexes.add(collection + "." + name);
+                return;
+            }
+        }
+        try {
+            indexOps.ensureIndex(inBackground(index));
+            skippedIndexes.remove(collection + "." + name);
+        } catch (DataAccessException e) {
+            log.error("Failed to build index {} on {}: {}", name, collection, e.getMessage());
+            skippedIndexes.add(collection + "." + name);
+        }
+    }
+
+    private long countDuplicates(String collection, IndexDefinition index) {
+        String[] fields = index.getIndexKeys().keySet().toArray(String[]::new);
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (Boolean.TRUE.equals(index.getIndexOptions().get("sparse"))) {
+            Criteria present = Criteria.where(fields[0]).exists(true);
+            for (int i = 1; i < fields.length; i++) {
+                present = present.and(fields[i]).exists(true);
+            }
+            operations.add(Aggregation.match(present));
+        }
+        operations.add(Aggregation.group(fields).count().as("count"));
+        operations.add(Aggregation.match(Criteria.where("count").gt(1)));
+        return mongoTemplate.aggregate(Aggregation.newAggregation(operations), collection, Document.class)
+                .getMappedResults()
+                .size();
+    }
+
+    private Map<String, Long> indexAccesses(String collection) {
+        Map<String, Long> accesses = new LinkedHashMap<>();
+        Aggregation indexStats = Aggregation.newAggregation(context -> new Document("$indexStats", new Document()));
+        try {
+            for (Document stats : mongoTemplate.aggregate(indexStats, collection, Document.class).getMappedResults()) {
+                Document access = stats.get("accesses", Document.class);
+                Object ops = access != null ? access.get("ops") : null;
+                accesses.put(stats.getString("name"), ops instanceof Number number ? number.longValue() : 0L);
+            }
+        } catch (DataAccessException e) {
+            // $indexStats needs the indexStats privilege; the rest of the report is still useful without it
+            log.warn("Could not read index usage for {}: {}", collection, e.getMessage());
+        }
+        return accesses;
+    }
+
+    /**
+     * Fold every user's duplicate carts into the oldest one, summing item quantities.
+     */
+    private void mergeDuplicateCarts() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group("userId").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1)));
+        List<Document> duplicates = mongoTemplate.aggregate(aggregation, CartEntity.class, Document.class)
+                .getMappedResults();
+
+        for (Document duplicate : duplicates) {
+            String userId = duplicate.getString("_id");
+            List<CartEntity> carts = mongoTemplate.find(
+                    Query.query(Criteria.where("userId").is(userId)).with(Sort.by("_id")), CartEntity.class);
+            if (carts.size() < 2) {
+                continue;
+            }
+
+            CartEntity primary = carts.get(0);
+            Map<String, Integer> merged = new HashMap<>();
+            for (CartEntity cart : carts) {
+                if (cart.getCartItems() != null) {
+                    cart.getCartItems().forEach((foodId, quantity) -> merged.merge(foodId, quantity, Integer::sum));
+                }
+            }
+            primary.setCartItems(merged);
+            mongoTemplate.save(primary);
+
+            for (CartEntity cart : carts.subList(1, carts.size())) {
+                mongoTemplate.remove(cart);
+            }
+            log.info("Merged {} duplicate carts for user {}", carts.size() - 1, userId);
+        }
+    }
+
+    private String collectionName(Class<?> entity) {
+        return mongoMappingContext.getRequiredPersistentEntity(entity).getCollection();
+    }
+
+    private static String indexName(IndexDefinition index) {
+        Object name = index.getIndexOptions().get("name");
+        return name != null ? name.toString() : signature(index.getIndexKeys());
+    }
+
+    /**
+     * Build the default MongoDB index name (field_direction pairs) so declared and live indexes can be matched
+     * by their keys regardless of what they were named.
+     */
+    static String signature(Document keys) {
+        List<String> parts = new ArrayList<>();
+        keys.forEach((field, direction) -> parts.add(field + "_"
+                + (direction instanceof Number number ? String.valueOf(number.intValue()) : String.valueOf(direction))));
+        return String.join("_", parts);
+    }
+
+    private static String signature(List<IndexField> fields) {
+        List<String> parts = new ArrayList<>();
+        for (IndexField field : fields) {
+            String direction = field.getDirection() == null ? "" : field.getDirection() == Sort.Direction.ASC ? "1" : "-1";
+            parts.add(field.getKey() + "_" + direction);
+        }
+        return String.join("_", parts);
+    }
+
+    /**
+     * Ask for a background build; servers from 4.2 on ignore the flag and always build without blocking the collection.
+     */
+    private static IndexDefinition inBackground(IndexDefinition index) {
+        Document options = new Document(index.getIndexOptions());
+        options.put("background", true);
+        return new IndexDefinition() {
+            @Override
+            public Document getIndexKeys() {
+                return index.getIndexKeys();
+            }
+
+            @Override
+            public Document getIndexOptions() {
+                return options;
+            }
+        };
+    }
+
+    @Value
+    public static class CollectionIndexReport {
+        String collection;
+        List<String> missing; // Declared but not present
+        List<String> skipped; // Declared unique but blocked by duplicate documents
+        List<String> undeclared; // Present but not declared on the entity
+        List<String> unused; // No recorded accesses since the server started
+        Map<String, Long> accesses;
+    }
+}
@@ -0,0 +1,25 @@
+package tech.realworks.yusuf.zaikabox.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code /actuator/mongoindexes}) listing missing, skipped, undeclared and unused indexes
+ * per collection. Admin only.
+ */
+@Component
+@Endpoint(id = "mongoindexes")
+@RequiredArgsConstructor
+public class MongoIndexesEndpoint {
+
+    private final MongoIndexManager mongoIndexManager;
+
+    @ReadOperation
+    public List<MongoIndexManager.CollectionIndexReport> indexes() {
+        return mongoIndexManager.report();
+    }
+}
@@ -0,0 +1,23 @@
+package tech.realworks.yusuf.zaikabox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GST rates, bound from {@code app.pricing.*}.
+ * Rates are in basis points (500 = 5%); categories are matched case-insensitively against {@code FoodEntity.category}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.pricing")
+public class PricingProperties {
+
+    // Rate for foods without a category, or whose category has no rate of its own
+    private int defaultGstBasisPoints = 500;
+
+    private Map<String, Integer> categoryGstBasisPoints = new LinkedHashMap<>();
+}
@@ -0,0 +1,45 @@
+package tech.realworks.yusuf.zaikabox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-route rate limit policies, bound from {@code app.rate-limit.*}.
+ * Policies are matched in declaration order; the first one whose path and method match applies.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    @Data
+    public static class Policy {
+        // Ant-style path patterns, e.g. /api/v1/auth/login or /api/v1/orders/**
+        private List<String> paths = new ArrayList<>();
+        // HTTP methods the policy applies to; empty means all methods
+        private List<String> methods = new ArrayList<>();
+        // Maximum burst size
+        private int capacity = 30;
+        // Time to refill an empty bucket completely
+        private Duration refillPeriod = Duration.ofMinutes(1);
+        private KeyType key = KeyType.IP;
+    }
+
+    public enum KeyType {
+        // Client IP address
+        IP,
+        // Authenticated user ID, falling back to the client IP for anonymous requests
+        USER
+    }
+}
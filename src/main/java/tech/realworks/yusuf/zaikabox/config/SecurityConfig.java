@@ -75,6 +75,7 @@ public class SecurityConfig {
                                 // Admin-only endpoints
                                 .requestMatchers(
                                         "/api/v1/admin/**",
+                                        "/actuator/mongoindexes",
                                         "/api/v1/foods/add",
                                         "/api/v1/foods/update/**",
                                         "/api/v1/foods/delete/**"
@@ -83,8 +84,9 @@ public class SecurityConfig {
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .addFilterBefore(correlationIdFilter, UsernamePasswordAuthenticationFilter.class)
-                .addFilterBefore(rateLimitingFilter, UsernamePasswordAuthenticationFilter.class)
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                // After JWT authentication so per-user policies see the authenticated principal
+                .addFilterAfter(rateLimitingFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 
@@ -103,7 +105,7 @@ public class SecurityConfig {
         config.setAllowedOrigins(List.of("http://localhost:5174", "http://localhost:5173", "http://localhost:8081", "https://zaikabox.vercel.app", "https://zaikabox-audit-logs.vercel.app"));
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         config.setAllowedHeaders(List.of("Authorization", "Content-Type", "Cookie", "Idempotency-Key", "X-Correlation-ID"));
-        config.setExposedHeaders(List.of("X-Correlation-ID"));
+        config.setExposedHeaders(List.of("X-Correlation-ID", "Retry-After", "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset"));
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
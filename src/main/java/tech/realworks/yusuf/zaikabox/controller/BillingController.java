@@ -8,21 +8,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tech.realworks.yusuf.zaikabox.entity.Status;
+import tech.realworks.yusuf.zaikabox.io.CursorPage;
 import tech.realworks.yusuf.zaikabox.io.ErrorsResponse;
 import tech.realworks.yusuf.zaikabox.io.OrderRequest;
 import tech.realworks.yusuf.zaikabox.io.OrderResponse;
+import tech.realworks.yusuf.zaikabox.io.OrderSummaryResponse;
 import tech.realworks.yusuf.zaikabox.io.RazorpayPaymentVerificationDTO;
 import tech.realworks.yusuf.zaikabox.service.AuditService;
 import tech.realworks.yusuf.zaikabox.service.BillingService;
 import tech.realworks.yusuf.zaikabox.service.IdempotencyService;
 import tech.realworks.yusuf.zaikabox.service.OrderService;
+import tech.realworks.yusuf.zaikabox.service.bill.PdfBill;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -51,7 +56,7 @@ public class BillingController {
             @Valid @RequestBody OrderRequest orderRequest,
             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        OrderResponse response = idempotencyService.execute(idempotencyKey, "create-order", () -> billingService.createOrder(orderRequest));
+        OrderResponse response = idempotencyService.execute(idempotencyKey, "create-order", orderRequest, OrderResponse.class, () -> billingService.createOrder(orderRequest));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
@@ -66,7 +71,7 @@ public class BillingController {
             @Valid @RequestBody RazorpayPaymentVerificationDTO dto,
             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        OrderResponse response = idempotencyService.execute(idempotencyKey, "verify-payment", () -> billingService.verifyPayment(dto));
+        OrderResponse response = idempotencyService.execute(idempotencyKey, "verify-payment", dto, OrderResponse.class, () -> billingService.verifyPayment(dto));
         return ResponseEntity.ok(response);
     }
 
@@ -87,6 +92,21 @@ public class BillingController {
         return ResponseEntity.ok(billingService.getOrders());
     }
 
+    @Operation(summary = "Get order history page",
+            description = "Pages through the current user's orders, newest first, as summaries without items or billing details. " +
+                    "Pass the returned nextCursor as after to fetch the next page, and GET /{orderId} for the full order.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Orders retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit")
+    })
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<OrderSummaryResponse>> getOrderHistory(
+            @RequestParam int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Status status) {
+        return ResponseEntity.ok(billingService.getOrderHistory(status, after, limit));
+    }
+
     @Operation(summary = "Get orders by status", description = "Retrieves all orders for the current user with a specific status.")
     @ApiResponse(responseCode = "200", description = "Orders retrieved successfully", content = @Content(schema = @Schema(implementation = OrderResponse.class)))
     @GetMapping("/status/{status}")
@@ -94,21 +114,36 @@ public class BillingController {
         return ResponseEntity.ok(billingService.getOrdersByStatus(status));
     }
 
-    @Operation(summary = "Generate PDF bill", description = "Generates a PDF bill for the specified order.")
+    @Operation(summary = "Generate PDF bill", description = "Generates a PDF bill for the specified order. Supports If-None-Match.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "PDF bill generated successfully", content = @Content(mediaType = "application/pdf")),
+            @ApiResponse(responseCode = "304", description = "Bill has not changed since the supplied ETag"),
             @ApiResponse(responseCode = "404", description = "Order not found")
     })
     @GetMapping("/{orderId}/bill/pdf")
-    public ResponseEntity<byte[]> generatePdfBill(@PathVariable String orderId) {
-        byte[] pdfContent = billingService.generatePdfBill(orderId);
+    public ResponseEntity<StreamingResponseBody> generatePdfBill(
+            @PathVariable String orderId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        PdfBill bill = billingService.getPdfBill(orderId);
+        // Bills only change with the order, so clients may keep them but must revalidate
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+
+        if (bill.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(bill.getEtag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
         headers.setContentDispositionFormData("filename", "order-" + orderId + "-bill.pdf");
-        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+        headers.setETag(bill.getEtag());
+        headers.setCacheControl(cacheControl);
 
-        return new ResponseEntity<>(pdfContent, headers, HttpStatus.OK);
+        // Written straight to the response as it is read or rendered, without a full copy in memory
+        StreamingResponseBody body = bill::writeTo;
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     @Operation(summary = "Generate text bill", description = "Generates a text bill for the specified order.")
@@ -5,13 +5,17 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -20,8 +24,8 @@ import org.springframework.web.server.ResponseStatusException;
 import tech.realworks.yusuf.zaikabox.io.FoodRequest;
 import tech.realworks.yusuf.zaikabox.io.FoodResponse;
 import tech.realworks.yusuf.zaikabox.service.FoodService;
-
-import java.util.List;
+import tech.realworks.yusuf.zaikabox.service.foodserviceimpl.MenuSnapshot;
+import tech.realworks.yusuf.zaikabox.util.ContentCodings;
 
 @RestController
 @RequiredArgsConstructor
@@ -54,12 +58,39 @@ public class FoodController {
         return this.foodService.addFood(foodRequest, file);
     }
 
-    @Operation(summary = "Get all food items", description = "Retrieves all available food items")
-    @ApiResponse(responseCode = "200", description = "List of all food items retrieved successfully",
-            content = @Content(schema = @Schema(implementation = FoodResponse.class)))
+    @Operation(summary = "Get all food items", description = "Retrieves all available food items. Supports If-None-Match and gzip content encoding.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of all food items retrieved successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = FoodResponse.class)))),
+            @ApiResponse(responseCode = "304", description = "Menu has not changed since the supplied ETag")
+    })
     @GetMapping
-    public List<FoodResponse> readFoods() {
-        return foodService.readFoods();
+    public ResponseEntity<byte[]> readFoods(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        MenuSnapshot snapshot = foodService.getMenuSnapshot();
+
+        if (snapshot.matches(ifNoneMatch)) {
+            return menuResponse(HttpStatus.NOT_MODIFIED, snapshot).build();
+        }
+
+        ResponseEntity.BodyBuilder response = menuResponse(HttpStatus.OK, snapshot)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        if (ContentCodings.accepts(acceptEncoding, "gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipJson());
+        }
+        return response.body(snapshot.getJson());
+    }
+
+    /**
+     * Headers shared by the full menu and a 304, which has to repeat them (RFC 9110 section 15.4.5)
+     */
+    private static ResponseEntity.BodyBuilder menuResponse(HttpStatus status, MenuSnapshot snapshot) {
+        return ResponseEntity.status(status)
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
     }
 
     @Operation(summary = "Get a food item by ID", description = "Retrieves a specific food item by its ID")
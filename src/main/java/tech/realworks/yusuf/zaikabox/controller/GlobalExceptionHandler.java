@@ -1,6 +1,7 @@
 package tech.realworks.yusuf.zaikabox.controller;
 
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -8,6 +9,8 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import tech.realworks.yusuf.zaikabox.io.ErrorsResponse;
+import tech.realworks.yusuf.zaikabox.service.IdempotencyConflictException;
+import tech.realworks.yusuf.zaikabox.service.payment.PaymentGatewayUnavailableException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -40,13 +43,38 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorsResponse(ex.getMessage(), HttpStatus.NOT_FOUND));
     }
 
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ErrorsResponse> handleIdempotencyConflict(IdempotencyConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorsResponse(ex.getMessage(), HttpStatus.CONFLICT));
+    }
+
+    @ExceptionHandler(PaymentGatewayUnavailableException.class)
+    public ResponseEntity<ErrorsResponse> handlePaymentGatewayUnavailable(PaymentGatewayUnavailableException ex) {
+        return serviceUnavailable(ex);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorsResponse> handleRuntime(RuntimeException ex) {
         Throwable cause = ex.getCause();
         if (cause instanceof IllegalArgumentException) {
             return ResponseEntity.badRequest().body(new ErrorsResponse(cause.getMessage(), HttpStatus.BAD_REQUEST));
         }
+        if (cause instanceof PaymentGatewayUnavailableException unavailable) {
+            return serviceUnavailable(unavailable);
+        }
+        if (cause instanceof IdempotencyConflictException conflict) {
+            return handleIdempotencyConflict(conflict);
+        }
+        if (cause instanceof NoSuchElementException notFound) {
+            return handleNotFound(notFound);
+        }
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ErrorsResponse(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
     }
+
+    private static ResponseEntity<ErrorsResponse> serviceUnavailable(PaymentGatewayUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(new ErrorsResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE));
+    }
 }
@@ -12,6 +12,7 @@ import tech.realworks.yusuf.zaikabox.io.OrderResponse;
 import tech.realworks.yusuf.zaikabox.io.RazorpayPaymentVerificationDTO;
 import tech.realworks.yusuf.zaikabox.service.BillingService;
 import tech.realworks.yusuf.zaikabox.service.IdempotencyService;
+import tech.realworks.yusuf.zaikabox.service.webhook.WebhookInboxService;
 
 @RestController
 @RequestMapping("/api/v1/payment")
@@ -21,6 +22,7 @@ public class PaymentController {
 
     private final BillingService billingService;
     private final IdempotencyService idempotencyService;
+    private final WebhookInboxService webhookInboxService;
 
     @PostMapping("/initiate")
     @Operation(summary = "Initiate Payment", description = "Creates a Razorpay order and returns the details.")
@@ -28,7 +30,7 @@ public class PaymentController {
             @Valid @RequestBody OrderRequest orderRequest,
             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        OrderResponse response = idempotencyService.execute(idempotencyKey, "payment-initiate", () -> billingService.createOrder(orderRequest));
+        OrderResponse response = idempotencyService.execute(idempotencyKey, "payment-initiate", orderRequest, OrderResponse.class, () -> billingService.createOrder(orderRequest));
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
@@ -38,14 +40,22 @@ public class PaymentController {
             @Valid @RequestBody RazorpayPaymentVerificationDTO dto,
             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
-        OrderResponse response = idempotencyService.execute(idempotencyKey, "payment-verify", () -> billingService.verifyPayment(dto));
+        OrderResponse response = idempotencyService.execute(idempotencyKey, "payment-verify", dto, OrderResponse.class, () -> billingService.verifyPayment(dto));
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/webhook")
-    @Operation(summary = "Razorpay Webhook", description = "Handles Razorpay webhook events.")
-    public ResponseEntity<Void> handleWebhook(@RequestBody String payload, @RequestHeader("X-Razorpay-Signature") String signature) {
-        billingService.processWebhook(payload, signature);
+    @Operation(summary = "Razorpay Webhook",
+            description = "Verifies and stores a Razorpay webhook event and acknowledges it; the event is processed in the background.")
+    public ResponseEntity<Void> handleWebhook(
+            @RequestBody String payload,
+            @RequestHeader("X-Razorpay-Signature") String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
+        try {
+            webhookInboxService.receive(eventId, payload, signature);
+        } catch (SecurityException e) {
+            return ResponseEntity.badRequest().build();
+        }
         return ResponseEntity.ok().build();
     }
 }
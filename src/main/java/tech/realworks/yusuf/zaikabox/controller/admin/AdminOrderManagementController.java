@@ -7,16 +7,30 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tech.realworks.yusuf.zaikabox.entity.Status;
 import tech.realworks.yusuf.zaikabox.io.AdminOrderDTO;
+import tech.realworks.yusuf.zaikabox.io.CursorPage;
 import tech.realworks.yusuf.zaikabox.io.ErrorsResponse;
 import tech.realworks.yusuf.zaikabox.service.AdminOrderManagementService;
+import tech.realworks.yusuf.zaikabox.service.OrderStatsService;
+import tech.realworks.yusuf.zaikabox.service.bill.BillExport;
+import tech.realworks.yusuf.zaikabox.service.bill.BillExportService;
+import tech.realworks.yusuf.zaikabox.service.bill.BillFormat;
 
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -32,6 +46,24 @@ import java.util.NoSuchElementException;
 public class AdminOrderManagementController {
 
     private final AdminOrderManagementService adminOrderManagementService;
+    private final OrderStatsService orderStatsService;
+    private final BillExportService billExportService;
+
+    @Operation(summary = "List orders",
+            description = "Pages through orders sorted by most recent first, optionally filtered by status. " +
+                    "Pass the returned nextCursor as cursor to fetch the next page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Orders retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or limit"),
+            @ApiResponse(responseCode = "403", description = "Access denied - admin role required")
+    })
+    @GetMapping
+    public ResponseEntity<CursorPage<AdminOrderDTO>> getOrders(
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AdminOrderManagementService.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(adminOrderManagementService.getOrders(status, cursor, limit));
+    }
 
     @Operation(summary = "Get recent orders", description = "Retrieves the last 50 orders sorted by most recent first")
     @ApiResponses(value = {
@@ -45,7 +77,8 @@ public class AdminOrderManagementController {
         return ResponseEntity.ok(orders);
     }
 
-    @Operation(summary = "Get orders by status", description = "Retrieves all orders with a specific status")
+    @Operation(summary = "Get orders by status",
+            description = "Retrieves all orders with a specific status; use GET /api/v1/admin/orders?status= to page through them")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Orders retrieved successfully"),
             @ApiResponse(responseCode = "403", description = "Access denied - admin role required")
@@ -82,25 +115,35 @@ public class AdminOrderManagementController {
     @Operation(summary = "Get order count by status", description = "Get the count of orders in each status")
     @ApiResponse(responseCode = "200", description = "Order counts retrieved successfully")
     @GetMapping("/stats/count")
-    public ResponseEntity<?> getOrderCountByStatus() {
-        try {
-            class OrderStats {
-                public final long pending;
-                public final long processing;
-                public final long delivered;
-                public final long cancelled;
+    public ResponseEntity<Map<String, Long>> getOrderCountByStatus() {
+        // Keys stay lower-case status names (pending, processing, ...) as dashboards already expect
+        Map<String, Long> counts = new LinkedHashMap<>();
+        orderStatsService.getCountsByStatus()
+                .forEach((status, count) -> counts.put(status.name().toLowerCase(Locale.ROOT), count));
+        return ResponseEntity.ok(counts);
+    }
 
-                OrderStats() {
-                    this.pending = adminOrderManagementService.getOrdersByStatus(Status.PENDING).size();
-                    this.processing = adminOrderManagementService.getOrdersByStatus(Status.PROCESSING).size();
-                    this.delivered = adminOrderManagementService.getOrdersByStatus(Status.DELIVERED).size();
-                    this.cancelled = adminOrderManagementService.getOrdersByStatus(Status.CANCELLED).size();
-                }
-            }
-            return ResponseEntity.ok(new OrderStats());
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError()
-                    .body(new ErrorsResponse("Failed to fetch order stats", HttpStatus.INTERNAL_SERVER_ERROR));
-        }
+    @Operation(summary = "Export bills",
+            description = "Streams a ZIP archive with the bill of every order in a date range (inclusive) and/or with a status, " +
+                    "oldest first. Bills that fail to render are listed in failed.txt inside the archive.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Archive streamed", content = @Content(mediaType = "application/zip")),
+            @ApiResponse(responseCode = "400", description = "Neither a date range nor a status given, or the range is reversed"),
+            @ApiResponse(responseCode = "403", description = "Access denied - admin role required")
+    })
+    @GetMapping("/bills/export")
+    public ResponseEntity<StreamingResponseBody> exportBills(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Status status,
+            @RequestParam(defaultValue = "PDF") BillFormat format) {
+        BillExport export = billExportService.prepare(from, to, status, format);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(export.getFileName()).build());
+
+        StreamingResponseBody body = export::writeTo;
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 }
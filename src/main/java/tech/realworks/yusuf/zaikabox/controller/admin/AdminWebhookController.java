@@ -0,0 +1,55 @@
+package tech.realworks.yusuf.zaikabox.controller.admin;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import tech.realworks.yusuf.zaikabox.entity.WebhookEventEntity;
+import tech.realworks.yusuf.zaikabox.io.WebhookEventResponse;
+import tech.realworks.yusuf.zaikabox.service.webhook.WebhookInboxService;
+
+import java.util.List;
+
+/**
+ * Controller for the Razorpay webhook inbox.
+ * Lets admins see events that could not be processed and queue them again once the cause is fixed.
+ */
+@RestController
+@RequestMapping("/api/v1/admin/webhooks")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Admin Webhooks", description = "Admin APIs for the Razorpay webhook inbox")
+public class AdminWebhookController {
+
+    private final WebhookInboxService webhookInboxService;
+
+    @Operation(summary = "List webhook events",
+            description = "Lists stored webhook events in a state, most recent first. Defaults to DEAD events, which ran out of attempts.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Events retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit"),
+            @ApiResponse(responseCode = "403", description = "Access denied - admin role required")
+    })
+    @GetMapping
+    public ResponseEntity<List<WebhookEventResponse>> getEvents(
+            @RequestParam(defaultValue = "DEAD") WebhookEventEntity.State status,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(webhookInboxService.getEvents(status, limit));
+    }
+
+    @Operation(summary = "Retry webhook event", description = "Gives a dead webhook event a fresh set of attempts")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event queued again"),
+            @ApiResponse(responseCode = "400", description = "Event is not dead"),
+            @ApiResponse(responseCode = "404", description = "Event not found"),
+            @ApiResponse(responseCode = "403", description = "Access denied - admin role required")
+    })
+    @PostMapping("/{eventId}/retry")
+    public ResponseEntity<WebhookEventResponse> retry(@PathVariable String eventId) {
+        return ResponseEntity.ok(webhookInboxService.retry(eventId));
+    }
+}
@@ -21,7 +21,6 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
-import tech.realworks.yusuf.zaikabox.entity.UserEntity;
 import tech.realworks.yusuf.zaikabox.io.ErrorsResponse;
 import tech.realworks.yusuf.zaikabox.io.user.AuthenticationRequest;
 import tech.realworks.yusuf.zaikabox.io.user.AuthenticationResponse;
@@ -31,14 +30,15 @@ import tech.realworks.yusuf.zaikabox.io.user.*;
 import tech.realworks.yusuf.zaikabox.repository.userRepo.UserRepository;
 import tech.realworks.yusuf.zaikabox.service.AuditService;
 import tech.realworks.yusuf.zaikabox.service.userservice.AppUserDetailsService;
+import tech.realworks.yusuf.zaikabox.service.userservice.AuthenticatedUser;
 import tech.realworks.yusuf.zaikabox.service.userservice.RefreshTokenService;
+import tech.realworks.yusuf.zaikabox.service.userservice.TokenRevocationService;
 import tech.realworks.yusuf.zaikabox.service.userservice.UserService;
 import tech.realworks.yusuf.zaikabox.util.JwtUtil;
 
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
@@ -53,6 +53,7 @@ public class AuthController {
     private final UserRepository userRepository;
     private final AuditService auditService;
     private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Operation(summary = "Register a new user", description = "Registers a new user account.")
     @ApiResponses(value = {
@@ -88,8 +89,7 @@ public class AuthController {
             authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(authRequest.getEmail(), authRequest.getPassword()));
             final UserDetails userDetails = userDetailsService.loadUserByUsername(authRequest.getEmail());
 
-            Optional<UserEntity> userOpt = userRepository.findByEmail(authRequest.getEmail());
-            String userId = userOpt.isPresent() ? userOpt.get().getId() : null;
+            String userId = userDetails instanceof AuthenticatedUser authenticatedUser ? authenticatedUser.getUserId() : null;
 
             final String token = jwtUtil.generateToken(userDetails);
             String refreshToken = refreshTokenService.issueToken(userId, authRequest.getEmail()).getToken();
@@ -182,12 +182,12 @@ public class AuthController {
         String email = authentication != null ? authentication.getName() : null;
 
         String userId = null;
-        if (email != null && !"anonymousUser".equals(email)) {
-            Optional<UserEntity> userOpt = userRepository.findByEmail(email);
-            userId = userOpt.isPresent() ? userOpt.get().getId() : null;
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser authenticatedUser) {
+            userId = authenticatedUser.getUserId();
         }
 
         SecurityContextHolder.clearContext();
+        tokenRevocationService.revokeTokens(userId);
         if (request.getCookies() != null) {
             for (Cookie cookie : request.getCookies()) {
                 if ("refresh_token".equals(cookie.getName())) {
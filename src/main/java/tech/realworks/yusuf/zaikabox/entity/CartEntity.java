@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Map;
@@ -20,6 +21,7 @@ import java.util.Map;
 public class CartEntity {
     @Id
     private String id;
+    @Indexed(name = "carts_user_id_uidx", unique = true)
     private String userId; // Reference to the user who owns the cart
     private Map<String, Integer> cartItems; // Map of food item IDs to their quantities in the cart
 
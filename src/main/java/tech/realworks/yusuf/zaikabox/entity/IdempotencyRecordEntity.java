@@ -0,0 +1,51 @@
+package tech.realworks.yusuf.zaikabox.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Stored outcome of an idempotent request, shared by all API replicas.
+ * The ID is operation:scope:Idempotency-Key; the unique _id makes the first insert the only claim.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_records")
+public class IdempotencyRecordEntity {
+    @Id
+    private String id;
+
+    // SHA-256 of the serialized request body, to detect a key reused for a different request
+    private String fingerprint;
+
+    private State state;
+
+    // Serialized response, set once the request completed
+    private String responseBody;
+
+    // When the current owner claimed the record; a stale IN_PROGRESS claim can be taken over
+    private Instant lockedAt;
+
+    // Current owner of an IN_PROGRESS claim; writes from an owner whose claim was taken over match nothing
+    private String claimToken;
+
+    private Instant completedAt;
+
+    @Indexed(name = "idempotency_records_expires_at_ttl", expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    public enum State {
+        IN_PROGRESS,
+        COMPLETED,
+        // The request ran but its response could not be stored; never taken over or run again, only the TTL clears it
+        UNRECORDED
+    }
+}
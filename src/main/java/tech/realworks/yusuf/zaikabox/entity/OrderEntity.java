@@ -5,8 +5,13 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -19,23 +24,35 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 @Document(collection = "orders")
+@CompoundIndexes({
+        @CompoundIndex(name = "orders_order_date_id_idx", def = "{'orderDate': -1, '_id': -1}"),
+        @CompoundIndex(name = "orders_status_order_date_id_idx", def = "{'status': 1, 'orderDate': -1, '_id': -1}"),
+        @CompoundIndex(name = "orders_customer_order_date_id_idx", def = "{'customerId': 1, 'orderDate': -1, '_id': -1}"),
+        @CompoundIndex(name = "orders_customer_status_idx", def = "{'customerId': 1, 'status': 1, 'orderDate': -1, '_id': -1}")
+})
 public class OrderEntity {
     @Id
     private String id;
-    private String orderId; // Custom order ID (e.g., FD12345)
+    @Indexed(name = "orders_order_id_uidx", unique = true)
+    private String orderId; // Custom order ID (e.g., FD0SEWQ5XK3C01S)
     private String customerId; // Reference to the user who placed the order
     private List<OrderItemEntity> items; // List of items in the order
     private double subTotal; // Total before tax
-    private double gstRate; // GST rate in percentage
+    private double gstRate; // GST rate in percentage; the effective rate when items are taxed at different rates
     private double gstAmount; // GST amount
     private double totalAmountWithGST; // Total amount including GST
+    private long totalAmountPaise; // Total amount including GST in paise, as charged; 0 on orders placed before paise pricing
     private String paymentMode; // Payment mode (e.g., UPI, CARD, COD)
     private LocalDateTime orderDate; // Date and time when the order was placed
     private Status status; // Order status (e.g., PENDING, CONFIRMED, DELIVERED)
     private BillingDetails billingDetails;
+    // Sparse: orders created before Razorpay integration have no razorpayOrderId
+    @Indexed(name = "orders_razorpay_order_id_uidx", unique = true, sparse = true)
     private String razorpayOrderId;
     private String paymentStatus;
     private String razorpayPaymentId;
     private String razorpaySignature;
     private LocalDateTime paymentDate;
+    @LastModifiedDate
+    private Instant lastModified; // Set on every save; versions cached bills
 }
\ No newline at end of file
@@ -19,4 +19,5 @@ public class OrderItemEntity {
     private int quantity; // Quantity of the food item
     private double unitPrice; // Price per unit
     private double total; // Total price for this item (quantity * unitPrice)
+    private int gstBasisPoints; // GST rate of the item's category in basis points (500 = 5%)
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package tech.realworks.yusuf.zaikabox.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A side effect of an order change, written right after the order and carried out later by the outbox dispatcher.
+ * The ID is derived from the order and the event type, so writing the same event twice is a no-op.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "outbox_events")
+@CompoundIndexes({
+        @CompoundIndex(name = "outbox_events_status_next_attempt_idx", def = "{'status': 1, 'nextAttemptAt': 1}"),
+        @CompoundIndex(name = "outbox_events_order_created_idx", def = "{'orderId': 1, 'createdAt': 1}")
+})
+public class OutboxEventEntity {
+    @Id
+    private String id; // <orderId>:<type>
+
+    private String orderId; // Events of one order are dispatched one at a time, oldest first
+    private Type type;
+
+    // Payload, as of when the event was written
+    private String customerId;
+    private boolean clearCart;
+
+    private State status;
+    private int attempts;
+    private String lastError;
+
+    private Instant createdAt;
+    private Instant nextAttemptAt; // When a PENDING event is due
+    private Instant lockedUntil; // Lease of the dispatcher holding it; an expired lease can be taken over
+    private String claimToken; // Batch that holds the lease
+
+    @Indexed(name = "outbox_events_dispatched_at_ttl", expireAfter = "7d")
+    private Instant dispatchedAt;
+
+    public enum Type {
+        ORDER_PAID // Clear the cart, notify the kitchen and the customer, record the new order
+    }
+
+    public enum State {
+        PENDING, DISPATCHING, DISPATCHED
+    }
+}
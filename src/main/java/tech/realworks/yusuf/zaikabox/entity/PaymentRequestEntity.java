@@ -5,8 +5,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -15,6 +18,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "payment_requests")
+@CompoundIndex(name = "payment_requests_status_created_at_idx", def = "{'status': 1, 'createdAt': 1}")
 public class PaymentRequestEntity {
     @Id
     private String id;
@@ -24,6 +28,7 @@ public class PaymentRequestEntity {
     private String orderId; // Custom Order ID (e.g. FD12345)
 
     // Razorpay info
+    @Indexed(name = "payment_requests_razorpay_order_id_uidx", unique = true, sparse = true)
     private String razorpayOrderId;
     private String currency;
 
@@ -33,11 +38,18 @@ public class PaymentRequestEntity {
     private double gstRate;
     private double gstAmount;
     private double totalAmountWithGST;
+    private long totalAmountPaise; // Amount of the Razorpay order; 0 on requests created before paise pricing
     private BillingDetails billingDetails;
     private String paymentMode;
 
     // Internal state
     private boolean useCart; // To clear cart later
-    private String status; // PENDING, COMPLETED, FAILED
+    private String status; // PENDING, PROCESSING, COMPLETED, FAILED, EXPIRED
+    private Instant claimedAt; // When the current PROCESSING claim was taken; a stale claim can be taken over
     private LocalDateTime createdAt;
+    private Instant reconcileAfter; // When the reconciliation sweeper may check this request with Razorpay again
+
+    // Completed and expired requests are only kept for a while; their orders, if any, stay
+    @Indexed(name = "payment_requests_closed_at_ttl", expireAfter = "30d")
+    private Instant closedAt;
 }
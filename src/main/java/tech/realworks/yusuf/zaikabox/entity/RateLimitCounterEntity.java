@@ -0,0 +1,28 @@
+package tech.realworks.yusuf.zaikabox.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Request count of one rate limit window, shared by all API replicas.
+ * The ID is policy:clientKey:windowIndex.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "rate_limit_counters")
+public class RateLimitCounterEntity {
+    @Id
+    private String id;
+
+    private long count;
+
+    @Indexed(name = "rate_limit_counters_expires_at_ttl", expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
@@ -0,0 +1,31 @@
+package tech.realworks.yusuf.zaikabox.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Per-user revocation cut-off for access tokens.
+ * Any token of the user issued at or before {@code revokedBeforeMillis} (epoch milliseconds) is rejected in stateless mode.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "token_revocations")
+public class TokenRevocationEntity {
+    @Id
+    private String userId;
+
+    private long revokedBeforeMillis;
+
+    // Access tokens live for 24 hours, so a record is useless two days after its last update
+    @Indexed(name = "token_revocations_updated_at_ttl", expireAfterSeconds = 172800)
+    private Instant updatedAt;
+}
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 
@@ -25,7 +26,9 @@ public class UserEntity {
     private String id;
     @Size(min = 3, max = 20)
     private String name;
+    @Indexed(name = "users_email_uidx", unique = true)
     private String email;
     private String password;
+    @Indexed(name = "users_role_idx")
     private Role role;
 }
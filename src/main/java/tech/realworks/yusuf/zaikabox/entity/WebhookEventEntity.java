@@ -0,0 +1,49 @@
+package tech.realworks.yusuf.zaikabox.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A Razorpay webhook delivery, stored as received before it is processed.
+ * The ID is Razorpay's event ID, so redelivered events hit the unique _id and are dropped.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "webhook_events")
+@CompoundIndex(name = "webhook_events_status_next_attempt_idx", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class WebhookEventEntity {
+    @Id
+    private String id; // X-Razorpay-Event-Id, or the SHA-256 of the payload when the header is missing
+
+    private String event; // Event type (e.g., payment.captured)
+
+    // Raw body and signature exactly as received, so the event can be verified and processed again later
+    private String payload;
+    private String signature;
+
+    private State status;
+    private int attempts;
+    private String lastError;
+
+    private Instant receivedAt;
+    private Instant nextAttemptAt; // When a PENDING event is due
+    private Instant lockedUntil; // Lease of the worker processing it; an expired lease can be taken over
+
+    // Only processed events expire; dead ones stay until an admin retries them
+    @Indexed(name = "webhook_events_processed_at_ttl", expireAfter = "30d")
+    private Instant processedAt;
+
+    public enum State {
+        PENDING, PROCESSING, PROCESSED, DEAD
+    }
+}
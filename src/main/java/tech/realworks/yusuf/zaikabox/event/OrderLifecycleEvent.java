@@ -11,6 +11,12 @@ public class OrderLifecycleEvent {
     String orderId;
     String customerId;
     String status;
+    String previousStatus; // Status before the change, null when the order was just created
+    OrderChange change; // What happened to the orders document, null when no order document changed
     String source;
     LocalDateTime occurredAt;
+
+    public enum OrderChange {
+        CREATED, STATUS_CHANGED, DELETED
+    }
 }
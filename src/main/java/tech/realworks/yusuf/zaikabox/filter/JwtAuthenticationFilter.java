@@ -9,14 +9,19 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import tech.realworks.yusuf.zaikabox.entity.Role;
 import tech.realworks.yusuf.zaikabox.service.userservice.AppUserDetailsService;
+import tech.realworks.yusuf.zaikabox.service.userservice.AuthenticatedUser;
+import tech.realworks.yusuf.zaikabox.service.userservice.TokenRevocationService;
 import tech.realworks.yusuf.zaikabox.util.JwtUtil;
+import tech.realworks.yusuf.zaikabox.util.VerifiedJwt;
 
 import java.util.List;
 
@@ -27,6 +32,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     private final AppUserDetailsService appUserDetailsService;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
+
+    @Value("${app.security.jwt.stateless:false}")
+    private boolean statelessEnabled;
 
     private static final List<String> WHITELISTS_URLs = List.of(
             "/ws/**",
@@ -98,10 +107,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Validating the JWT and setting the authentication in the security context
         if(jwt != null){
             try {
-                email = jwtUtil.extractEmail(jwt);
+                // Signature and expiry are verified once here; later checks reuse the parsed claims
+                VerifiedJwt verifiedJwt = jwtUtil.parseAndValidate(jwt);
+                email = verifiedJwt.getSubject();
                 if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = appUserDetailsService.loadUserByUsername(email);
-                    if (jwtUtil.validateToken(jwt, userDetails)) {
+                    UserDetails userDetails = resolvePrincipal(verifiedJwt);
+                    if (userDetails != null && jwtUtil.isValidFor(verifiedJwt, userDetails)) {
                         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                         authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(authenticationToken);
@@ -115,4 +126,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * In stateless mode the principal is rebuilt from the signed claims and only checked against the
+     * in-memory revocation cut-offs. Otherwise, and for tokens issued without uid/role claims, the
+     * account is loaded from the database.
+     */
+    private UserDetails resolvePrincipal(VerifiedJwt verifiedJwt) {
+        if (statelessEnabled && verifiedJwt.getUserId() != null && verifiedJwt.getRole() != null) {
+            if (tokenRevocationService.isRevoked(verifiedJwt.getUserId(), verifiedJwt.getIssuedAt())) {
+                logger.debug("Rejected revoked token for user {}", verifiedJwt.getUserId());
+                return null;
+            }
+            return new AuthenticatedUser(verifiedJwt.getUserId(), verifiedJwt.getSubject(), null, Role.valueOf(verifiedJwt.getRole()));
+        }
+        return appUserDetailsService.loadUserByUsername(verifiedJwt.getSubject());
+    }
 }
@@ -7,41 +7,97 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
+import tech.realworks.yusuf.zaikabox.config.RateLimitProperties;
 import tech.realworks.yusuf.zaikabox.io.ErrorsResponse;
 import tech.realworks.yusuf.zaikabox.service.RateLimitService;
+import tech.realworks.yusuf.zaikabox.service.ratelimit.RateLimitDecision;
+import tech.realworks.yusuf.zaikabox.service.userservice.AuthenticationFacade;
 
 import java.io.IOException;
-import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Applies the first matching {@link RateLimitProperties} policy to each request.
+ * Runs after JWT authentication so per-user policies can key on the authenticated user ID.
+ */
 @Component
 @RequiredArgsConstructor
 public class RateLimitingFilter extends OncePerRequestFilter {
 
-    private static final Set<String> RATE_LIMITED_PATHS = Set.of(
-            "/api/v1/auth/login",
-            "/api/v1/auth/register",
-            "/api/v1/auth/forgot-password",
-            "/api/v1/payment/verify",
-            "/api/v1/orders/verify-payment"
-    );
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
 
     private final RateLimitService rateLimitService;
+    private final RateLimitProperties rateLimitProperties;
+    private final AuthenticationFacade authenticationFacade;
     private final ObjectMapper objectMapper;
     @Value("${app.security.trust-proxy-headers:false}")
     private boolean trustProxyHeaders;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        String path = request.getServletPath();
-        if (!RATE_LIMITED_PATHS.contains(path)) {
+        Map.Entry<String, RateLimitProperties.Policy> policy = rateLimitProperties.isEnabled() ? findPolicy(request) : null;
+        if (policy == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
+        String clientKey = resolveClientKey(request, policy.getValue().getKey());
+        RateLimitDecision decision = rateLimitService.tryConsume(policy.getKey(), policy.getValue(), clientKey);
+
+        response.setHeader("X-RateLimit-Limit", String.valueOf(decision.getLimit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.getRemaining()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(toSeconds(decision.getResetNanos())));
+
+        if (!decision.isAllowed()) {
+            long retryAfterSeconds = Math.max(1, toSeconds(decision.getRetryAfterNanos()));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(objectMapper.writeValueAsString(
+                    new ErrorsResponse("Rate limit exceeded. Please try again in " + retryAfterSeconds + " seconds.", HttpStatus.TOO_MANY_REQUESTS)
+            ));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private Map.Entry<String, RateLimitProperties.Policy> findPolicy(HttpServletRequest request) {
+        String path = request.getServletPath();
+        String method = request.getMethod();
+        for (Map.Entry<String, RateLimitProperties.Policy> entry : rateLimitProperties.getPolicies().entrySet()) {
+            RateLimitProperties.Policy policy = entry.getValue();
+            if (!policy.getMethods().isEmpty() && policy.getMethods().stream().noneMatch(method::equalsIgnoreCase)) {
+                continue;
+            }
+            for (String pattern : policy.getPaths()) {
+                if (PATH_MATCHER.match(pattern, path)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String resolveClientKey(HttpServletRequest request, RateLimitProperties.KeyType keyType) {
+        if (keyType == RateLimitProperties.KeyType.USER) {
+            Optional<String> userId = authenticationFacade.getCurrentUserId();
+            if (userId.isPresent()) {
+                return "user:" + userId.get();
+            }
+        }
+        return "ip:" + resolveClientIp(request);
+    }
+
+    private String resolveClientIp(HttpServletRequest request) {
         String clientIp = request.getRemoteAddr();
         if (trustProxyHeaders) {
             String forwardedFor = request.getHeader("X-Forwarded-For");
@@ -54,16 +110,10 @@ public class RateLimitingFilter extends OncePerRequestFilter {
                 }
             }
         }
-        String key = clientIp + ":" + path;
-        if (!rateLimitService.allow(key)) {
-            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-            response.getWriter().write(objectMapper.writeValueAsString(
-                    new ErrorsResponse("Rate limit exceeded. Please try again in a minute.", HttpStatus.TOO_MANY_REQUESTS)
-            ));
-            return;
-        }
+        return clientIp;
+    }
 
-        filterChain.doFilter(request, response);
+    private static long toSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
     }
 }
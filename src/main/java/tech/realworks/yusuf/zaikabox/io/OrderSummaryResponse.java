@@ -0,0 +1,25 @@
+package tech.realworks.yusuf.zaikabox.io;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for one row of a customer's order history.
+ * Items and billing details are left out; fetch the full order by its ID when it is opened.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderSummaryResponse {
+    private String orderId; // Custom order ID
+    private String status; // Order status (e.g., PENDING, PAID, DELIVERED)
+    private LocalDateTime orderDate; // Date and time when the order was placed
+    private double totalAmountWithGST; // Total amount including GST
+    private String paymentMode; // Payment mode (e.g., UPI, CARD, COD)
+    private String paymentStatus;
+}
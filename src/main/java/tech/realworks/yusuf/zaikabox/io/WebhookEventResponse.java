@@ -0,0 +1,27 @@
+package tech.realworks.yusuf.zaikabox.io;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * DTO for a stored webhook event in the admin dead-letter view.
+ * The payload is left out; it holds customer payment details.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WebhookEventResponse {
+    private String id; // Razorpay event ID
+    private String event; // Event type (e.g., payment.captured)
+    private String status; // PENDING, PROCESSING, PROCESSED or DEAD
+    private int attempts;
+    private String lastError;
+    private Instant receivedAt;
+    private Instant nextAttemptAt;
+    private Instant processedAt;
+}
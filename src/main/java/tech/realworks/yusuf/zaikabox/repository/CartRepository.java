@@ -4,12 +4,12 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 import tech.realworks.yusuf.zaikabox.entity.CartEntity;
 
-import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends MongoRepository<CartEntity, String> {
 
-    List<CartEntity> findByUserId(String userId);
+    // Oldest cart of the user; until MongoIndexManager has merged duplicates and built the unique index a user may own several
+    Optional<CartEntity> findFirstByUserIdOrderByIdAsc(String userId);
     void deleteByUserId(String userId);
 }
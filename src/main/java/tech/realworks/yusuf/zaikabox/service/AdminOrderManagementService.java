@@ -1,15 +1,23 @@
 package tech.realworks.yusuf.zaikabox.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
 import tech.realworks.yusuf.zaikabox.entity.Status;
+import tech.realworks.yusuf.zaikabox.event.OrderLifecycleEvent;
 import tech.realworks.yusuf.zaikabox.io.AdminOrderDTO;
+import tech.realworks.yusuf.zaikabox.io.CursorPage;
 import tech.realworks.yusuf.zaikabox.io.OrderStatusUpdateEvent;
 import tech.realworks.yusuf.zaikabox.repository.OrderRepository;
 import tech.realworks.yusuf.zaikabox.service.userservice.UserService;
+import tech.realworks.yusuf.zaikabox.util.OrderCursor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
@@ -27,35 +35,77 @@ public class AdminOrderManagementService {
     private final UserService userService;
     private final SimpMessagingTemplate messagingTemplate;
     private final AuditService auditService;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     public static final String CUSTOMER_ORDER_STATUS_TOPIC = "/topic/orders";
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    // Only the fields AdminOrderDTO is built from
+    private static final String[] ADMIN_ORDER_FIELDS = {
+            "orderId", "items", "subTotal", "gstAmount", "totalAmountWithGST", "paymentMode", "status", "orderDate",
+            "billingDetails.firstName", "billingDetails.lastName", "billingDetails.email",
+            "billingDetails.address", "billingDetails.locality"
+    };
+
     /**
-     * Get all recent orders (last 50) sorted by date descending
+     * Get the 50 most recent orders, newest first
      */
     public List<AdminOrderDTO> getRecentOrders() {
-        List<OrderEntity> orders = orderRepository.findAll().stream()
-                .sorted((a, b) -> b.getOrderDate().compareTo(a.getOrderDate()))
-                .limit(50)
-                .toList();
+        return getOrders(null, null, DEFAULT_PAGE_SIZE).getItems();
+    }
 
-        return orders.stream()
+    /**
+     * Get all orders with the given status, newest first.
+     * Use {@link #getOrders(Status, String, int)} to page through a status with many orders.
+     */
+    public List<AdminOrderDTO> getOrdersByStatus(Status status) {
+        Query query = Query.query(Criteria.where("status").is(status)).with(OrderCursor.SORT);
+        query.fields().include(ADMIN_ORDER_FIELDS);
+        return mongoTemplate.find(query, OrderEntity.class).stream()
                 .map(this::convertToAdminDTO)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Get orders filtered by status
+     * Get a page of orders sorted by date descending, optionally filtered by status.
+     * Pages are fetched by keyset (orderDate, _id) on an index, so deep pages cost the same as the first one.
+     * @param status Only return orders with this status, or null for all orders
+     * @param cursor The nextCursor of the previous page, or null for the first page
+     * @param limit Maximum number of orders to return (1-200)
+     * @return The page of orders and the cursor of the next page
      */
-    public List<AdminOrderDTO> getOrdersByStatus(Status status) {
-        List<OrderEntity> orders = orderRepository.findAll().stream()
-                .filter(o -> o.getStatus() == status)
-                .sorted((a, b) -> b.getOrderDate().compareTo(a.getOrderDate()))
-                .toList();
+    public CursorPage<AdminOrderDTO> getOrders(Status status, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
 
-        return orders.stream()
+        Query query = new Query();
+        if (status != null) {
+            query.addCriteria(Criteria.where("status").is(status));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            query.addCriteria(OrderCursor.decode(cursor).after());
+        }
+        query.with(OrderCursor.SORT);
+        // One extra row tells us whether another page exists
+        query.limit(limit + 1);
+        query.fields().include(ADMIN_ORDER_FIELDS);
+
+        List<OrderEntity> orders = mongoTemplate.find(query, OrderEntity.class);
+        String nextCursor = null;
+        if (orders.size() > limit) {
+            orders = orders.subList(0, limit);
+            OrderEntity last = orders.get(limit - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+
+        List<AdminOrderDTO> items = orders.stream()
                 .map(this::convertToAdminDTO)
                 .collect(Collectors.toList());
+        return new CursorPage<>(items, nextCursor);
     }
 
     /**
@@ -71,6 +121,15 @@ public class AdminOrderManagementService {
         String previousStatus = order.getStatus().name();
         order.setStatus(newStatus);
         order = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderLifecycleEvent.builder()
+                .orderId(order.getOrderId())
+                .customerId(order.getCustomerId())
+                .status(newStatus.name())
+                .previousStatus(previousStatus)
+                .change(OrderLifecycleEvent.OrderChange.STATUS_CHANGED)
+                .source("admin_order_status_update")
+                .occurredAt(LocalDateTime.now())
+                .build());
 
         // Get current admin user ID
         String adminUserId = userService.findByUserId();
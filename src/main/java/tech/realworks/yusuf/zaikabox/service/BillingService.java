@@ -2,9 +2,12 @@ package tech.realworks.yusuf.zaikabox.service;
 
 import com.razorpay.RazorpayException;
 import tech.realworks.yusuf.zaikabox.entity.Status;
+import tech.realworks.yusuf.zaikabox.io.CursorPage;
 import tech.realworks.yusuf.zaikabox.io.OrderRequest;
 import tech.realworks.yusuf.zaikabox.io.OrderResponse;
+import tech.realworks.yusuf.zaikabox.io.OrderSummaryResponse;
 import tech.realworks.yusuf.zaikabox.io.RazorpayPaymentVerificationDTO;
+import tech.realworks.yusuf.zaikabox.service.bill.PdfBill;
 
 import java.util.List;
 
@@ -40,6 +43,15 @@ public interface BillingService {
      */
     List<OrderResponse> getOrdersByStatus(Status status);
 
+    /**
+     * Get a page of the current user's order history, newest first
+     * @param status Only return orders with this status, or null for all orders
+     * @param after The nextCursor of the previous page, or null for the first page
+     * @param limit Maximum number of orders to return (1-100)
+     * @return Order summaries and the cursor of the next page
+     */
+    CursorPage<OrderSummaryResponse> getOrderHistory(Status status, String after, int limit);
+
     /**
      * Verify a Razorpay payment and persist the result.
      */
@@ -52,7 +64,7 @@ public interface BillingService {
 
     /**
      * Generate a unique order ID
-     * @return A unique order ID (e.g., FD12345)
+     * @return A unique order ID (e.g., FD0SEWQ5XK3C01S)
      */
     String generateOrderId();
 
@@ -63,6 +75,13 @@ public interface BillingService {
      */
     byte[] generatePdfBill(String orderId);
 
+    /**
+     * Get the PDF bill of an order, whose ETag can be checked before the content is loaded
+     * @param orderId The order ID
+     * @return The bill
+     */
+    PdfBill getPdfBill(String orderId);
+
     /**
      * Generate a text representation of the bill for an order
      * @param orderId The order ID
@@ -71,9 +90,28 @@ public interface BillingService {
     String generateTextBill(String orderId);
 
     /**
-     * Process Razorpay Webhook
+     * Check the signature of a Razorpay webhook
      * @param payload Request body
      * @param signature X-Razorpay-Signature header
+     * @return true if the payload was signed with our webhook secret
+     */
+    boolean isValidWebhookSignature(String payload, String signature);
+
+    /**
+     * Apply a verified Razorpay webhook event, creating the order of a captured payment.
+     * Events for payment requests that are already completed are ignored.
+     * @param payload Request body
+     * @param signature X-Razorpay-Signature header
+     * @throws RuntimeException if the event could not be applied; it may be retried
      */
     void processWebhook(String payload, String signature);
+
+    /**
+     * Create the order of a payment request that Razorpay reports as paid, when neither the verify call nor the
+     * webhook did. Payment requests that are already completed are left as they are.
+     * @param razorpayOrderId Razorpay order ID
+     * @param razorpayPaymentId ID of the captured payment
+     * @throws RuntimeException if the order could not be created; it may be retried
+     */
+    void reconcilePayment(String razorpayOrderId, String razorpayPaymentId);
 }
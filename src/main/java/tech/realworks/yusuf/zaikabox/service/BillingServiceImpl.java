@@ -1,11 +1,5 @@
 package tech.realworks.yusuf.zaikabox.service;
 
-import com.lowagie.text.*;
-import com.lowagie.text.pdf.PdfPCell;
-import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
 import com.razorpay.Utils;
 import lombok.RequiredArgsConstructor;
@@ -13,25 +7,46 @@ import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import tech.realworks.yusuf.zaikabox.event.OrderLifecycleEvent;
 import tech.realworks.yusuf.zaikabox.entity.*;
+import tech.realworks.yusuf.zaikabox.io.CursorPage;
 import tech.realworks.yusuf.zaikabox.io.OrderItemRequest;
 import tech.realworks.yusuf.zaikabox.io.OrderItemResponse;
 import tech.realworks.yusuf.zaikabox.io.OrderRequest;
 import tech.realworks.yusuf.zaikabox.io.OrderResponse;
+import tech.realworks.yusuf.zaikabox.io.OrderSummaryResponse;
 import tech.realworks.yusuf.zaikabox.io.RazorpayPaymentVerificationDTO;
 import tech.realworks.yusuf.zaikabox.repository.CartRepository;
-import tech.realworks.yusuf.zaikabox.repository.FoodRepository;
 import tech.realworks.yusuf.zaikabox.repository.OrderRepository;
 import tech.realworks.yusuf.zaikabox.repository.PaymentRequestRepository;
+import tech.realworks.yusuf.zaikabox.service.bill.PdfBill;
+import tech.realworks.yusuf.zaikabox.service.bill.PdfBillCache;
+import tech.realworks.yusuf.zaikabox.service.bill.TextBillRenderer;
+import tech.realworks.yusuf.zaikabox.service.outbox.OutboxService;
+import tech.realworks.yusuf.zaikabox.service.payment.GatewayOrder;
+import tech.realworks.yusuf.zaikabox.service.payment.PaymentGateway;
+import tech.realworks.yusuf.zaikabox.service.pricing.OrderTotals;
 import tech.realworks.yusuf.zaikabox.service.userservice.UserService;
-import tech.realworks.yusuf.zaikabox.util.OrderNotificationPublisher;
+import tech.realworks.yusuf.zaikabox.util.OrderCursor;
+import tech.realworks.yusuf.zaikabox.util.OrderIdGenerator;
 
-import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -41,14 +56,17 @@ import java.util.stream.Collectors;
 public class BillingServiceImpl implements BillingService {
 
     private final OrderRepository orderRepository;
-    private final FoodRepository foodRepository;
+    private final OrderPricingService orderPricingService;
     private final CartRepository cartRepository;
     private final PaymentRequestRepository paymentRequestRepository;
     private final UserService userService;
-    private final CartService cartService;
-    private final RazorpayClient client;
-    private final OrderNotificationPublisher orderNotificationPublisher;
+    private final PaymentGateway paymentGateway;
     private final ApplicationEventPublisher eventPublisher;
+    private final OrderIdGenerator orderIdGenerator;
+    private final MongoTemplate mongoTemplate;
+    private final PdfBillCache pdfBillCache;
+    private final TextBillRenderer textBillRenderer;
+    private final OutboxService outboxService;
 
     @Value("${razorpay.currency}")
     private String razorPayCurrency;
@@ -59,8 +77,18 @@ public class BillingServiceImpl implements BillingService {
     @Value("${razorpay.secret.key}")
     private String razorPaySecret;
 
-    // Default GST rate (5%)
-    private static final double DEFAULT_GST_RATE = 5.0;
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    // How long a PROCESSING claim on a payment request holds before another caller or the sweeper may take it over
+    public static final Duration PAYMENT_CLAIM_LEASE = Duration.ofMinutes(2);
+
+    // Payments being completed on this node, so concurrent callers share the result instead of racing
+    private final Map<String, CompletableFuture<OrderEntity>> paymentsInFlight = new ConcurrentHashMap<>();
+
+    // Order history rows leave out items and billing details
+    private static final String[] ORDER_SUMMARY_FIELDS = {
+            "orderId", "status", "orderDate", "totalAmountWithGST", "paymentMode", "paymentStatus"
+    };
 
     @Override
     public OrderResponse createOrder(OrderRequest orderRequest) throws RazorpayException {
@@ -81,21 +109,14 @@ public class BillingServiceImpl implements BillingService {
             throw new IllegalArgumentException("Order must contain items or use cart items");
         }
 
-        // Calculate totals
-        double subTotal = calculateSubTotal(orderItems);
-        double gstAmount = calculateGST(subTotal);
-        double totalAmountWithGST = subTotal + gstAmount;
+        // Calculate totals in paise; the Razorpay amount is the same total the order stores
+        OrderTotals totals = orderPricingService.totals(orderItems);
 
         String customOrderId = generateOrderId();
 
         // Create Razorpay Order
-        JSONObject orderReq = new JSONObject();
-        orderReq.put("amount", Math.round(totalAmountWithGST * 100) );
-        orderReq.put("currency", "INR");
-        orderReq.put("receipt", customOrderId);
-
-        Order razorPayOrder = client.orders.create(orderReq);
-        String razorpayOrderId = razorPayOrder.get("id");
+        GatewayOrder razorPayOrder = paymentGateway.createOrder(totals.getTotalPaise(), "INR", customOrderId);
+        String razorpayOrderId = razorPayOrder.getId();
 
         // Create Payment Request (Pre-order state)
         PaymentRequestEntity paymentRequest = PaymentRequestEntity.builder()
@@ -104,10 +125,11 @@ public class BillingServiceImpl implements BillingService {
                 .razorpayOrderId(razorpayOrderId)
                 .currency("INR")
                 .items(orderItems)
-                .subTotal(subTotal)
-                .gstRate(DEFAULT_GST_RATE)
-                .gstAmount(gstAmount)
-                .totalAmountWithGST(totalAmountWithGST)
+                .subTotal(totals.getSubTotal())
+                .gstRate(totals.getGstRate())
+                .gstAmount(totals.getGstAmount())
+                .totalAmountWithGST(totals.getTotal())
+                .totalAmountPaise(totals.getTotalPaise())
                 .billingDetails((orderRequest.getBillingDetails()))
                 .paymentMode(orderRequest.getPaymentMode())
                 .useCart(useCart)
@@ -154,13 +176,42 @@ public class BillingServiceImpl implements BillingService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public CursorPage<OrderSummaryResponse> getOrderHistory(Status status, String after, int limit) {
+        if (limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+
+        String customerId = userService.findByUserId();
+        Query query = Query.query(Criteria.where("customerId").is(customerId));
+        if (status != null) {
+            query.addCriteria(Criteria.where("status").is(status));
+        }
+        if (after != null && !after.isBlank()) {
+            query.addCriteria(OrderCursor.decode(after).after());
+        }
+        query.with(OrderCursor.SORT);
+        // One extra row tells us whether another page exists
+        query.limit(limit + 1);
+        query.fields().include(ORDER_SUMMARY_FIELDS);
+
+        List<OrderEntity> orders = mongoTemplate.find(query, OrderEntity.class);
+        String nextCursor = null;
+        if (orders.size() > limit) {
+            orders = orders.subList(0, limit);
+            OrderEntity last = orders.get(limit - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getId()).encode();
+        }
+
+        List<OrderSummaryResponse> summaries = orders.stream()
+                .map(this::convertToSummary)
+                .collect(Collectors.toList());
+        return new CursorPage<>(summaries, nextCursor);
+    }
+
     @Override
     public String generateOrderId() {
-        // Generate a unique order ID with format FD12345
-        String prefix = "FD";
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyMMddHHmmss"));
-        String randomSuffix = String.format("%03d", new Random().nextInt(1000));
-        return prefix + timestamp.substring(0, 5) + randomSuffix;
+        return orderIdGenerator.nextId();
     }
 
     /**
@@ -169,39 +220,13 @@ public class BillingServiceImpl implements BillingService {
      * @return List of order items
      */
     private List<OrderItemEntity> getOrderItemsFromCart(String customerId) {
-        List<CartEntity> carts = cartRepository.findByUserId(customerId);
-        if (carts.isEmpty()) {
-            throw new IllegalStateException("Cart is empty");
-        }
-
-        CartEntity cart = carts.get(0);
+        CartEntity cart = cartRepository.findFirstByUserIdOrderByIdAsc(customerId)
+                .orElseThrow(() -> new IllegalStateException("Cart is empty"));
         if (cart.getCartItems() == null || cart.getCartItems().isEmpty()) {
             throw new IllegalStateException("Cart is empty");
         }
 
-        List<OrderItemEntity> orderItems = new ArrayList<>();
-
-        for (Map.Entry<String, Integer> entry : cart.getCartItems().entrySet()) {
-            String foodId = entry.getKey();
-            Integer quantity = entry.getValue();
-
-            FoodEntity food = foodRepository.findById(foodId)
-                    .orElseThrow(() -> new NoSuchElementException("Food not found with ID: " + foodId));
-
-            double total = food.getPrice() * quantity;
-
-            OrderItemEntity orderItem = OrderItemEntity.builder()
-                    .foodId(foodId)
-                    .name(food.getName())
-                    .quantity(quantity)
-                    .unitPrice(food.getPrice())
-                    .total(total)
-                    .build();
-
-            orderItems.add(orderItem);
-        }
-
-        return orderItems;
+        return orderPricingService.priceCartItems(cart.getCartItems());
     }
 
     /**
@@ -210,50 +235,7 @@ public class BillingServiceImpl implements BillingService {
      * @return List of order items
      */
     private List<OrderItemEntity> getOrderItemsFromRequest(List<OrderItemRequest> itemRequests) {
-        List<OrderItemEntity> orderItems = new ArrayList<>();
-
-        for (OrderItemRequest itemRequest : itemRequests) {
-            String foodId = itemRequest.getFoodId();
-            int quantity = itemRequest.getQuantity();
-
-            FoodEntity food = foodRepository.findById(foodId)
-                    .orElseThrow(() -> new NoSuchElementException("Food not found with ID: " + foodId));
-
-            double total = food.getPrice() * quantity;
-
-            OrderItemEntity orderItem = OrderItemEntity.builder()
-                    .foodId(foodId)
-                    .name(food.getName())
-                    .quantity(quantity)
-                    .unitPrice(food.getPrice())
-                    .total(total)
-                    .build();
-
-            orderItems.add(orderItem);
-        }
-
-        return orderItems;
-    }
-
-    /**
-     * Calculate the subtotal of an order
-     * @param orderItems The order items
-     * @return The subtotal
-     */
-    private double calculateSubTotal(List<OrderItemEntity> orderItems) {
-        return orderItems.stream()
-                .mapToDouble(OrderItemEntity::getTotal)
-                .sum();
-    }
-
-    /**
-     * Calculate the GST amount
-     *
-     * @param subTotal The subtotal
-     * @return The GST amount
-     */
-    private double calculateGST(double subTotal) {
-        return (subTotal * BillingServiceImpl.DEFAULT_GST_RATE) / 100;
+        return orderPricingService.priceItems(itemRequests);
     }
 
     /**
@@ -305,6 +287,17 @@ public class BillingServiceImpl implements BillingService {
         return response;
     }
 
+    private OrderSummaryResponse convertToSummary(OrderEntity orderEntity) {
+        return OrderSummaryResponse.builder()
+                .orderId(orderEntity.getOrderId())
+                .status(String.valueOf(orderEntity.getStatus()))
+                .orderDate(orderEntity.getOrderDate())
+                .totalAmountWithGST(orderEntity.getTotalAmountWithGST())
+                .paymentMode(orderEntity.getPaymentMode())
+                .paymentStatus(orderEntity.getPaymentStatus())
+                .build();
+    }
+
     private OrderResponse convertPaymentRequestToResponse(PaymentRequestEntity paymentRequest) {
         List<OrderItemResponse> itemResponses = paymentRequest.getItems().stream()
                 .map(item -> OrderItemResponse.builder()
@@ -348,316 +341,23 @@ public class BillingServiceImpl implements BillingService {
 
     @Override
     public byte[] generatePdfBill(String orderId) {
-        // Get the order
-        OrderEntity order = orderRepository.findByOrderId(orderId)
-                .orElseThrow(() -> new NoSuchElementException("Order not found with ID: " + orderId));
-
-        // Create a new PDF document
-        Document document = new Document(PageSize.A4);
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        try {
-            // Initialize PDF writer
-            PdfWriter.getInstance(document, outputStream);
-
-            // Open the document
-            document.open();
-
-            // Add title
-            Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
-            Paragraph title = new Paragraph("ZaikaBox - Order Bill", titleFont);
-            title.setAlignment(Element.ALIGN_CENTER);
-            document.add(title);
-            document.add(Chunk.NEWLINE);
-
-            // Add order details
-            Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
-            Font boldFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
-
-            // Order ID and Date
-            Paragraph orderDetails = new Paragraph();
-            orderDetails.add(new Chunk("Order ID: ", boldFont));
-            orderDetails.add(new Chunk(order.getOrderId(), normalFont));
-            orderDetails.add(Chunk.NEWLINE);
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-            orderDetails.add(new Chunk("Order Date: ", boldFont));
-            orderDetails.add(new Chunk(order.getOrderDate().format(formatter), normalFont));
-            orderDetails.add(Chunk.NEWLINE);
-
-            orderDetails.add(new Chunk("Payment Mode: ", boldFont));
-            orderDetails.add(new Chunk(order.getPaymentMode(), normalFont));
-            orderDetails.add(Chunk.NEWLINE);
-
-            orderDetails.add(new Chunk("Status: ", boldFont));
-            orderDetails.add(new Chunk(order.getStatus().toString(), normalFont));
-            orderDetails.add(Chunk.NEWLINE);
-
-            // Add billing details if available
-            if (order.getBillingDetails() != null) {
-                BillingDetails billingDetails = order.getBillingDetails();
-                orderDetails.add(Chunk.NEWLINE);
-                orderDetails.add(new Chunk("Billing Details:", boldFont));
-                orderDetails.add(Chunk.NEWLINE);
-
-                if (billingDetails.getFirstName() != null && billingDetails.getLastName() != null) {
-                    orderDetails.add(new Chunk("Name: ", boldFont));
-                    orderDetails.add(new Chunk(billingDetails.getFirstName() + " " + billingDetails.getLastName(), normalFont));
-                    orderDetails.add(Chunk.NEWLINE);
-                }
-
-                if (billingDetails.getEmail() != null) {
-                    orderDetails.add(new Chunk("Email: ", boldFont));
-                    orderDetails.add(new Chunk(billingDetails.getEmail(), normalFont));
-                    orderDetails.add(Chunk.NEWLINE);
-                }
-
-                if (billingDetails.getAddress() != null) {
-                    orderDetails.add(new Chunk("Address: ", boldFont));
-                    orderDetails.add(new Chunk(billingDetails.getAddress(), normalFont));
-                    orderDetails.add(Chunk.NEWLINE);
-                }
-
-                if (billingDetails.getLocality() != null) {
-                    orderDetails.add(new Chunk("Locality: ", boldFont));
-                    orderDetails.add(new Chunk(billingDetails.getLocality(), normalFont));
-                    orderDetails.add(Chunk.NEWLINE);
-                }
-
-                if (billingDetails.getLandmark() != null) {
-                    orderDetails.add(new Chunk("Landmark: ", boldFont));
-                    orderDetails.add(new Chunk(billingDetails.getLandmark(), normalFont));
-                    orderDetails.add(Chunk.NEWLINE);
-                }
-
-                if (billingDetails.getZip() != null) {
-                    orderDetails.add(new Chunk("ZIP: ", boldFont));
-                    orderDetails.add(new Chunk(billingDetails.getZip(), normalFont));
-                    orderDetails.add(Chunk.NEWLINE);
-                }
-
-                if (billingDetails.getState() != null && billingDetails.getCountry() != null) {
-                    orderDetails.add(new Chunk("Location: ", boldFont));
-                    orderDetails.add(new Chunk(billingDetails.getState() + ", " + billingDetails.getCountry(), normalFont));
-                    orderDetails.add(Chunk.NEWLINE);
-                }
-            }
-
-            document.add(orderDetails);
-            document.add(Chunk.NEWLINE);
-
-            // Add items table
-            PdfPTable table = new PdfPTable(5); // 5 columns
-            table.setWidthPercentage(100);
-            table.setWidths(new float[]{1, 3, 1, 2, 2});
-
-            // Add table headers
-            PdfPCell cell;
-
-            cell = new PdfPCell(new Phrase("No.", boldFont));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setGrayFill(0.9f); // Light gray background
-            table.addCell(cell);
-
-            cell = new PdfPCell(new Phrase("Item", boldFont));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setGrayFill(0.9f); // Light gray background
-            table.addCell(cell);
-
-            cell = new PdfPCell(new Phrase("Qty", boldFont));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setGrayFill(0.9f); // Light gray background
-            table.addCell(cell);
-
-            cell = new PdfPCell(new Phrase("Unit Price", boldFont));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setGrayFill(0.9f); // Light gray background
-            table.addCell(cell);
-
-            cell = new PdfPCell(new Phrase("Total", boldFont));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setGrayFill(0.9f); // Light gray background
-            table.addCell(cell);
-
-            // Add items to the table
-            List<OrderItemEntity> items = order.getItems();
-            for (int i = 0; i < items.size(); i++) {
-                OrderItemEntity item = items.get(i);
-
-                cell = new PdfPCell(new Phrase(String.valueOf(i + 1), normalFont));
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                table.addCell(cell);
-
-                cell = new PdfPCell(new Phrase(item.getName(), normalFont));
-                table.addCell(cell);
-
-                cell = new PdfPCell(new Phrase(String.valueOf(item.getQuantity()), normalFont));
-                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-                table.addCell(cell);
-
-                cell = new PdfPCell(new Phrase(String.format("₹%.2f", item.getUnitPrice()), normalFont));
-                cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-                table.addCell(cell);
-
-                cell = new PdfPCell(new Phrase(String.format("₹%.2f", item.getTotal()), normalFont));
-                cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-                table.addCell(cell);
-            }
-
-            document.add(table);
-            document.add(Chunk.NEWLINE);
-
-            // Add totals
-            PdfPTable totalsTable = new PdfPTable(2);
-            totalsTable.setWidthPercentage(50);
-            totalsTable.setHorizontalAlignment(Element.ALIGN_RIGHT);
-            totalsTable.setWidths(new float[]{3, 2});
-
-            cell = new PdfPCell(new Phrase("Subtotal:", boldFont));
-            cell.setHorizontalAlignment(Element.ALIGN_LEFT);
-            cell.setBorder(Rectangle.NO_BORDER);
-            totalsTable.addCell(cell);
-
-            cell = new PdfPCell(new Phrase(String.format("₹%.2f", order.getSubTotal()), normalFont));
-            cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-            cell.setBorder(Rectangle.NO_BORDER);
-            totalsTable.addCell(cell);
-
-            cell = new PdfPCell(new Phrase("GST (" + order.getGstRate() + "%):", boldFont));
-            cell.setHorizontalAlignment(Element.ALIGN_LEFT);
-            cell.setBorder(Rectangle.NO_BORDER);
-            totalsTable.addCell(cell);
-
-            cell = new PdfPCell(new Phrase(String.format("₹%.2f", order.getGstAmount()), normalFont));
-            cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-            cell.setBorder(Rectangle.NO_BORDER);
-            totalsTable.addCell(cell);
-
-            cell = new PdfPCell(new Phrase("Total:", boldFont));
-            cell.setHorizontalAlignment(Element.ALIGN_LEFT);
-            cell.setBorder(Rectangle.NO_BORDER);
-            totalsTable.addCell(cell);
-
-            cell = new PdfPCell(new Phrase(String.format("₹%.2f", order.getTotalAmountWithGST()), boldFont));
-            cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-            cell.setBorder(Rectangle.NO_BORDER);
-            totalsTable.addCell(cell);
-
-            document.add(totalsTable);
-            document.add(Chunk.NEWLINE);
-
-            // Add footer
-            Paragraph footer = new Paragraph("Thank you for your order!", normalFont);
-            footer.setAlignment(Element.ALIGN_CENTER);
-            document.add(footer);
-
-            // Close the document
-            document.close();
-
-            return outputStream.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating PDF bill: " + e.getMessage(), e);
-        }
+        return pdfBillCache.get(findOrder(orderId));
     }
 
     @Override
-    public String generateTextBill(String orderId) {
-        // Get the order
-        OrderEntity order = orderRepository.findByOrderId(orderId)
-                .orElseThrow(() -> new NoSuchElementException("Order not found with ID: " + orderId));
-
-        StringBuilder textBill = new StringBuilder();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-
-        // Add title
-        textBill.append("===========================================\n");
-        textBill.append("            ZaikaBox - Order Bill          \n");
-        textBill.append("===========================================\n\n");
-
-        // Add order details
-        textBill.append("Order ID: ").append(order.getOrderId()).append("\n");
-        textBill.append("Order Date: ").append(order.getOrderDate().format(formatter)).append("\n");
-        textBill.append("Payment Mode: ").append(order.getPaymentMode()).append("\n");
-        textBill.append("Status: ").append(order.getStatus()).append("\n\n");
-
-        // Add billing details if available
-        if (order.getBillingDetails() != null) {
-            BillingDetails billingDetails = order.getBillingDetails();
-            textBill.append("Billing Details:\n");
-
-            if (billingDetails.getFirstName() != null && billingDetails.getLastName() != null) {
-                textBill.append("Name: ").append(billingDetails.getFirstName()).append(" ").append(billingDetails.getLastName()).append("\n");
-            }
-
-            if (billingDetails.getEmail() != null) {
-                textBill.append("Email: ").append(billingDetails.getEmail()).append("\n");
-            }
-
-            if (billingDetails.getAddress() != null) {
-                textBill.append("Address: ").append(billingDetails.getAddress()).append("\n");
-            }
-
-            if (billingDetails.getLocality() != null) {
-                textBill.append("Locality: ").append(billingDetails.getLocality()).append("\n");
-            }
-
-            if (billingDetails.getLandmark() != null) {
-                textBill.append("Landmark: ").append(billingDetails.getLandmark()).append("\n");
-            }
-
-            if (billingDetails.getZip() != null) {
-                textBill.append("ZIP: ").append(billingDetails.getZip()).append("\n");
-            }
-
-            if (billingDetails.getState() != null && billingDetails.getCountry() != null) {
-                textBill.append("Location: ").append(billingDetails.getState()).append(", ").append(billingDetails.getCountry()).append("\n");
-            }
-
-            textBill.append("\n");
-        }
-
-        // Add items table header
-        textBill.append(String.format("%-5s %-30s %-8s %-12s %-12s\n", "No.", "Item", "Qty", "Unit Price", "Total"));
-        textBill.append("-------------------------------------------------------------------\n");
-
-        // Add items
-        List<OrderItemEntity> items = order.getItems();
-        for (int i = 0; i < items.size(); i++) {
-            OrderItemEntity item = items.get(i);
-            textBill.append(String.format("%-5d %-30s %-8d ₹%-11.2f ₹%-11.2f\n",
-                    i + 1, 
-                    truncateString(item.getName(), 30), 
-                    item.getQuantity(), 
-                    item.getUnitPrice(), 
-                    item.getTotal()));
-        }
-
-        textBill.append("-------------------------------------------------------------------\n\n");
-
-        // Add totals
-        textBill.append(String.format("%-47s ₹%.2f\n", "Subtotal:", order.getSubTotal()));
-        textBill.append(String.format("%-47s ₹%.2f\n", "GST (" + order.getGstRate() + "%):", order.getGstAmount()));
-        textBill.append(String.format("%-47s ₹%.2f\n\n", "Total:", order.getTotalAmountWithGST()));
-
-        // Add footer
-        textBill.append("===========================================\n");
-        textBill.append("          Thank you for your order!        \n");
-        textBill.append("===========================================\n");
+    public PdfBill getPdfBill(String orderId) {
+        OrderEntity order = findOrder(orderId);
+        return new PdfBill(orderId, pdfBillCache.etag(order), outputStream -> pdfBillCache.writeTo(order, outputStream));
+    }
 
-        return textBill.toString();
+    private OrderEntity findOrder(String orderId) {
+        return orderRepository.findByOrderId(orderId)
+                .orElseThrow(() -> new NoSuchElementException("Order not found with ID: " + orderId));
     }
 
-    /**
-     * Helper method to truncate strings that are too long for the text bill format
-     * @param str The string to truncate
-     * @param maxLength The maximum length
-     * @return The truncated string
-     */
-    private String truncateString(String str, int maxLength) {
-        if (str.length() <= maxLength) {
-            return str;
-        }
-        return str.substring(0, maxLength - 3) + "...";
+    @Override
+    public String generateTextBill(String orderId) {
+        return textBillRenderer.render(findOrder(orderId));
     }
 
     @Override
@@ -678,85 +378,158 @@ public class BillingServiceImpl implements BillingService {
             throw new IllegalArgumentException("Invalid payment signature");
         }
 
-        // Check if order already exists (webhook or previous verification processed it)
-        Optional<OrderEntity> existingOrder = orderRepository.findByRazorpayOrderId(dto.getRazorpayOrderId());
-        if (existingOrder.isPresent()) {
-            return convertToResponse(existingOrder.get());
-        }
+        OrderEntity order = completePayment(dto.getRazorpayOrderId(), dto.getRazorpayPaymentId(), dto.getRazorpaySignature());
+        return convertToResponse(order);
+    }
+
+    @Override
+    public OrderResponse trackOrder(String orderId) {
+        return getOrder(orderId);
+    }
 
-        // Find Payment Request
-        PaymentRequestEntity paymentRequest = paymentRequestRepository.findByRazorpayOrderId(dto.getRazorpayOrderId())
-                .orElseThrow(() -> new NoSuchElementException("Payment Request not found for: " + dto.getRazorpayOrderId()));
 
-        if ("COMPLETED".equals(paymentRequest.getStatus())) {
-            // Race condition: marked completed but not found in order repo just above?
-            // Could strictly assume it exists now.
-            // For safety, we can try fetching order again or proceed.
-            // If we assume it is done, we try to fetch order.
-             return getOrder(paymentRequest.getOrderId());
+    @Override
+    public boolean isValidWebhookSignature(String payload, String signature) {
+        try {
+            return Utils.verifyWebhookSignature(payload, signature, razorPaySecret);
+        } catch (RazorpayException e) {
+            log.warn("Webhook signature check failed: {}", e.getMessage());
+            return false;
         }
+    }
 
-        createOrderInternal(paymentRequest, dto.getRazorpayPaymentId(), dto.getRazorpaySignature());
+    @Override
+    public void processWebhook(String payload, String signature) {
+        JSONObject json = new JSONObject(payload);
+        String event = json.getString("event");
 
-        paymentRequest.setStatus("COMPLETED");
-        paymentRequestRepository.save(paymentRequest);
+        if ("payment.captured".equals(event) || "order.paid".equals(event)) {
+            JSONObject payloadObj = json.getJSONObject("payload");
+            JSONObject payment = payloadObj.getJSONObject("payment").getJSONObject("entity");
+            // order.paid carries the order; payment.captured only has the payment, which names its order
+            JSONObject order = payloadObj.optJSONObject("order");
 
-        return getOrder(paymentRequest.getOrderId());
+            String razorpayOrderId = order != null
+                    ? order.getJSONObject("entity").getString("id")
+                    : payment.getString("order_id");
+            String razorpayPaymentId = payment.getString("id");
+
+            completePayment(razorpayOrderId, razorpayPaymentId, signature);
+        }
     }
 
     @Override
-    public OrderResponse trackOrder(String orderId) {
-        return getOrder(orderId);
+    public void reconcilePayment(String razorpayOrderId, String razorpayPaymentId) {
+        completePayment(razorpayOrderId, razorpayPaymentId, null);
     }
 
+    /**
+     * Create the order of a paid payment request exactly once, however many callers (the client's verify call,
+     * webhook deliveries, other replicas) race to do it.
+     * <p>
+     * The winner moves the request from PENDING (or EXPIRED, for a payment that arrived after the sweeper gave up on it)
+     * to PROCESSING with a single conditional findAndModify, which also returns the snapshot the order is built from, then creates the order and marks the request COMPLETED. Callers
+     * on the same node wait for the winner's result; callers elsewhere read the finished order once, or get
+     * {@link IdempotencyConflictException} while it is still being created. The unique index on
+     * orders.razorpayOrderId backs this up if a stale claim is taken over after the order was already inserted.
+     */
+    private OrderEntity completePayment(String razorpayOrderId, String razorpayPaymentId, String signature) {
+        CompletableFuture<OrderEntity> result = new CompletableFuture<>();
+        CompletableFuture<OrderEntity> inFlight = paymentsInFlight.putIfAbsent(razorpayOrderId, result);
+        if (inFlight != null) {
+            return awaitPayment(razorpayOrderId, inFlight);
+        }
 
-    @Override
-    public void processWebhook(String payload, String signature) {
-        String eventName = "unknown";
-        String razorpayOrderId = "unknown";
-        String razorpayPaymentId = "unknown";
         try {
-            // 1. Verify Signature
-            if (!Utils.verifyWebhookSignature(payload, signature, razorPaySecret)) {
-                throw new SecurityException("Invalid Webhook Signature");
-            }
-
-            JSONObject json = new JSONObject(payload);
-            String event = json.getString("event");
-            eventName = event;
+            OrderEntity order = claimAndCreateOrder(razorpayOrderId, razorpayPaymentId, signature);
+            result.complete(order);
+            return order;
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            paymentsInFlight.remove(razorpayOrderId, result);
+        }
+    }
 
-            if ("payment.captured".equals(event) || "order.paid".equals(event)) {
-                JSONObject payloadObj = json.getJSONObject("payload");
-                JSONObject payment = payloadObj.getJSONObject("payment").getJSONObject("entity");
-                JSONObject order = payloadObj.getJSONObject("order").getJSONObject("entity");
+    private OrderEntity claimAndCreateOrder(String razorpayOrderId, String razorpayPaymentId, String signature) {
+        // Mongo keeps milliseconds; claimedBy() matches on the exact value written here
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        // Every caller has a verified signature or the gateway's word that the order is paid, so a request the
+        // reconciliation sweeper already gave up on is still completed rather than leaving a paid customer without an order
+        Query claimable = Query.query(Criteria.where("razorpayOrderId").is(razorpayOrderId).orOperator(
+                Criteria.where("status").is("PENDING"),
+                Criteria.where("status").is("EXPIRED"),
+                Criteria.where("status").is("PROCESSING").and("claimedAt").lt(now.minus(PAYMENT_CLAIM_LEASE))));
+        Update claim = new Update().set("status", "PROCESSING").set("claimedAt", now).unset("closedAt");
+        PaymentRequestEntity paymentRequest = mongoTemplate.findAndModify(claimable, claim,
+                FindAndModifyOptions.options().returnNew(false), PaymentRequestEntity.class);
+        if (paymentRequest != null) {
+            if ("EXPIRED".equals(paymentRequest.getStatus())) {
+                log.warn("Payment {} arrived after its request expired; completing order {} anyway",
+                        razorpayOrderId, paymentRequest.getOrderId());
+            }
+            paymentRequest.setStatus("PROCESSING");
+            paymentRequest.setClaimedAt(now);
+            paymentRequest.setClosedAt(null);
+        }
 
-                razorpayOrderId = order.getString("id");
-                razorpayPaymentId = payment.getString("id");
+        if (paymentRequest == null) {
+            // Completed, or being completed, by someone else
+            Optional<OrderEntity> order = orderRepository.findByRazorpayOrderId(razorpayOrderId);
+            if (order.isPresent()) {
+                return order.get();
+            }
+            if (!mongoTemplate.exists(Query.query(Criteria.where("razorpayOrderId").is(razorpayOrderId)),
+                    PaymentRequestEntity.class)) {
+                throw new NoSuchElementException("Payment Request not found for: " + razorpayOrderId);
+            }
+            throw new IdempotencyConflictException("Payment " + razorpayOrderId + " is still being processed");
+        }
 
-                // 2. Find Payment Request
-                final String currentRazorpayOrderId = razorpayOrderId;
-                PaymentRequestEntity paymentRequest = paymentRequestRepository.findByRazorpayOrderId(currentRazorpayOrderId)
-                        .orElseThrow(() -> new NoSuchElementException("Payment Request not found: " + currentRazorpayOrderId));
+        OrderEntity order;
+        try {
+            order = createOrderInternal(paymentRequest, razorpayPaymentId, signature);
+        } catch (DuplicateKeyException e) {
+            // A previous claim expired after its order was inserted; finish what it started
+            order = orderRepository.findByRazorpayOrderId(razorpayOrderId).orElseThrow(() -> e);
+            outboxService.orderPaid(order, paymentRequest.isUseCart());
+        } catch (RuntimeException e) {
+            // Release the claim so a retry can take it straight away
+            mongoTemplate.updateFirst(claimedBy(paymentRequest),
+                    new Update().set("status", "PENDING").unset("claimedAt"), PaymentRequestEntity.class);
+            throw e;
+        }
 
-                // 3. Check if already processed
-                if ("COMPLETED".equals(paymentRequest.getStatus())) {
-                    return; // Idempotency
-                }
+        mongoTemplate.updateFirst(claimedBy(paymentRequest),
+                new Update().set("status", "COMPLETED").set("closedAt", Instant.now()).unset("claimedAt"),
+                PaymentRequestEntity.class);
+        return order;
+    }
 
-                // 4. Create Order Internal
-                createOrderInternal(paymentRequest, razorpayPaymentId, signature);
+    private static Query claimedBy(PaymentRequestEntity paymentRequest) {
+        return Query.query(Criteria.where("_id").is(paymentRequest.getId())
+                .and("status").is("PROCESSING")
+                .and("claimedAt").is(paymentRequest.getClaimedAt()));
+    }
 
-                // 5. Update Payment Request
-                paymentRequest.setStatus("COMPLETED");
-                paymentRequestRepository.save(paymentRequest);
+    private static OrderEntity awaitPayment(String razorpayOrderId, CompletableFuture<OrderEntity> inFlight) {
+        try {
+            return inFlight.get(PAYMENT_CLAIM_LEASE.toSeconds(), TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
-        } catch (Exception e) {
-            log.error("Webhook processing failed event={} razorpayOrderId={} razorpayPaymentId={} reason={}",
-                    eventName, razorpayOrderId, razorpayPaymentId, e.getMessage(), e);
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("Payment " + razorpayOrderId + " is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for payment " + razorpayOrderId);
         }
     }
 
-    private void createOrderInternal(PaymentRequestEntity paymentRequest, String razorpayPaymentId, String signature) {
+    private OrderEntity createOrderInternal(PaymentRequestEntity paymentRequest, String razorpayPaymentId, String signature) {
          OrderEntity orderEntity = OrderEntity.builder()
                 .orderId(paymentRequest.getOrderId())
                 .customerId(paymentRequest.getCustomerId())
@@ -765,6 +538,7 @@ public class BillingServiceImpl implements BillingService {
                 .gstRate(paymentRequest.getGstRate())
                 .gstAmount(paymentRequest.getGstAmount())
                 .totalAmountWithGST(paymentRequest.getTotalAmountWithGST())
+                .totalAmountPaise(paymentRequest.getTotalAmountPaise())
                 .paymentMode(paymentRequest.getPaymentMode())
                 .status(Status.PAID)
                 .orderDate(LocalDateTime.now())
@@ -777,23 +551,11 @@ public class BillingServiceImpl implements BillingService {
                 .build();
 
         orderEntity = orderRepository.save(orderEntity);
-        eventPublisher.publishEvent(OrderLifecycleEvent.builder()
-                .orderId(orderEntity.getOrderId())
-                .customerId(orderEntity.getCustomerId())
-                .status(Status.PAID.name())
-                .source("payment_verified")
-                .occurredAt(LocalDateTime.now())
-                .build());
-
-        // Clear cart if needed - Use clearCart(userId) as we are in background thread context probably
-        if (paymentRequest.isUseCart()) {
-            cartService.clearCart(paymentRequest.getCustomerId());
-        }
-
-        // Notify Admin
-        orderNotificationPublisher.notifyAdminNewOrder(orderEntity);
+        // Cart clearing, notifications and metrics run from the outbox once the order is durable
+        outboxService.orderPaid(orderEntity, paymentRequest.isUseCart());
 
-        // Notify User via WebSocket
-        orderNotificationPublisher.notifyUserOrderUpdate(orderEntity);
+        // Render the bill in the background; customers usually download it right after paying
+        pdfBillCache.prewarm(orderEntity);
+        return orderEntity;
     }
 }
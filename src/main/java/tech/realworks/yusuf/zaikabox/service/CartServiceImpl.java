@@ -1,150 +1,127 @@
 package tech.realworks.yusuf.zaikabox.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import tech.realworks.yusuf.zaikabox.entity.CartEntity;
 import tech.realworks.yusuf.zaikabox.io.CartRequest;
 import tech.realworks.yusuf.zaikabox.io.CartResponse;
 import tech.realworks.yusuf.zaikabox.repository.CartRepository;
-import tech.realworks.yusuf.zaikabox.repository.userRepo.UserRepository;
 import tech.realworks.yusuf.zaikabox.service.userservice.UserService;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
+/**
+ * Cart operations are applied as single atomic MongoDB updates ($inc / $unset / $set with upsert)
+ * against the unique userId index, so concurrent requests from the same user never overwrite each other.
+ * Until MongoIndexManager has merged duplicate carts and built that index, reads and writes go to the user's
+ * oldest cart, the one the merge keeps.
+ */
 @Service
 @RequiredArgsConstructor
 public class CartServiceImpl implements CartService {
 
+    private static final String CART_ITEMS = "cartItems";
+
     private final CartRepository cartRepository;
+    private final MongoTemplate mongoTemplate;
     private final UserService userService;
 
     @Override
     public CartResponse addToCart(String foodId) {
         String loggedInUserId = userService.findByUserId();
-        Optional<CartEntity> cartOptional = findCartByUserId(loggedInUserId);
-        CartEntity cartEntity = cartOptional.orElseGet(() -> new CartEntity(loggedInUserId, new HashMap<>()));
-        Map<String, Integer> cartItems = cartEntity.getCartItems();
-        if (cartItems == null) {
-            cartItems = new HashMap<>(); // Ensure map is initialized
-        }
-        cartItems.put(foodId, cartItems.getOrDefault(foodId, 0) + 1);
-        cartEntity.setCartItems(cartItems);
-        cartEntity = cartRepository.save(cartEntity);
+        CartEntity cartEntity = upsert(loggedInUserId, new Update().inc(itemPath(foodId), 1));
         return convertToResponse(cartEntity);
     }
 
     @Override
     public CartResponse getCart() {
         String loggedInUserId = userService.findByUserId();
-        Optional<CartEntity> cartOptional = findCartByUserId(loggedInUserId);
-        if (cartOptional.isPresent()) {
-            return convertToResponse(cartOptional.get());
-        } else {
-            // Return an empty cart if the user doesn't have one yet
-            CartEntity emptyCart = new CartEntity(loggedInUserId, new HashMap<>());
-            return convertToResponse(emptyCart);
-        }
+        // Return an empty cart if the user doesn't have one yet
+        CartEntity cartEntity = cartRepository.findFirstByUserIdOrderByIdAsc(loggedInUserId)
+                .orElseGet(() -> emptyCart(loggedInUserId));
+        return convertToResponse(cartEntity);
     }
 
     @Override
     public CartResponse updateCart(CartRequest cartRequest) {
         String loggedInUserId = userService.findByUserId();
-        Optional<CartEntity> cartOptional = findCartByUserId(loggedInUserId);
-        CartEntity cartEntity = cartOptional.orElseGet(() -> new CartEntity(loggedInUserId, new HashMap<>()));
-        cartEntity.setCartItems(cartRequest.getItems());
-        cartEntity = cartRepository.save(cartEntity);
+        Map<String, Integer> items = cartRequest.getItems() != null ? cartRequest.getItems() : new HashMap<>();
+        items.keySet().forEach(this::itemPath); // Validate keys before writing them as field names
+        CartEntity cartEntity = upsert(loggedInUserId, new Update().set(CART_ITEMS, items));
         return convertToResponse(cartEntity);
     }
 
     @Override
     public CartResponse removeFromCart(String foodId) {
         String loggedInUserId = userService.findByUserId();
-        Optional<CartEntity> cartOptional = findCartByUserId(loggedInUserId);
-        if (cartOptional.isPresent()) {
-            CartEntity cartEntity = cartOptional.get();
-            Map<String, Integer> cartItems = cartEntity.getCartItems();
-            if (cartItems != null) {
-                cartItems.remove(foodId);
-                cartEntity.setCartItems(cartItems);
-                cartEntity = cartRepository.save(cartEntity);
-            }
-            return convertToResponse(cartEntity);
-        } else {
-            // Return an empty cart if the user doesn't have one yet
-            CartEntity emptyCart = new CartEntity(loggedInUserId, new HashMap<>());
-            return convertToResponse(emptyCart);
-        }
+        CartEntity cartEntity = mongoTemplate.findAndModify(byUserId(loggedInUserId),
+                new Update().unset(itemPath(foodId)),
+                FindAndModifyOptions.options().returnNew(true),
+                CartEntity.class);
+        // Return an empty cart if the user doesn't have one yet
+        return convertToResponse(cartEntity != null ? cartEntity : emptyCart(loggedInUserId));
     }
 
     @Override
     public CartResponse clearCart() {
         String loggedInUserId = userService.findByUserId();
-        Optional<CartEntity> cartOptional = findCartByUserId(loggedInUserId);
-        if (cartOptional.isPresent()) {
-            CartEntity cartEntity = cartOptional.get();
-            cartEntity.setCartItems(new HashMap<>());
-            cartEntity = cartRepository.save(cartEntity);
-            return convertToResponse(cartEntity);
-        } else {
-            // Return an empty cart if the user doesn't have one yet
-            CartEntity emptyCart = new CartEntity(loggedInUserId, new HashMap<>());
-            return convertToResponse(emptyCart);
-        }
+        CartEntity cartEntity = mongoTemplate.findAndModify(byUserId(loggedInUserId),
+                new Update().set(CART_ITEMS, new HashMap<>()),
+                FindAndModifyOptions.options().returnNew(true),
+                CartEntity.class);
+        // Return an empty cart if the user doesn't have one yet
+        return convertToResponse(cartEntity != null ? cartEntity : emptyCart(loggedInUserId));
     }
 
-                                                                                                                        @Override
+    @Override
     public void clearCart(String userId) {
-        Optional<CartEntity> cartOptional = findCartByUserId(userId);
-        if (cartOptional.isPresent()) {
-            CartEntity cartEntity = cartOptional.get();
-            cartEntity.setCartItems(new HashMap<>());
-            cartRepository.save(cartEntity);
-        }
+        mongoTemplate.updateMulti(byUserId(userId), new Update().set(CART_ITEMS, new HashMap<>()), CartEntity.class);
     }
 
     private CartResponse convertToResponse(CartEntity cartEntity) {
         return CartResponse.builder()
                 .id(cartEntity.getId())
                 .userId(cartEntity.getUserId())
-                .items(cartEntity.getCartItems())
+                .items(cartEntity.getCartItems() != null ? cartEntity.getCartItems() : new HashMap<>())
                 .build();
     }
 
     /**
-     * Helper method to find cart by userId, handling potential duplicates by merging them.
+     * Apply an update to the user's cart, creating the cart if it does not exist yet.
      */
-    private Optional<CartEntity> findCartByUserId(String userId) {
-        List<CartEntity> carts = cartRepository.findByUserId(userId);
-        if (carts == null || carts.isEmpty()) {
-            return Optional.empty();
-        }
-
-        if (carts.size() == 1) {
-            return Optional.of(carts.get(0));
+    private CartEntity upsert(String userId, Update update) {
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        try {
+            return mongoTemplate.findAndModify(byUserId(userId), update, options, CartEntity.class);
+        } catch (DuplicateKeyException e) {
+            // Two first-time upserts raced on the unique userId index; the cart exists now, so retry as an update
+            return mongoTemplate.findAndModify(byUserId(userId), update, options, CartEntity.class);
         }
+    }
 
-        // Handle inconsistent data: multiple carts for same user
-        // We will merge them into the first one and delete the rest
-        CartEntity primaryCart = carts.get(0);
-        if (primaryCart.getCartItems() == null) {
-            primaryCart.setCartItems(new HashMap<>());
-        }
+    private Query byUserId(String userId) {
+        return Query.query(Criteria.where("userId").is(userId)).with(Sort.by("_id"));
+    }
 
-        for (int i = 1; i < carts.size(); i++) {
-            CartEntity duplicateCart = carts.get(i);
-            if (duplicateCart.getCartItems() != null) {
-                for (Map.Entry<String, Integer> entry : duplicateCart.getCartItems().entrySet()) {
-                    primaryCart.getCartItems().put(entry.getKey(),
-                        primaryCart.getCartItems().getOrDefault(entry.getKey(), 0) + entry.getValue());
-                }
-            }
-            // Delete duplicate
-            cartRepository.delete(duplicateCart);
+    /**
+     * Build the dotted path of a cart item, rejecting IDs that MongoDB would interpret as operators or sub-paths.
+     */
+    private String itemPath(String foodId) {
+        if (foodId == null || foodId.isBlank() || foodId.contains(".") || foodId.startsWith("$")) {
+            throw new IllegalArgumentException("Invalid food ID: " + foodId);
         }
+        return CART_ITEMS + "." + foodId;
+    }
 
-        return Optional.of(cartRepository.save(primaryCart));
+    private CartEntity emptyCart(String userId) {
+        return new CartEntity(userId, new HashMap<>());
     }
 }
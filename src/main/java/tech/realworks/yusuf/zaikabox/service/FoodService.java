@@ -3,6 +3,7 @@ package tech.realworks.yusuf.zaikabox.service;
 import org.springframework.web.multipart.MultipartFile;
 import tech.realworks.yusuf.zaikabox.io.FoodRequest;
 import tech.realworks.yusuf.zaikabox.io.FoodResponse;
+import tech.realworks.yusuf.zaikabox.service.foodserviceimpl.MenuSnapshot;
 
 import java.util.List;
 
@@ -13,6 +14,8 @@ public interface FoodService {
 
     List<FoodResponse> readFoods();
 
+    MenuSnapshot getMenuSnapshot();
+
     FoodResponse readFood(String id);
 
     boolean deleteFile(String fileName);
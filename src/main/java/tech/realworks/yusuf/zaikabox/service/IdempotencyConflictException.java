@@ -0,0 +1,12 @@
+package tech.realworks.yusuf.zaikabox.service;
+
+/**
+ * Thrown when an Idempotency-Key is still being processed by another request,
+ * or was already used for a request with a different body.
+ * Also thrown when a payment is still being completed by another caller.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
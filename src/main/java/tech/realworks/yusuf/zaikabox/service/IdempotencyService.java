@@ -1,47 +1,261 @@
 package tech.realworks.yusuf.zaikabox.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.entity.IdempotencyRecordEntity;
+import tech.realworks.yusuf.zaikabox.service.userservice.AuthenticationFacade;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Runs a request at most once per Idempotency-Key across restarts and replicas.
+ * <p>
+ * The first request inserts an IN_PROGRESS record into the durable store and, once the task succeeds, stores the
+ * serialized response on it; retries with the same key get that response back. A retry with a different body, or
+ * while the first request is still running, is rejected with {@link IdempotencyConflictException}. Failed tasks
+ * release their claim so the client can retry. A response that cannot be stored closes the record instead, so the
+ * request is never run a second time. Completed responses are also kept in a small local cache.
+ * <p>
+ * Every claim carries a random token, and completing, closing or releasing a record only works while that token
+ * still owns it, so an owner that finishes after its claim was taken over cannot overwrite or drop the new owner's.
+ * <p>
+ * Concurrent duplicates on the same node are coalesced: they wait on the first request's future rather than on a
+ * map lock, so unrelated keys never contend, and a failure is handed to the waiters without being cached.
+ */
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class IdempotencyService {
 
-    private final Cache<String, Object> cache = Caffeine.newBuilder()
-            .expireAfterWrite(Duration.ofMinutes(15))
+    private static final int COMPLETE_ATTEMPTS = 3;
+    private static final long COMPLETE_RETRY_BACKOFF_MS = 100;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final AuthenticationFacade authenticationFacade;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${app.idempotency.lease-seconds:120}")
+    private long leaseSeconds;
+
+    private final Cache<String, CompletedResponse> completedResponses = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(5))
             .maximumSize(10_000)
             .build();
 
-    @SuppressWarnings("unchecked")
-    public <T> T execute(String idempotencyKey, String operation, Callable<T> task) {
+    private final Map<String, InFlightRequest> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public <T> T execute(String idempotencyKey, String operation, Object request, Class<T> responseType, Callable<T> task) {
         if (idempotencyKey == null || idempotencyKey.isBlank()) {
-            try {
-                return task.call();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+            return call(task);
+        }
+
+        // Keys are scoped per user so two clients picking the same key never see each other's responses
+        String scope = authenticationFacade.getCurrentUserId().orElse("anonymous");
+        String recordId = operation + ":" + scope + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        CompletedResponse cached = completedResponses.getIfPresent(recordId);
+        if (cached != null) {
+            ensureSameRequest(cached.fingerprint, fingerprint);
+            counter("replayed").increment();
+            return responseType.cast(cached.response);
+        }
+
+        // Duplicates arriving on this node while the first request runs wait for its result instead of hitting the store
+        InFlightRequest mine = new InFlightRequest(fingerprint);
+        InFlightRequest leader = inFlight.putIfAbsent(recordId, mine);
+        if (leader != null) {
+            ensureSameRequest(leader.fingerprint, fingerprint);
+            counter("coalesced").increment();
+            return responseType.cast(await(leader.result));
+        }
+
+        try {
+            T response = executeOnce(recordId, fingerprint, responseType, task);
+            mine.result.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(recordId, mine);
+        }
+    }
+
+    private <T> T executeOnce(String recordId, String fingerprint, Class<T> responseType, Callable<T> task) {
+        String claimToken = UUID.randomUUID().toString();
+        Optional<IdempotencyRecordEntity> existing = idempotencyStore.claim(
+                recordId, fingerprint, Instant.now().plus(Duration.ofMinutes(ttlMinutes)), claimToken);
+        if (existing.isPresent()) {
+            IdempotencyRecordEntity record = existing.get();
+            ensureSameRequest(record.getFingerprint(), fingerprint);
+            if (record.getState() == IdempotencyRecordEntity.State.COMPLETED) {
+                T response = deserialize(record.getResponseBody(), responseType);
+                completedResponses.put(recordId, new CompletedResponse(fingerprint, response));
+                counter("replayed").increment();
+                return response;
+            }
+            if (record.getState() == IdempotencyRecordEntity.State.UNRECORDED) {
+                throw new IdempotencyConflictException(
+                        "The request with this Idempotency-Key already ran but its response could not be kept; it will not run again");
+            }
+            if (!idempotencyStore.takeOver(recordId, Instant.now().minusSeconds(leaseSeconds), claimToken)) {
+                throw new IdempotencyConflictException("A request with this Idempotency-Key is already being processed");
             }
         }
 
-        String key = operation + ":" + idempotencyKey;
+        counter("executed").increment();
+        T response;
+        try {
+            response = task.call();
+        } catch (Exception e) {
+            idempotencyStore.release(recordId, claimToken);
+            throw unchecked(e);
+        }
+
+        completedResponses.put(recordId, new CompletedResponse(fingerprint, response));
+        recordOutcome(recordId, claimToken, response);
+        return response;
+    }
+
+    /**
+     * Store the response of a task that ran, retrying briefly. If it still cannot be stored the record is closed
+     * instead, so no retry takes it over once the lease runs out and runs the side effect a second time.
+     */
+    private void recordOutcome(String recordId, String claimToken, Object response) {
         try {
-            return (T) cache.asMap().computeIfAbsent(key, ignored -> {
+            String responseBody = objectMapper.writeValueAsString(response);
+            for (int attempt = 1; ; attempt++) {
                 try {
-                    return task.call();
-                } catch (Exception e) {
-                    throw new TaskExecutionRuntimeException(e);
+                    if (!idempotencyStore.complete(recordId, claimToken, responseBody)) {
+                        log.warn("Idempotency record {} was taken over before its response was stored", recordId);
+                    }
+                    return;
+                } catch (RuntimeException e) {
+                    if (attempt == COMPLETE_ATTEMPTS) {
+                        throw e;
+                    }
+                    log.warn("Failed to store idempotent response for {} (attempt {}): {}", recordId, attempt, e.getMessage());
+                    Thread.sleep(COMPLETE_RETRY_BACKOFF_MS * attempt);
                 }
-            });
-        } catch (TaskExecutionRuntimeException ex) {
-            throw new RuntimeException(ex.getCause());
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Giving up on storing idempotent response for {}: {}", recordId, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            idempotencyStore.markUnrecorded(recordId, claimToken);
+            counter("unrecorded").increment();
+        } catch (RuntimeException e) {
+            log.error("Idempotency record {} is still claimed and may run again after the lease: {}", recordId, e.getMessage());
+        }
+    }
+
+    private Object await(CompletableFuture<Object> result) {
+        try {
+            return result.get(leaseSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // Same failure as the request being waited on; nothing was cached for it
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is already being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for a request with the same Idempotency-Key");
+        }
+    }
+
+    private Counter counter(String outcome) {
+        return counters.computeIfAbsent(outcome, ignored -> Counter.builder("zaikabox.idempotency.requests")
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (Exception e) {
+            throw unchecked(e);
+        }
+    }
+
+    /**
+     * Task exceptions keep their type so the exception handler can map them, e.g. a conflict to 409
+     */
+    private static RuntimeException unchecked(Exception e) {
+        return e instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(e);
+    }
+
+    private static void ensureSameRequest(String storedFingerprint, String fingerprint) {
+        if (!fingerprint.equals(storedFingerprint)) {
+            throw new IdempotencyConflictException("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] body = request != null ? objectMapper.writeValueAsBytes(request) : new byte[0];
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to fingerprint request", e);
+        }
+    }
+
+    private <T> T deserialize(String responseBody, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(responseBody, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read stored idempotent response", e);
         }
     }
 
-    private static class TaskExecutionRuntimeException extends RuntimeException {
-        TaskExecutionRuntimeException(Throwable cause) {
-            super(cause);
+    private static final class InFlightRequest {
+        private final String fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private InFlightRequest(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static final class CompletedResponse {
+        private final String fingerprint;
+        private final Object response;
+
+        private CompletedResponse(String fingerprint, Object response) {
+            this.fingerprint = fingerprint;
+            this.response = response;
         }
     }
 }
@@ -0,0 +1,108 @@
+package tech.realworks.yusuf.zaikabox.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import tech.realworks.yusuf.zaikabox.entity.IdempotencyRecordEntity;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Durable idempotency records in the idempotency_records collection.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Try to become the owner of a request
+     * @param claimToken Identifies this owner in {@link #complete}, {@link #markUnrecorded} and {@link #release}
+     * @return empty if this caller now owns the record, otherwise the record another request created
+     */
+    public Optional<IdempotencyRecordEntity> claim(String id, String fingerprint, Instant expiresAt, String claimToken) {
+        IdempotencyRecordEntity record = IdempotencyRecordEntity.builder()
+                .id(id)
+                .fingerprint(fingerprint)
+                .state(IdempotencyRecordEntity.State.IN_PROGRESS)
+                .lockedAt(Instant.now())
+                .claimToken(claimToken)
+                .expiresAt(expiresAt)
+                .build();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                mongoTemplate.insert(record);
+                return Optional.empty();
+            } catch (DuplicateKeyException e) {
+                IdempotencyRecordEntity existing = mongoTemplate.findById(id, IdempotencyRecordEntity.class);
+                if (existing != null) {
+                    return Optional.of(existing);
+                }
+                // Released or expired between the insert and the read; try to claim it again
+            }
+        }
+        throw new IdempotencyConflictException("A request with this Idempotency-Key is already being processed");
+    }
+
+    /**
+     * Take over an IN_PROGRESS record whose owner has not finished within the lease, e.g. because its node died
+     * @return true if this caller now owns the record
+     */
+    public boolean takeOver(String id, Instant staleBefore, String claimToken) {
+        Query query = Query.query(Criteria.where("_id").is(id)
+                .and("state").is(IdempotencyRecordEntity.State.IN_PROGRESS)
+                .and("lockedAt").lt(staleBefore));
+        IdempotencyRecordEntity taken = mongoTemplate.findAndModify(query,
+                new Update().set("lockedAt", Instant.now()).set("claimToken", claimToken),
+                FindAndModifyOptions.options().returnNew(true),
+                IdempotencyRecordEntity.class);
+        return taken != null;
+    }
+
+    /**
+     * Store the response of a request
+     * @return false if the claim was taken over meanwhile, in which case the new owner's outcome stands
+     */
+    public boolean complete(String id, String claimToken, String responseBody) {
+        return mongoTemplate.updateFirst(owned(id, claimToken),
+                new Update()
+                        .set("state", IdempotencyRecordEntity.State.COMPLETED)
+                        .set("responseBody", responseBody)
+                        .set("completedAt", Instant.now())
+                        .unset("claimToken"),
+                IdempotencyRecordEntity.class).getMatchedCount() > 0;
+    }
+
+    /**
+     * Close a record whose request ran but whose response could not be stored, so it is never taken over
+     */
+    public void markUnrecorded(String id, String claimToken) {
+        mongoTemplate.updateFirst(owned(id, claimToken),
+                new Update()
+                        .set("state", IdempotencyRecordEntity.State.UNRECORDED)
+                        .set("completedAt", Instant.now())
+                        .unset("claimToken"),
+                IdempotencyRecordEntity.class);
+    }
+
+    /**
+     * Drop an unfinished claim so the client can retry with the same key
+     */
+    public void release(String id, String claimToken) {
+        mongoTemplate.remove(owned(id, claimToken), IdempotencyRecordEntity.class);
+    }
+
+    private static Query owned(String id, String claimToken) {
+        // Only the owner still holding the claim records an outcome
+        return Query.query(Criteria.where("_id").is(id)
+                .and("state").is(IdempotencyRecordEntity.State.IN_PROGRESS)
+                .and("claimToken").is(claimToken));
+    }
+}
@@ -29,12 +29,15 @@ public class OrderImpl implements OrderService{
         }
 
         OrderEntity orderEntity = byOrderId.get();
+        Status previousStatus = orderEntity.getStatus();
         orderEntity.setStatus(status);
         OrderEntity saved = orderRepository.save(orderEntity);
         eventPublisher.publishEvent(OrderLifecycleEvent.builder()
                 .orderId(saved.getOrderId())
                 .customerId(saved.getCustomerId())
                 .status(status.name())
+                .previousStatus(previousStatus != null ? previousStatus.name() : null)
+                .change(OrderLifecycleEvent.OrderChange.STATUS_CHANGED)
                 .source("admin_order_status_update")
                 .occurredAt(java.time.LocalDateTime.now())
                 .build());
@@ -61,6 +64,8 @@ public class OrderImpl implements OrderService{
                     .orderId(existing.getOrderId())
                     .customerId(existing.getCustomerId())
                     .status(Status.CANCELLED.name())
+                    .previousStatus(existing.getStatus() != null ? existing.getStatus().name() : null)
+                    .change(OrderLifecycleEvent.OrderChange.DELETED)
                     .source("admin_order_delete")
                     .occurredAt(java.time.LocalDateTime.now())
                     .build());
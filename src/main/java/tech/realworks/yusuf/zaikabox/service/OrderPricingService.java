@@ -0,0 +1,105 @@
+package tech.realworks.yusuf.zaikabox.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.entity.FoodEntity;
+import tech.realworks.yusuf.zaikabox.entity.OrderItemEntity;
+import tech.realworks.yusuf.zaikabox.io.OrderItemRequest;
+import tech.realworks.yusuf.zaikabox.repository.FoodRepository;
+import tech.realworks.yusuf.zaikabox.service.pricing.GstRules;
+import tech.realworks.yusuf.zaikabox.service.pricing.OrderTotals;
+import tech.realworks.yusuf.zaikabox.service.pricing.PricingEngine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Prices order lines against the food catalogue.
+ * All food IDs of an order are resolved with a single {@code $in} query instead of one lookup per line.
+ * Amounts are worked out in paise by {@link PricingEngine}, with GST at the rate of each food's category.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderPricingService {
+
+    private final FoodRepository foodRepository;
+    private final GstRules gstRules;
+
+    /**
+     * Price the given cart contents
+     * @param cartItems Map of food IDs to quantities
+     * @return List of priced order items, in cart iteration order
+     */
+    public List<OrderItemEntity> priceCartItems(Map<String, Integer> cartItems) {
+        List<OrderItemRequest> lines = new ArrayList<>(cartItems.size());
+        for (Map.Entry<String, Integer> entry : cartItems.entrySet()) {
+            lines.add(new OrderItemRequest(entry.getKey(), entry.getValue()));
+        }
+        return priceItems(lines);
+    }
+
+    /**
+     * Price the given order lines
+     * @param lines The requested food IDs and quantities
+     * @return List of priced order items, in request order
+     * @throws NoSuchElementException if any of the food IDs does not exist, listing every missing ID
+     */
+    public List<OrderItemEntity> priceItems(List<OrderItemRequest> lines) {
+        Set<String> foodIds = new LinkedHashSet<>();
+        for (OrderItemRequest line : lines) {
+            foodIds.add(line.getFoodId());
+        }
+
+        Map<String, FoodEntity> foodsById = new HashMap<>(foodIds.size() * 2);
+        for (FoodEntity food : foodRepository.findAllById(foodIds)) {
+            foodsById.put(food.getId(), food);
+        }
+
+        if (foodsById.size() < foodIds.size()) {
+            List<String> missing = new ArrayList<>();
+            for (String foodId : foodIds) {
+                if (!foodsById.containsKey(foodId)) {
+                    missing.add(foodId);
+                }
+            }
+            throw new NoSuchElementException("Food not found with ID(s): " + String.join(", ", missing));
+        }
+
+        List<OrderItemEntity> orderItems = new ArrayList<>(lines.size());
+        for (OrderItemRequest line : lines) {
+            FoodEntity food = foodsById.get(line.getFoodId());
+            int quantity = line.getQuantity();
+            long unitPricePaise = PricingEngine.toPaise(food.getPrice());
+
+            orderItems.add(OrderItemEntity.builder()
+                    .foodId(food.getId())
+                    .name(food.getName())
+                    .quantity(quantity)
+                    .unitPrice(PricingEngine.toRupees(unitPricePaise))
+                    .total(PricingEngine.toRupees(PricingEngine.lineTotal(unitPricePaise, quantity)))
+                    .gstBasisPoints(gstRules.basisPointsFor(food.getCategory()))
+                    .build());
+        }
+
+        return orderItems;
+    }
+
+    /**
+     * Total priced order items, with GST at each item's rate
+     * @param orderItems Items returned by {@link #priceItems} or {@link #priceCartItems}
+     * @return The order totals
+     */
+    public OrderTotals totals(List<OrderItemEntity> orderItems) {
+        PricingEngine engine = new PricingEngine();
+        for (int i = 0; i < orderItems.size(); i++) {
+            OrderItemEntity item = orderItems.get(i);
+            engine.addLine(PricingEngine.toPaise(item.getUnitPrice()), item.getQuantity(), item.getGstBasisPoints());
+        }
+        return engine.totals();
+    }
+}
@@ -0,0 +1,147 @@
+package tech.realworks.yusuf.zaikabox.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.Status;
+import tech.realworks.yusuf.zaikabox.event.OrderLifecycleEvent;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Keeps a live count of orders per status for the admin dashboard.
+ * Counters are seeded from a single {@code $group} aggregation and then adjusted by {@link OrderLifecycleEvent}s,
+ * so reading them never touches MongoDB. The periodic reseed picks up changes made by other replicas.
+ * <p>
+ * A reseed only replaces the counters if no event was applied while the aggregation ran, otherwise it could not
+ * tell whether the aggregation already saw that event's write. CREATED is counted once per order, because the
+ * outbox delivers at least once and may publish it again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatsService {
+
+    private final MongoTemplate mongoTemplate;
+
+    private static final int RESEED_ATTEMPTS = 3;
+
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private final Map<Status, Long> counts = newCounters();
+    private long eventsApplied;
+
+    private final Cache<String, Boolean> countedOrders = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofDays(1))
+            .build();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.order-stats.reseed-interval-ms:300000}",
+            fixedDelayString = "${app.order-stats.reseed-interval-ms:300000}")
+    public void reseed() {
+        try {
+            for (int attempt = 1; attempt <= RESEED_ATTEMPTS; attempt++) {
+                long seenEvents;
+                synchronized (lock) {
+                    seenEvents = eventsApplied;
+                }
+                Map<Status, Long> stored = countStoredOrders();
+                synchronized (lock) {
+                    if (eventsApplied == seenEvents) {
+                        for (Status status : Status.values()) {
+                            counts.put(status, stored.getOrDefault(status, 0L));
+                        }
+                        log.debug("Seeded order status counters: {}", stored);
+                        return;
+                    }
+                }
+            }
+            log.debug("Orders kept changing while seeding status counters, trying again at the next reseed");
+        } catch (Exception e) {
+            log.warn("Failed to seed order status counters: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Get the number of orders in each status, including statuses without any orders
+     */
+    public Map<Status, Long> getCountsByStatus() {
+        Map<Status, Long> snapshot = new EnumMap<>(Status.class);
+        synchronized (lock) {
+            counts.forEach((status, count) -> snapshot.put(status, Math.max(0, count)));
+        }
+        return snapshot;
+    }
+
+    @EventListener
+    public void onOrderLifecycleEvent(OrderLifecycleEvent event) {
+        if (event.getChange() == null) {
+            return;
+        }
+        if (event.getChange() == OrderLifecycleEvent.OrderChange.CREATED && event.getOrderId() != null
+                && countedOrders.asMap().putIfAbsent(event.getOrderId(), Boolean.TRUE) != null) {
+            log.debug("Ignoring repeated CREATED event for order {}", event.getOrderId());
+            return;
+        }
+        synchronized (lock) {
+            switch (event.getChange()) {
+                case CREATED -> adjust(event.getStatus(), 1);
+                case STATUS_CHANGED -> {
+                    adjust(event.getPreviousStatus(), -1);
+                    adjust(event.getStatus(), 1);
+                }
+                case DELETED -> adjust(event.getPreviousStatus(), -1);
+            }
+            eventsApplied++;
+        }
+    }
+
+    private void adjust(String status, long delta) {
+        if (status == null) {
+            return;
+        }
+        try {
+            counts.merge(Status.valueOf(status), delta, Long::sum);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring order lifecycle event with unknown status {}", status);
+        }
+    }
+
+    private Map<Status, Long> countStoredOrders() {
+        Aggregation aggregation = Aggregation.newAggregation(Aggregation.group("status").count().as("count"));
+        Map<Status, Long> stored = new EnumMap<>(Status.class);
+        for (Document row : mongoTemplate.aggregate(aggregation, OrderEntity.class, Document.class).getMappedResults()) {
+            Object status = row.get("_id");
+            if (status == null) {
+                continue;
+            }
+            try {
+                stored.put(Status.valueOf(status.toString()), ((Number) row.get("count")).longValue());
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring orders with unknown status {}", status);
+            }
+        }
+        return stored;
+    }
+
+    private static Map<Status, Long> newCounters() {
+        Map<Status, Long> counters = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            counters.put(status, 0L);
+        }
+        return counters;
+    }
+}
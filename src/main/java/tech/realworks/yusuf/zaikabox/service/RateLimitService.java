@@ -1,23 +1,46 @@
 package tech.realworks.yusuf.zaikabox.service;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.config.RateLimitProperties;
+import tech.realworks.yusuf.zaikabox.service.ratelimit.RateLimitDecision;
+import tech.realworks.yusuf.zaikabox.service.ratelimit.RateLimiterBackend;
 
-import java.time.Duration;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Rate limit checks against the configured {@link RateLimiterBackend}: node-local token buckets by default,
+ * or counters shared by all replicas with {@code app.rate-limit.backend=shared}.
+ */
 @Service
+@RequiredArgsConstructor
 public class RateLimitService {
 
-    private static final int MAX_REQUESTS_PER_MINUTE = 30;
-    private final Cache<String, AtomicInteger> requestCache = Caffeine.newBuilder()
-            .expireAfterWrite(Duration.ofMinutes(1))
-            .maximumSize(20_000)
-            .build();
+    private final RateLimiterBackend rateLimiterBackend;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
 
-    public boolean allow(String key) {
-        AtomicInteger counter = requestCache.get(key, ignored -> new AtomicInteger(0));
-        return counter.incrementAndGet() <= MAX_REQUESTS_PER_MINUTE;
+    /**
+     * Take one unit of the client's budget for the given policy
+     * @param policyName Name of the matched policy, used for bucket keys and metrics
+     * @param policy The policy's capacity and refill period
+     * @param clientKey The client identity (IP or user ID)
+     * @return The decision, including remaining budget and retry delay
+     */
+    public RateLimitDecision tryConsume(String policyName, RateLimitProperties.Policy policy, String clientKey) {
+        RateLimitDecision decision = rateLimiterBackend.tryConsume(policyName, policy, clientKey);
+        counter(policyName, decision.isAllowed()).increment();
+        return decision;
+    }
+
+    private Counter counter(String policyName, boolean allowed) {
+        String outcome = allowed ? "allowed" : "rejected";
+        return counters.computeIfAbsent(policyName + ":" + outcome, ignored -> Counter.builder("zaikabox.ratelimit.requests")
+                .tag("policy", policyName)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
     }
 }
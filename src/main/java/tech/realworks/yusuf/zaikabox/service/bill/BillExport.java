@@ -0,0 +1,30 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A ZIP archive of bills, validated and ready to be written.
+ */
+public final class BillExport {
+
+    private final String fileName;
+    private final BillWriter content;
+
+    public BillExport(String fileName, BillWriter content) {
+        this.fileName = fileName;
+        this.content = content;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Write the archive, rendering bills as it goes
+     * @param outputStream Where the ZIP data is written; it is not closed
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        content.writeTo(outputStream);
+    }
+}
@@ -0,0 +1,189 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.Status;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports the bills of many orders as one ZIP archive, streamed to the caller as it is built.
+ * <p>
+ * Orders are read from a cursor in date order and rendered in parallel on a bounded pool. Entries are written in the
+ * same order the orders were read, and at most {@code max-in-flight} bills are rendered ahead of the one being written,
+ * so a slow client holds back the cursor and the pool instead of letting rendered bills pile up in memory.
+ */
+@Service
+@Slf4j
+public class BillExportService {
+
+    static final String FAILURES_ENTRY = "failed.txt";
+
+    private final MongoTemplate mongoTemplate;
+    private final BillPdfRenderer pdfRenderer;
+    private final TextBillRenderer textRenderer;
+    private final ExecutorService renderPool;
+    private final int maxInFlight;
+
+    public BillExportService(MongoTemplate mongoTemplate,
+                             BillPdfRenderer pdfRenderer,
+                             TextBillRenderer textRenderer,
+                             @Value("${app.bills.export.threads:0}") int threads,
+                             @Value("${app.bills.export.max-in-flight:0}") int maxInFlight) {
+        this.mongoTemplate = mongoTemplate;
+        this.pdfRenderer = pdfRenderer;
+        this.textRenderer = textRenderer;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.renderPool = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("bill-export-"));
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : poolSize * 2;
+    }
+
+    /**
+     * Validate an export and prepare it for streaming; nothing is read until it is written
+     * @param from First order date to include, or null for no lower bound
+     * @param to Last order date to include, or null for no upper bound
+     * @param status Only include orders with this status, or null for all statuses
+     * @param format Format of the bills in the archive
+     * @return The export
+     * @throws IllegalArgumentException if neither a date nor a status is given, or the range is reversed
+     */
+    public BillExport prepare(LocalDate from, LocalDate to, Status status, BillFormat format) {
+        if (from == null && to == null && status == null) {
+            throw new IllegalArgumentException("Give a date range or a status to export");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        Criteria criteria = status != null ? Criteria.where("status").is(status) : null;
+        if (from != null || to != null) {
+            Criteria orderDate = criteria != null ? criteria.and("orderDate") : Criteria.where("orderDate");
+            if (from != null) {
+                orderDate.gte(from.atStartOfDay());
+            }
+            if (to != null) {
+                orderDate.lt(to.plusDays(1).atStartOfDay());
+            }
+            if (criteria == null) {
+                criteria = orderDate;
+            }
+        }
+        // Ascending on the (status,) orderDate, _id indexes, walked backwards
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Order.asc("orderDate"), Sort.Order.asc("id")));
+
+        String fileName = "bills"
+                + (from != null ? "-from-" + from : "")
+                + (to != null ? "-to-" + to : "")
+                + (status != null ? "-" + status.name().toLowerCase(Locale.ROOT) : "")
+                + ".zip";
+        return new BillExport(fileName, outputStream -> writeZip(query, format, outputStream));
+    }
+
+    private void writeZip(Query query, BillFormat format, OutputStream outputStream) throws IOException {
+        long started = System.currentTimeMillis();
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        Deque<PendingBill> window = new ArrayDeque<>();
+        List<String> failures = new ArrayList<>();
+        int written = 0;
+
+        try (Stream<OrderEntity> orders = mongoTemplate.stream(query, OrderEntity.class)) {
+            Iterator<OrderEntity> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                OrderEntity order = iterator.next();
+                window.add(new PendingBill(order, renderPool.submit(() -> render(order, format))));
+                if (window.size() >= maxInFlight) {
+                    written += writeNext(zip, window.poll(), format, failures);
+                }
+            }
+            while (!window.isEmpty()) {
+                written += writeNext(zip, window.poll(), format, failures);
+            }
+
+            if (!failures.isEmpty()) {
+                zip.putNextEntry(new ZipEntry(FAILURES_ENTRY));
+                zip.write(String.join("\n", failures).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            // Finish rather than close: the caller owns the response stream
+            zip.finish();
+        } finally {
+            // Stop rendering for a client that went away
+            window.forEach(pending -> pending.content.cancel(true));
+        }
+
+        log.info("Exported {} bills ({} failed) in {} ms", written, failures.size(), System.currentTimeMillis() - started);
+    }
+
+    private int writeNext(ZipOutputStream zip, PendingBill pending, BillFormat format, List<String> failures)
+            throws IOException {
+        OrderEntity order = pending.order;
+        byte[] content;
+        try {
+            content = pending.content.get();
+        } catch (ExecutionException e) {
+            log.warn("Failed to render bill for order {}: {}", order.getOrderId(), e.getCause().getMessage());
+            failures.add(order.getOrderId() + ": " + e.getCause().getMessage());
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bill export interrupted");
+        }
+
+        ZipEntry entry = new ZipEntry("order-" + order.getOrderId() + "-bill." + format.getExtension());
+        if (order.getOrderDate() != null) {
+            entry.setTimeLocal(order.getOrderDate());
+        }
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+        return 1;
+    }
+
+    private byte[] render(OrderEntity order, BillFormat format) {
+        return switch (format) {
+            case PDF -> pdfRenderer.render(order);
+            case TEXT -> textRenderer.render(order).getBytes(StandardCharsets.UTF_8);
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    private static final class PendingBill {
+        private final OrderEntity order;
+        private final Future<byte[]> content;
+
+        private PendingBill(OrderEntity order, Future<byte[]> content) {
+            this.order = order;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+/**
+ * Formats a bill can be exported in.
+ */
+public enum BillFormat {
+    PDF("pdf"),
+    TEXT("txt");
+
+    private final String extension;
+
+    BillFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
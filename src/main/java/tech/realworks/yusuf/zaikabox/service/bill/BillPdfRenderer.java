@@ -0,0 +1,181 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import com.lowagie.text.*;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import org.springframework.stereotype.Component;
+import tech.realworks.yusuf.zaikabox.entity.BillingDetails;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.OrderItemEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Renders the PDF bill of an order with OpenPDF, writing straight into the caller's stream.
+ * Fonts, the date formatter and the item table header cells are built once and reused; tables copy the cells
+ * they are given, so the templates are never modified and are safe to share between threads.
+ */
+@Component
+public class BillPdfRenderer {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+    private static final float[] ITEM_COLUMN_WIDTHS = {1, 3, 1, 2, 2};
+    private static final float[] TOTALS_COLUMN_WIDTHS = {3, 2};
+
+    private final Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+    private final Font normalFont = FontFactory.getFont(FontFactory.HELVETICA, 12);
+    private final Font boldFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
+    private final List<PdfPCell> itemHeaderCells = List.of(
+            headerCell("No."), headerCell("Item"), headerCell("Qty"), headerCell("Unit Price"), headerCell("Total"));
+
+    /**
+     * Render the bill of an order
+     * @param order The order
+     * @return Byte array containing the PDF data
+     */
+    public byte[] render(OrderEntity order) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        render(order, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Render the bill of an order into a stream
+     * @param order The order
+     * @param outputStream Where the PDF is written; it is not closed
+     */
+    public void render(OrderEntity order, OutputStream outputStream) {
+        Document document = new Document(PageSize.A4);
+
+        try {
+            // The caller owns the stream
+            PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+            writer.setCloseStream(false);
+            document.open();
+
+            Paragraph title = new Paragraph("ZaikaBox - Order Bill", titleFont);
+            title.setAlignment(Element.ALIGN_CENTER);
+            document.add(title);
+            document.add(Chunk.NEWLINE);
+
+            document.add(orderDetails(order));
+            document.add(Chunk.NEWLINE);
+
+            document.add(itemsTable(order.getItems()));
+            document.add(Chunk.NEWLINE);
+
+            document.add(totalsTable(order));
+            document.add(Chunk.NEWLINE);
+
+            Paragraph footer = new Paragraph("Thank you for your order!", normalFont);
+            footer.setAlignment(Element.ALIGN_CENTER);
+            document.add(footer);
+
+            document.close();
+        } catch (Exception e) {
+            throw new RuntimeException("Error generating PDF bill: " + e.getMessage(), e);
+        }
+    }
+
+    private Paragraph orderDetails(OrderEntity order) {
+        Paragraph details = new Paragraph();
+        addLine(details, "Order ID: ", order.getOrderId());
+        addLine(details, "Order Date: ", order.getOrderDate().format(DATE_FORMATTER));
+        addLine(details, "Payment Mode: ", order.getPaymentMode());
+        addLine(details, "Status: ", order.getStatus().toString());
+
+        BillingDetails billingDetails = order.getBillingDetails();
+        if (billingDetails != null) {
+            details.add(Chunk.NEWLINE);
+            details.add(new Chunk("Billing Details:", boldFont));
+            details.add(Chunk.NEWLINE);
+
+            if (billingDetails.getFirstName() != null && billingDetails.getLastName() != null) {
+                addLine(details, "Name: ", billingDetails.getFirstName() + " " + billingDetails.getLastName());
+            }
+            if (billingDetails.getEmail() != null) {
+                addLine(details, "Email: ", billingDetails.getEmail());
+            }
+            if (billingDetails.getAddress() != null) {
+                addLine(details, "Address: ", billingDetails.getAddress());
+            }
+            if (billingDetails.getLocality() != null) {
+                addLine(details, "Locality: ", billingDetails.getLocality());
+            }
+            if (billingDetails.getLandmark() != null) {
+                addLine(details, "Landmark: ", billingDetails.getLandmark());
+            }
+            if (billingDetails.getZip() != null) {
+                addLine(details, "ZIP: ", billingDetails.getZip());
+            }
+            if (billingDetails.getState() != null && billingDetails.getCountry() != null) {
+                addLine(details, "Location: ", billingDetails.getState() + ", " + billingDetails.getCountry());
+            }
+        }
+        return details;
+    }
+
+    private PdfPTable itemsTable(List<OrderItemEntity> items) throws DocumentException {
+        PdfPTable table = new PdfPTable(ITEM_COLUMN_WIDTHS.length);
+        table.setWidthPercentage(100);
+        table.setWidths(ITEM_COLUMN_WIDTHS);
+        itemHeaderCells.forEach(table::addCell);
+
+        for (int i = 0; i < items.size(); i++) {
+            OrderItemEntity item = items.get(i);
+            table.addCell(cell(String.valueOf(i + 1), normalFont, Element.ALIGN_CENTER, true));
+            table.addCell(cell(item.getName(), normalFont, Element.ALIGN_UNDEFINED, true));
+            table.addCell(cell(String.valueOf(item.getQuantity()), normalFont, Element.ALIGN_CENTER, true));
+            table.addCell(cell(money(item.getUnitPrice()), normalFont, Element.ALIGN_RIGHT, true));
+            table.addCell(cell(money(item.getTotal()), normalFont, Element.ALIGN_RIGHT, true));
+        }
+        return table;
+    }
+
+    private PdfPTable totalsTable(OrderEntity order) throws DocumentException {
+        PdfPTable totals = new PdfPTable(TOTALS_COLUMN_WIDTHS.length);
+        totals.setWidthPercentage(50);
+        totals.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        totals.setWidths(TOTALS_COLUMN_WIDTHS);
+
+        totals.addCell(cell("Subtotal:", boldFont, Element.ALIGN_LEFT, false));
+        totals.addCell(cell(money(order.getSubTotal()), normalFont, Element.ALIGN_RIGHT, false));
+        totals.addCell(cell("GST (" + order.getGstRate() + "%):", boldFont, Element.ALIGN_LEFT, false));
+        totals.addCell(cell(money(order.getGstAmount()), normalFont, Element.ALIGN_RIGHT, false));
+        totals.addCell(cell("Total:", boldFont, Element.ALIGN_LEFT, false));
+        totals.addCell(cell(money(order.getTotalAmountWithGST()), boldFont, Element.ALIGN_RIGHT, false));
+        return totals;
+    }
+
+    private void addLine(Paragraph paragraph, String label, String value) {
+        paragraph.add(new Chunk(label, boldFont));
+        paragraph.add(new Chunk(value, normalFont));
+        paragraph.add(Chunk.NEWLINE);
+    }
+
+    private PdfPCell headerCell(String text) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, boldFont));
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cell.setGrayFill(0.9f); // Light gray background
+        return cell;
+    }
+
+    private static PdfPCell cell(String text, Font font, int alignment, boolean bordered) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        if (alignment != Element.ALIGN_UNDEFINED) {
+            cell.setHorizontalAlignment(alignment);
+        }
+        if (!bordered) {
+            cell.setBorder(Rectangle.NO_BORDER);
+        }
+        return cell;
+    }
+
+    private static String money(double amount) {
+        return String.format("₹%.2f", amount);
+    }
+}
@@ -0,0 +1,13 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes bill data into a stream without closing it, so it can go straight into an HTTP response.
+ */
+@FunctionalInterface
+public interface BillWriter {
+
+    void writeTo(OutputStream outputStream) throws IOException;
+}
@@ -0,0 +1,47 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import tech.realworks.yusuf.zaikabox.util.ETags;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The PDF bill of an order, with its ETag available before the content is loaded or rendered.
+ */
+public final class PdfBill {
+
+    private final String orderId;
+    private final String etag;
+    private final BillWriter content;
+
+    public PdfBill(String orderId, String etag, BillWriter content) {
+        this.orderId = orderId;
+        this.etag = etag;
+        this.content = content;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Write the PDF data, rendering it if no cached copy exists
+     * @param outputStream Where the PDF is written; it is not closed
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        content.writeTo(outputStream);
+    }
+
+    /**
+     * Check an If-None-Match header value against this bill
+     * @param ifNoneMatch The raw header value, possibly a comma separated list
+     * @return true if the client already holds this version of the bill
+     */
+    public boolean matches(String ifNoneMatch) {
+        return ETags.matches(etag, ifNoneMatch);
+    }
+}
@@ -0,0 +1,431 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Rendered PDF bills, cached as bytes per order version in two tiers: a size-bounded in-memory cache in front of a
+ * size-bounded directory on local disk. The version is the order status plus its last-modified time, so any change
+ * to the order renders a fresh bill while unchanged orders are served without touching OpenPDF.
+ * <p>
+ * Downloads go through {@link #writeTo}, which streams from whichever tier holds the bill and, on a miss, renders
+ * straight into the response while copying the output to disk and then into memory. Each version is rendered once
+ * however many downloads and pre-renders ask for it at the same time; the others wait for that render's bytes.
+ */
+@Component
+@Slf4j
+public class PdfBillCache {
+
+    private static final String FILE_SUFFIX = ".pdf";
+
+    private final BillPdfRenderer renderer;
+    private final Cache<String, byte[]> memory;
+    private final Path directory; // null when the disk tier is disabled
+    private final long diskMaxBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final Map<String, CompletableFuture<byte[]>> rendering = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PdfBillCache(BillPdfRenderer renderer,
+                        @Value("${app.bills.pdf-cache.memory-max-bytes:33554432}") long memoryMaxBytes,
+                        @Value("${app.bills.pdf-cache.dir:}") String directory,
+                        @Value("${app.bills.pdf-cache.disk-max-bytes:536870912}") long diskMaxBytes) {
+        this(renderer, memoryMaxBytes,
+                directory.isBlank() ? Path.of(System.getProperty("java.io.tmpdir"), "zaikabox-bills") : Path.of(directory),
+                diskMaxBytes);
+    }
+
+    PdfBillCache(BillPdfRenderer renderer, long memoryMaxBytes, Path directory, long diskMaxBytes) {
+        this.renderer = renderer;
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(memoryMaxBytes)
+                .weigher((String key, byte[] pdf) -> pdf.length)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+        this.diskMaxBytes = diskMaxBytes;
+        this.directory = diskMaxBytes > 0 ? prepareDirectory(directory) : null;
+    }
+
+    /**
+     * Get the rendered bill of an order, rendering it at most once per order version
+     * @param order The order
+     * @return Byte array containing the PDF data
+     */
+    public byte[] get(OrderEntity order) {
+        return memory.get(key(order), key -> loadOrRender(key, order));
+    }
+
+    /**
+     * Write the bill of an order to a stream: from memory or disk when cached, otherwise rendered into the stream
+     * while it is copied to disk. Concurrent requests for the same uncached bill share one render.
+     * @param order The order
+     * @param outputStream Where the PDF is written; it is not closed
+     */
+    public void writeTo(OrderEntity order, OutputStream outputStream) throws IOException {
+        String key = key(order);
+        byte[] cached = memory.getIfPresent(key);
+        if (cached != null) {
+            outputStream.write(cached);
+            return;
+        }
+
+        if (directory != null) {
+            Path file = directory.resolve(fileName(key));
+            try {
+                Files.copy(file, outputStream);
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                return;
+            } catch (NoSuchFileException e) {
+                // Not on disk yet; nothing has been written
+            }
+        }
+
+        memory.put(key, render(key, order, outputStream));
+    }
+
+    /**
+     * Render the bill of an order ahead of its first download
+     * @param order The order
+     */
+    @Async
+    public void prewarm(OrderEntity order) {
+        try {
+            get(order);
+        } catch (RuntimeException e) {
+            log.warn("Failed to pre-render bill for order {}: {}", order.getOrderId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Weak ETag of the bill of an order; it changes whenever the order does
+     * @param order The order
+     * @return The ETag, quoted
+     */
+    public String etag(OrderEntity order) {
+        return "W/\"" + key(order) + "\"";
+    }
+
+    static String key(OrderEntity order) {
+        long version = order.getLastModified() != null ? order.getLastModified().toEpochMilli() : 0L;
+        return order.getOrderId() + "-" + order.getStatus() + "-" + version;
+    }
+
+    private byte[] loadOrRender(String key, OrderEntity order) {
+        if (directory != null) {
+            byte[] stored = readStored(key);
+            if (stored != null) {
+                return stored;
+            }
+        }
+        try {
+            return render(key, order, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Render a bill version once however many callers ask for it at the same time. The first caller renders, streaming
+     * into its response if it has one, and the others wait for its bytes.
+     * @param response Where the first caller's download goes, or null to only render
+     */
+    private byte[] render(String key, OrderEntity order, OutputStream response) throws IOException {
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = rendering.putIfAbsent(key, mine);
+        if (running != null) {
+            byte[] pdf = await(running);
+            if (response != null) {
+                response.write(pdf);
+            }
+            return pdf;
+        }
+
+        byte[] pdf;
+        RenderOutputStream out = response != null ? new RenderOutputStream(response) : null;
+        try {
+            // A render that finished between the caller's miss and this one starting is already on disk
+            byte[] stored = directory != null ? readStored(key) : null;
+            if (stored != null) {
+                pdf = stored;
+                if (out != null) {
+                    out.write(stored);
+                }
+            } else if (out != null) {
+                pdf = renderStreaming(key, order, out);
+            } else {
+                pdf = renderer.render(order);
+                if (directory != null) {
+                    store(directory.resolve(fileName(key)), pdf);
+                }
+            }
+            mine.complete(pdf);
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(key, mine);
+        }
+
+        if (out != null) {
+            // Only now, so a client that went away mid-download still leaves a finished bill for everyone else
+            out.throwIfResponseFailed();
+        }
+        return pdf;
+    }
+
+    private byte[] renderStreaming(String key, OrderEntity order, RenderOutputStream out) throws IOException {
+        if (directory == null) {
+            renderer.render(order, out);
+            return out.toByteArray();
+        }
+
+        Path temp = Files.createTempFile(directory, "bill-", ".tmp");
+        try {
+            out.copyTo(Files.newOutputStream(temp));
+            renderer.render(order, out);
+            out.closeCopy();
+            if (out.isCopyComplete()) {
+                moveIntoPlace(temp, directory.resolve(fileName(key)), out.size());
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] readStored(String key) {
+        Path file = directory.resolve(fileName(key));
+        try {
+            byte[] stored = Files.readAllBytes(file);
+            // Reads refresh the modification time so pruning drops the least recently used bills first
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return stored;
+        } catch (IOException e) {
+            return null; // Not on disk yet
+        }
+    }
+
+    private void store(Path file, byte[] pdf) {
+        try {
+            Path temp = Files.createTempFile(directory, "bill-", ".tmp");
+            try {
+                Files.write(temp, pdf);
+                moveIntoPlace(temp, file, pdf.length);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store rendered bill {}: {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    private void moveIntoPlace(Path temp, Path file, long length) throws IOException {
+        // Replacing a file, e.g. one left by another replica sharing the directory, must not count its bytes twice
+        long replaced = size(file);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (diskBytes.addAndGet(length - replaced) > diskMaxBytes) {
+            prune();
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> running) throws IOException {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // Same failure as the render being waited on
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Delete the least recently used bills until the directory is back under 90% of its limit.
+     */
+    private synchronized void prune() {
+        if (diskBytes.get() <= diskMaxBytes) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> oldestFirst = files
+                    .filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .sorted(Comparator.comparing(PdfBillCache::lastModified))
+                    .toList();
+            long target = diskMaxBytes * 9 / 10;
+            for (Path path : oldestFirst) {
+                if (diskBytes.get() <= target) {
+                    break;
+                }
+                long size = Files.size(path);
+                if (Files.deleteIfExists(path)) {
+                    diskBytes.addAndGet(-size);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to prune bill cache directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private Path prepareDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                diskBytes.set(files
+                        .filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                        .mapToLong(PdfBillCache::size)
+                        .sum());
+            }
+            return directory;
+        } catch (IOException e) {
+            log.warn("Bill cache directory {} is not usable, keeping bills in memory only: {}", directory, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest) + FILE_SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Passes a render through to the response while keeping the bytes and, once {@link #copyTo} is called, a copy on
+     * disk. A failing copy is abandoned; a failing response is stopped and reported once the render is finished, so
+     * the bill is still cached. The caller owns, and closes, the response stream.
+     */
+    private static final class RenderOutputStream extends OutputStream {
+
+        private final OutputStream response;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private OutputStream copy;
+        private IOException responseFailure;
+        private boolean copyFailed;
+        private boolean copyClosed;
+
+        RenderOutputStream(OutputStream response) {
+            this.response = response;
+        }
+
+        void copyTo(OutputStream copy) {
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes.write(b, off, len);
+            if (responseFailure == null) {
+                try {
+                    response.write(b, off, len);
+                } catch (IOException e) {
+                    responseFailure = e;
+                }
+            }
+            if (copy != null && !copyFailed) {
+                try {
+                    copy.write(b, off, len);
+                } catch (IOException e) {
+                    copyFailed = true;
+                }
+            }
+        }
+
+        void closeCopy() {
+            if (copy == null || copyClosed) {
+                return;
+            }
+            copyClosed = true;
+            try {
+                copy.close();
+            } catch (IOException e) {
+                copyFailed = true;
+            }
+        }
+
+        boolean isCopyComplete() {
+            return copyClosed && !copyFailed;
+        }
+
+        long size() {
+            return bytes.size();
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+
+        void throwIfResponseFailed() throws IOException {
+            if (responseFailure != null) {
+                throw responseFailure;
+            }
+        }
+
+        @Override
+        public void close() {
+            closeCopy();
+            if (responseFailure == null) {
+                try {
+                    response.flush();
+                } catch (IOException e) {
+                    responseFailure = e;
+                }
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
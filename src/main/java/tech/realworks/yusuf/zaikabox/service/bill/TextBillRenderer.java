@@ -0,0 +1,298 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import org.springframework.stereotype.Component;
+import tech.realworks.yusuf.zaikabox.entity.BillingDetails;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.OrderItemEntity;
+
+import java.text.DecimalFormatSymbols;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Renders the plain text bill of an order, as printed on the kitchen's receipt printers.
+ * <p>
+ * The layout is a fixed-width template: static lines are built once, and each row is appended field by field into a
+ * per-thread buffer and padded to its column width. The output is the same as formatting every row with
+ * {@code String.format} in the default locale, which is how bills used to be rendered, without parsing a format string,
+ * boxing every number or allocating per line.
+ */
+@Component
+public class TextBillRenderer {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+
+    private static final String RULE = "===========================================\n";
+    private static final String TITLE = RULE + "            ZaikaBox - Order Bill          \n" + RULE + "\n";
+    private static final String FOOTER = RULE + "          Thank you for your order!        \n" + RULE;
+    private static final String TABLE_RULE = "-------------------------------------------------------------------\n";
+    private static final String ITEM_HEADER =
+            String.format("%-5s %-30s %-8s %-12s %-12s\n", "No.", "Item", "Qty", "Unit Price", "Total") + TABLE_RULE;
+
+    // Column widths of the item rows and the totals
+    private static final int NUMBER_WIDTH = 5;
+    private static final int NAME_WIDTH = 30;
+    private static final int QUANTITY_WIDTH = 8;
+    private static final int AMOUNT_WIDTH = 11;
+    private static final int TOTAL_LABEL_WIDTH = 47;
+
+    // Largest buffer kept between renders; one outsized bill should not pin its buffer forever
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private volatile NumberSymbols symbols = NumberSymbols.of(Locale.getDefault(Locale.Category.FORMAT));
+
+    /**
+     * Render the text bill of an order
+     * @param order The order
+     * @return The text bill
+     */
+    public String render(OrderEntity order) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        renderTo(order, buffer);
+        String bill = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return bill;
+    }
+
+    /**
+     * Append the text bill of an order to a buffer
+     * @param order The order
+     * @param out The buffer to append to
+     */
+    public void renderTo(OrderEntity order, StringBuilder out) {
+        NumberSymbols symbols = currentSymbols();
+
+        out.append(TITLE);
+
+        out.append("Order ID: ").append(order.getOrderId()).append('\n');
+        out.append("Order Date: ");
+        DATE_FORMATTER.formatTo(order.getOrderDate(), out);
+        out.append('\n');
+        out.append("Payment Mode: ").append(order.getPaymentMode()).append('\n');
+        out.append("Status: ").append(order.getStatus()).append("\n\n");
+
+        BillingDetails billingDetails = order.getBillingDetails();
+        if (billingDetails != null) {
+            out.append("Billing Details:\n");
+            if (billingDetails.getFirstName() != null && billingDetails.getLastName() != null) {
+                out.append("Name: ").append(billingDetails.getFirstName()).append(' ').append(billingDetails.getLastName()).append('\n');
+            }
+            if (billingDetails.getEmail() != null) {
+                out.append("Email: ").append(billingDetails.getEmail()).append('\n');
+            }
+            if (billingDetails.getAddress() != null) {
+                out.append("Address: ").append(billingDetails.getAddress()).append('\n');
+            }
+            if (billingDetails.getLocality() != null) {
+                out.append("Locality: ").append(billingDetails.getLocality()).append('\n');
+            }
+            if (billingDetails.getLandmark() != null) {
+                out.append("Landmark: ").append(billingDetails.getLandmark()).append('\n');
+            }
+            if (billingDetails.getZip() != null) {
+                out.append("ZIP: ").append(billingDetails.getZip()).append('\n');
+            }
+            if (billingDetails.getState() != null && billingDetails.getCountry() != null) {
+                out.append("Location: ").append(billingDetails.getState()).append(", ").append(billingDetails.getCountry()).append('\n');
+            }
+            out.append('\n');
+        }
+
+        out.append(ITEM_HEADER);
+        List<OrderItemEntity> items = order.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            OrderItemEntity item = items.get(i);
+            int start = out.length();
+            symbols.appendInt(out, i + 1);
+            pad(out, start, NUMBER_WIDTH);
+            out.append(' ');
+
+            start = out.length();
+            appendTruncated(out, item.getName(), NAME_WIDTH);
+            pad(out, start, NAME_WIDTH);
+            out.append(' ');
+
+            start = out.length();
+            symbols.appendInt(out, item.getQuantity());
+            pad(out, start, QUANTITY_WIDTH);
+            out.append(" ₹");
+
+            start = out.length();
+            symbols.appendAmount(out, item.getUnitPrice());
+            pad(out, start, AMOUNT_WIDTH);
+            out.append(" ₹");
+
+            start = out.length();
+            symbols.appendAmount(out, item.getTotal());
+            pad(out, start, AMOUNT_WIDTH);
+            out.append('\n');
+        }
+        out.append(TABLE_RULE).append('\n');
+
+        int start = out.length();
+        out.append("Subtotal:");
+        appendTotal(out, start, symbols, order.getSubTotal());
+        start = out.length();
+        out.append("GST (").append(order.getGstRate()).append("%):");
+        appendTotal(out, start, symbols, order.getGstAmount());
+        start = out.length();
+        out.append("Total:");
+        appendTotal(out, start, symbols, order.getTotalAmountWithGST());
+        out.append('\n');
+
+        out.append(FOOTER);
+    }
+
+    /**
+     * Pad the label that starts at {@code start} and append the amount of a totals line
+     */
+    private static void appendTotal(StringBuilder out, int start, NumberSymbols symbols, double amount) {
+        pad(out, start, TOTAL_LABEL_WIDTH);
+        out.append(" ₹");
+        symbols.appendAmount(out, amount);
+        out.append('\n');
+    }
+
+    /**
+     * Append a string cut to the given length, ending in "..." when it had to be cut
+     */
+    private static void appendTruncated(StringBuilder out, String str, int maxLength) {
+        if (str.length() <= maxLength) {
+            out.append(str);
+        } else {
+            out.append(str, 0, maxLength - 3).append("...");
+        }
+    }
+
+    /**
+     * Left-justify the field that starts at {@code start} by padding it with spaces up to {@code width}
+     */
+    private static void pad(StringBuilder out, int start, int width) {
+        for (int length = out.length() - start; length < width; length++) {
+            out.append(' ');
+        }
+    }
+
+    private NumberSymbols currentSymbols() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        NumberSymbols current = symbols;
+        if (!current.locale.equals(locale)) {
+            current = NumberSymbols.of(locale);
+            symbols = current;
+        }
+        return current;
+    }
+
+    /**
+     * Writes numbers the way {@link java.util.Formatter} does for {@code %d} and {@code %.2f} in one locale.
+     */
+    static final class NumberSymbols {
+
+        // Beyond this the value * 100 check below loses precision
+        private static final double MAX_EXACT_AMOUNT = 1e13;
+
+        private final Locale locale;
+        private final char decimalSeparator;
+        private final char zeroDigit;
+
+        private NumberSymbols(Locale locale, char decimalSeparator, char zeroDigit) {
+            this.locale = locale;
+            this.decimalSeparator = decimalSeparator;
+            this.zeroDigit = zeroDigit;
+        }
+
+        static NumberSymbols of(Locale locale) {
+            if (Locale.US.equals(locale)) {
+                return new NumberSymbols(locale, '.', '0');
+            }
+            DecimalFormatSymbols dfs = DecimalFormatSymbols.getInstance(locale);
+            return new NumberSymbols(locale, dfs.getDecimalSeparator(), dfs.getZeroDigit());
+        }
+
+        void appendInt(StringBuilder out, int value) {
+            int start = out.length();
+            out.append(value);
+            localizeDigits(out, start);
+        }
+
+        /**
+         * Append an amount rounded half up to two decimals, like {@code %.2f}
+         */
+        void appendAmount(StringBuilder out, double value) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                out.append(String.format(locale, "%.2f", value));
+                return;
+            }
+            boolean negative = Double.compare(value, 0.0) < 0;
+            double magnitude = Math.abs(value);
+
+            long paise = -1;
+            if (magnitude < MAX_EXACT_AMOUNT) {
+                long rounded = Math.round(magnitude * 100);
+                if (rounded / 100.0 == magnitude) {
+                    // Prices and most totals are a whole number of paise; no rounding involved
+                    paise = rounded;
+                }
+            }
+            if (paise < 0) {
+                paise = roundHalfUp(magnitude);
+            }
+            if (paise < 0) {
+                out.append(String.format(locale, "%.2f", value));
+                return;
+            }
+
+            int start = out.length();
+            if (negative) {
+                out.append('-');
+            }
+            out.append(paise / 100).append(decimalSeparator);
+            int fraction = (int) (paise % 100);
+            if (fraction < 10) {
+                out.append('0');
+            }
+            out.append(fraction);
+            localizeDigits(out, start);
+        }
+
+        /**
+         * Round to paise the way Formatter does: half up on the shortest decimal digits of the value rather than on
+         * its exact binary value, so 1.005 becomes 1.01
+         * @return The amount in paise, or -1 if the value prints in scientific notation
+         */
+        private static long roundHalfUp(double magnitude) {
+            String digits = Double.toString(magnitude);
+            int dot = digits.indexOf('.');
+            if (dot < 0 || digits.indexOf('E') >= 0) {
+                return -1;
+            }
+            long paise = Long.parseLong(digits, 0, dot, 10);
+            for (int i = 1; i <= 2; i++) {
+                int index = dot + i;
+                paise = paise * 10 + (index < digits.length() ? digits.charAt(index) - '0' : 0);
+            }
+            if (dot + 3 < digits.length() && digits.charAt(dot + 3) >= '5') {
+                paise++;
+            }
+            return paise;
+        }
+
+        private void localizeDigits(StringBuilder out, int start) {
+            if (zeroDigit == '0') {
+                return;
+            }
+            for (int i = start; i < out.length(); i++) {
+                char c = out.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    out.setCharAt(i, (char) (zeroDigit + (c - '0')));
+                }
+            }
+        }
+    }
+}
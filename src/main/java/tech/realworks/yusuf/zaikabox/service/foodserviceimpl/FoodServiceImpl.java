@@ -17,7 +17,6 @@ import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +24,7 @@ public class FoodServiceImpl implements FoodService {
 
     private final ObjectProvider<BlobContainerClient> blobContainerClientProvider;
     private final FoodRepository foodRepository;
+    private final MenuSnapshotService menuSnapshotService;
     private final AtomicBoolean containerEnsured = new AtomicBoolean(false);
 
     private BlobContainerClient getBlobContainerClient() {
@@ -76,13 +76,18 @@ public class FoodServiceImpl implements FoodService {
         String imageUrl = this.uploadFile(file);
         newFoodEntity.setImageUrl(imageUrl);
         newFoodEntity = foodRepository.save(newFoodEntity);
+        menuSnapshotService.refreshAfterChange();
         return this.convertToResponse(newFoodEntity);
     }
 
     @Override
     public List<FoodResponse> readFoods() {
-        List<FoodEntity> databaseEntities = foodRepository.findAll();
-        return databaseEntities.stream().map(this::convertToResponse).collect(Collectors.toList());
+        return menuSnapshotService.current().getFoods();
+    }
+
+    @Override
+    public MenuSnapshot getMenuSnapshot() {
+        return menuSnapshotService.current();
     }
 
     @Override
@@ -116,6 +121,7 @@ public class FoodServiceImpl implements FoodService {
         boolean isFileDeleted = deleteFile(fileName);
         if (isFileDeleted) {
             foodRepository.deleteById(response.getId());
+            menuSnapshotService.refreshAfterChange();
         }
 
     }
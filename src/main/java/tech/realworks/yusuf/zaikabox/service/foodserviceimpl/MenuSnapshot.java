@@ -0,0 +1,30 @@
+package tech.realworks.yusuf.zaikabox.service.foodserviceimpl;
+
+import lombok.Value;
+import tech.realworks.yusuf.zaikabox.io.FoodResponse;
+import tech.realworks.yusuf.zaikabox.util.ETags;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable, pre-serialized view of the whole menu.
+ * Holds the JSON body both plain and gzip-compressed so GET /api/v1/foods never touches MongoDB or Jackson.
+ */
+@Value
+public class MenuSnapshot {
+    String etag; // Weak ETag derived from the JSON content, stable across replicas and restarts
+    List<FoodResponse> foods;
+    byte[] json;
+    byte[] gzipJson;
+    Instant builtAt;
+
+    /**
+     * Check an If-None-Match header value against this snapshot
+     * @param ifNoneMatch The raw header value, possibly a comma separated list
+     * @return true if the client already holds this version of the menu
+     */
+    public boolean matches(String ifNoneMatch) {
+        return ETags.matches(etag, ifNoneMatch);
+    }
+}
@@ -0,0 +1,149 @@
+package tech.realworks.yusuf.zaikabox.service.foodserviceimpl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.entity.FoodEntity;
+import tech.realworks.yusuf.zaikabox.io.FoodResponse;
+import tech.realworks.yusuf.zaikabox.repository.FoodRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the current {@link MenuSnapshot} in memory.
+ * The snapshot is rebuilt atomically whenever the menu is changed through this node, and refreshed
+ * after {@code app.menu.snapshot.max-age-seconds} so changes made through other replicas show up too.
+ * A rebuild that fails after a change is retried by the next read instead of failing the change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MenuSnapshotService {
+
+    private final FoodRepository foodRepository;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private volatile MenuSnapshot snapshot;
+    private volatile boolean changed; // A change was saved but the snapshot could not be rebuilt for it yet
+
+    @Value("${app.menu.snapshot.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    /**
+     * Get the current menu snapshot, building it on first use
+     * @return The current snapshot
+     */
+    public MenuSnapshot current() {
+        MenuSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = build();
+                }
+                return snapshot;
+            }
+        }
+
+        if ((changed || isStale(current)) && refreshing.compareAndSet(false, true)) {
+            // Only one request pays for the refresh, everyone else keeps serving the previous snapshot
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("Menu snapshot refresh failed, serving etag {}: {}", current.getEtag(), e.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+            return snapshot;
+        }
+        return current;
+    }
+
+    /**
+     * Rebuild the snapshot from the database and publish it atomically
+     * @return The new snapshot
+     */
+    public synchronized MenuSnapshot rebuild() {
+        snapshot = build();
+        changed = false;
+        log.info("Menu snapshot rebuilt items={} etag={}", snapshot.getFoods().size(), snapshot.getEtag());
+        return snapshot;
+    }
+
+    /**
+     * Rebuild the snapshot after a menu change was saved. A failure is logged rather than thrown, since the change
+     * itself succeeded; the snapshot is marked out of date so the next read rebuilds it.
+     */
+    public void refreshAfterChange() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            changed = true;
+            log.warn("Menu snapshot rebuild after a change failed, will retry on the next read: {}", e.getMessage());
+        }
+    }
+
+    private boolean isStale(MenuSnapshot current) {
+        return current.getBuiltAt().plus(Duration.ofSeconds(maxAgeSeconds)).isBefore(Instant.now());
+    }
+
+    private MenuSnapshot build() {
+        List<FoodEntity> entities = foodRepository.findAll();
+        List<FoodResponse> foods = new ArrayList<>(entities.size());
+        for (FoodEntity entity : entities) {
+            foods.add(FoodResponse.builder()
+                    .id(entity.getId())
+                    .name(entity.getName())
+                    .description(entity.getDescription())
+                    .price(entity.getPrice())
+                    .category(entity.getCategory())
+                    .imageUrl(entity.getImageUrl())
+                    .build());
+        }
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(foods);
+            return new MenuSnapshot(
+                    "W/\"" + contentHash(json) + "\"",
+                    Collections.unmodifiableList(foods),
+                    json,
+                    gzip(json),
+                    Instant.now());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize menu snapshot", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(content);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to compress menu snapshot", e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static String contentHash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
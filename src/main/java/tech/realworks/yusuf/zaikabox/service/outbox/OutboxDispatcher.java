@@ -0,0 +1,261 @@
+package tech.realworks.yusuf.zaikabox.service.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.OutboxEventEntity;
+import tech.realworks.yusuf.zaikabox.entity.OutboxEventEntity.State;
+import tech.realworks.yusuf.zaikabox.entity.Status;
+import tech.realworks.yusuf.zaikabox.event.OrderLifecycleEvent;
+import tech.realworks.yusuf.zaikabox.service.CartService;
+import tech.realworks.yusuf.zaikabox.util.OrderNotificationPublisher;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Carries out the side effects recorded in the outbox.
+ * <p>
+ * Due events are claimed in batches with a lease, their orders are loaded in one query, and the events of each order
+ * are dispatched oldest first; an order whose earlier event is still pending, or whose event failed in this batch,
+ * waits for it. Delivery is at least once: an event is marked dispatched only after its handlers ran, and a failed
+ * event, or one whose dispatcher died, is tried again, so handlers must tolerate repeats.
+ */
+@Service
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+    // Batches drained per poll before yielding to the next one
+    private static final int MAX_BATCHES_PER_POLL = 10;
+
+    private final MongoTemplate mongoTemplate;
+    private final CartService cartService;
+    private final OrderNotificationPublisher orderNotificationPublisher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final Duration retryBackoff;
+    private final Duration lease;
+
+    public OutboxDispatcher(MongoTemplate mongoTemplate,
+                            CartService cartService,
+                            OrderNotificationPublisher orderNotificationPublisher,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.outbox.batch-size:100}") int batchSize,
+                            @Value("${app.outbox.retry-backoff-ms:1000}") long retryBackoffMs,
+                            @Value("${app.outbox.lease-seconds:30}") long leaseSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.cartService = cartService;
+        this.orderNotificationPublisher = orderNotificationPublisher;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    /**
+     * Dispatch due events until the outbox is drained or the poll has had its share of batches
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void dispatchDueEvents() {
+        for (int i = 0; i < MAX_BATCHES_PER_POLL; i++) {
+            if (dispatchBatch() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claim one batch of due events and dispatch it
+     * @return The number of events claimed
+     */
+    int dispatchBatch() {
+        Instant now = Instant.now();
+        Query dueQuery = Query.query(due(now))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"))
+                .limit(batchSize);
+        dueQuery.fields().include("_id");
+        List<String> dueIds = mongoTemplate.find(dueQuery, OutboxEventEntity.class).stream()
+                .map(OutboxEventEntity::getId)
+                .toList();
+        if (dueIds.isEmpty()) {
+            return 0;
+        }
+
+        // Another dispatcher may claim some of the same events; each event goes to whoever updates it first
+        String token = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(dueIds).andOperator(due(now))),
+                new Update()
+                        .set("status", State.DISPATCHING)
+                        .set("lockedUntil", now.plus(lease))
+                        .set("claimToken", token)
+                        .inc("attempts", 1),
+                OutboxEventEntity.class);
+        List<OutboxEventEntity> claimed = mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(dueIds).and("claimToken").is(token))
+                        .with(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("id"))),
+                OutboxEventEntity.class);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<OutboxEventEntity>> byOrder = new LinkedHashMap<>();
+        for (OutboxEventEntity event : claimed) {
+            byOrder.computeIfAbsent(event.getOrderId(), orderId -> new ArrayList<>()).add(event);
+        }
+        Set<String> blocked = ordersWithEarlierEvents(byOrder, token);
+        Map<String, OrderEntity> orders = loadOrders(byOrder.keySet());
+
+        List<String> dispatched = new ArrayList<>();
+        List<OutboxEventEntity> held = new ArrayList<>();
+        for (Map.Entry<String, List<OutboxEventEntity>> entry : byOrder.entrySet()) {
+            if (blocked.contains(entry.getKey())) {
+                held.addAll(entry.getValue());
+                continue;
+            }
+            boolean failed = false;
+            for (OutboxEventEntity event : entry.getValue()) {
+                if (failed) {
+                    held.add(event);
+                } else if (dispatch(event, orders.get(event.getOrderId()))) {
+                    dispatched.add(event.getId());
+                } else {
+                    failed = true;
+                }
+            }
+        }
+
+        if (!dispatched.isEmpty()) {
+            mongoTemplate.updateMulti(owned(dispatched, token), new Update()
+                    .set("status", State.DISPATCHED)
+                    .set("dispatchedAt", Instant.now())
+                    .unset("lockedUntil")
+                    .unset("claimToken")
+                    .unset("lastError"), OutboxEventEntity.class);
+        }
+        if (!held.isEmpty()) {
+            // Not attempted; hand them back without spending an attempt
+            mongoTemplate.updateMulti(owned(held.stream().map(OutboxEventEntity::getId).toList(), token), new Update()
+                    .set("status", State.PENDING)
+                    .unset("lockedUntil")
+                    .unset("claimToken")
+                    .inc("attempts", -1), OutboxEventEntity.class);
+        }
+        return claimed.size();
+    }
+
+    /**
+     * Run the handlers of one event, or schedule it for a retry if they fail
+     * @return Whether the event was dispatched
+     */
+    private boolean dispatch(OutboxEventEntity event, OrderEntity order) {
+        try {
+            switch (event.getType()) {
+                case ORDER_PAID -> orderPaid(event, order);
+            }
+            count(event, "dispatched");
+            return true;
+        } catch (RuntimeException e) {
+            String reason = e.getClass().getSimpleName() + ": " + e.getMessage();
+            Instant nextAttemptAt = Instant.now().plus(backoff(event.getAttempts()));
+            mongoTemplate.updateFirst(owned(List.of(event.getId()), event.getClaimToken()), new Update()
+                    .set("status", State.PENDING)
+                    .set("nextAttemptAt", nextAttemptAt)
+                    .set("lastError", reason)
+                    .unset("lockedUntil")
+                    .unset("claimToken"), OutboxEventEntity.class);
+            count(event, "retried");
+            log.warn("Outbox event {} failed attempt {}, retrying at {}: {}",
+                    event.getId(), event.getAttempts(), nextAttemptAt, reason);
+            return false;
+        }
+    }
+
+    private void orderPaid(OutboxEventEntity event, OrderEntity order) {
+        if (order == null) {
+            throw new NoSuchElementException("Order not found: " + event.getOrderId());
+        }
+        if (event.isClearCart()) {
+            cartService.clearCart(event.getCustomerId());
+        }
+        eventPublisher.publishEvent(OrderLifecycleEvent.builder()
+                .orderId(order.getOrderId())
+                .customerId(order.getCustomerId())
+                .status(Status.PAID.name())
+                .change(OrderLifecycleEvent.OrderChange.CREATED)
+                .source("payment_verified")
+                .occurredAt(LocalDateTime.ofInstant(event.getCreatedAt(), ZoneId.systemDefault()))
+                .build());
+        orderNotificationPublisher.notifyAdminNewOrder(order);
+        orderNotificationPublisher.notifyUserOrderUpdate(order);
+    }
+
+    Duration backoff(int attempts) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(Math.max(attempts - 1, 0), 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    /**
+     * Orders in the batch that still have an older event outside it, which has to go first
+     */
+    private Set<String> ordersWithEarlierEvents(Map<String, List<OutboxEventEntity>> byOrder, String token) {
+        Query query = Query.query(Criteria.where("orderId").in(byOrder.keySet())
+                .and("status").ne(State.DISPATCHED)
+                .and("claimToken").ne(token));
+        query.fields().include("orderId", "createdAt");
+        Set<String> blocked = new HashSet<>();
+        for (OutboxEventEntity other : mongoTemplate.find(query, OutboxEventEntity.class)) {
+            Instant oldestClaimed = byOrder.get(other.getOrderId()).get(0).getCreatedAt();
+            if (other.getCreatedAt().isBefore(oldestClaimed)) {
+                blocked.add(other.getOrderId());
+            }
+        }
+        return blocked;
+    }
+
+    private Map<String, OrderEntity> loadOrders(Set<String> orderIds) {
+        Map<String, OrderEntity> orders = new HashMap<>();
+        for (OrderEntity order : mongoTemplate.find(Query.query(Criteria.where("orderId").in(orderIds)), OrderEntity.class)) {
+            orders.put(order.getOrderId(), order);
+        }
+        return orders;
+    }
+
+    private static Query owned(List<String> ids, String token) {
+        // Only the batch holding the lease records an outcome
+        return Query.query(Criteria.where("_id").in(ids).and("claimToken").is(token));
+    }
+
+    private static Criteria due(Instant now) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is(State.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(State.DISPATCHING).and("lockedUntil").lt(now));
+    }
+
+    private void count(OutboxEventEntity event, String outcome) {
+        meterRegistry.counter("zaikabox.outbox.events", "type", event.getType().name(), "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,53 @@
+package tech.realworks.yusuf.zaikabox.service.outbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.OutboxEventEntity;
+import tech.realworks.yusuf.zaikabox.entity.OutboxEventEntity.State;
+import tech.realworks.yusuf.zaikabox.entity.OutboxEventEntity.Type;
+
+import java.time.Instant;
+
+/**
+ * Records the side effects of an order change in the outbox, to be carried out by {@link OutboxDispatcher}.
+ * <p>
+ * Events are written right after the order they belong to. There are no multi-document transactions here, so
+ * writing an event is idempotent instead: whoever finishes an order that was saved without its events (a payment
+ * claim taken over after a crash) writes them again, and the copy that is already there wins.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Record the side effects of a paid order
+     * @param order The order, already saved
+     * @param clearCart Whether the customer's cart should be cleared
+     */
+    public void orderPaid(OrderEntity order, boolean clearCart) {
+        Instant now = Instant.now();
+        OutboxEventEntity event = OutboxEventEntity.builder()
+                .id(order.getOrderId() + ":" + Type.ORDER_PAID)
+                .orderId(order.getOrderId())
+                .type(Type.ORDER_PAID)
+                .customerId(order.getCustomerId())
+                .clearCart(clearCart)
+                .status(State.PENDING)
+                .attempts(0)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build();
+        try {
+            mongoTemplate.insert(event);
+        } catch (DuplicateKeyException e) {
+            log.debug("Outbox event {} already recorded", event.getId());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process stand-in for Razorpay, so the whole order flow can be load-tested without network access or API quota.
+ * <p>
+ * Orders are created locally after a configurable delay that mimics the API's latency, and every fake order reads
+ * as paid. Payments are verified against the configured Razorpay secret as usual, so a load test signs
+ * {@code <order id>|<payment id>} with that secret. Never enable this in production.
+ */
+@Component(PaymentGateway.BACKEND)
+@ConditionalOnProperty(value = "app.payments.gateway.backend", havingValue = "fake")
+public class FakePaymentGateway implements PaymentGateway {
+
+    static final String ORDER_PREFIX = "order_fake_";
+    static final String PAYMENT_PREFIX = "pay_fake_";
+
+    private final long latencyNanos;
+
+    public FakePaymentGateway(@Value("${app.payments.fake.latency-ms:50}") long latencyMs) {
+        this.latencyNanos = latencyMs * 1_000_000;
+    }
+
+    @Override
+    public GatewayOrder createOrder(long amountPaise, String currency, String receipt) {
+        if (amountPaise <= 0) {
+            throw new IllegalArgumentException("Order amount must be positive");
+        }
+        simulateLatency();
+        String id = UUID.randomUUID().toString().replace("-", "").substring(0, 14);
+        return GatewayOrder.builder()
+                .id(ORDER_PREFIX + id)
+                .status("created")
+                .build();
+    }
+
+    @Override
+    public GatewayOrder fetchOrder(String razorpayOrderId) {
+        simulateLatency();
+        String id = razorpayOrderId.startsWith(ORDER_PREFIX) ? razorpayOrderId.substring(ORDER_PREFIX.length()) : razorpayOrderId;
+        return GatewayOrder.builder()
+                .id(razorpayOrderId)
+                .status("paid")
+                .capturedPaymentId(PAYMENT_PREFIX + id)
+                .build();
+    }
+
+    private void simulateLatency() {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+}
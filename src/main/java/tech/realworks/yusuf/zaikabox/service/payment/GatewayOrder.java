@@ -0,0 +1,19 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * An order as the payment provider sees it.
+ */
+@Value
+@Builder
+public class GatewayOrder {
+    String id;
+    String status; // created, attempted or paid
+    String capturedPaymentId; // ID of the captured payment, null until the order is paid
+
+    public boolean isPaid() {
+        return "paid".equals(status) && capturedPaymentId != null;
+    }
+}
@@ -0,0 +1,35 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+import com.razorpay.RazorpayException;
+
+/**
+ * The payment provider's order API, as used by billing.
+ * <p>
+ * Billing and the reconciliation sweeper use the {@link ResilientPaymentGateway}, which guards whichever backend
+ * {@code app.payments.gateway.backend} selects: the Razorpay API, or an in-process fake for offline load tests.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Bean name of the backend the resilient gateway wraps
+     */
+    String BACKEND = "paymentGatewayBackend";
+
+    /**
+     * Create an order at the payment provider for the customer to pay
+     * @param amountPaise Amount in paise
+     * @param currency Currency code (e.g., INR)
+     * @param receipt Our order ID, shown on the provider's dashboard
+     * @return The created order
+     * @throws RazorpayException if the order could not be created
+     */
+    GatewayOrder createOrder(long amountPaise, String currency, String receipt) throws RazorpayException;
+
+    /**
+     * Look up an order at the payment provider
+     * @param razorpayOrderId Razorpay order ID
+     * @return The order's status and its captured payment, if any
+     * @throws RazorpayException if the order could not be fetched
+     */
+    GatewayOrder fetchOrder(String razorpayOrderId) throws RazorpayException;
+}
@@ -0,0 +1,15 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+/**
+ * Thrown instead of calling the payment gateway when it is failing, saturated or too slow to answer in time.
+ * The call was not made, or its outcome is unknown; it is safe to retry later.
+ */
+public class PaymentGatewayUnavailableException extends RuntimeException {
+    public PaymentGatewayUnavailableException(String message) {
+        super(message);
+    }
+
+    public PaymentGatewayUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,191 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.entity.PaymentRequestEntity;
+import tech.realworks.yusuf.zaikabox.service.BillingService;
+import tech.realworks.yusuf.zaikabox.service.BillingServiceImpl;
+import tech.realworks.yusuf.zaikabox.service.IdempotencyConflictException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settles payment requests that neither the client's verify call nor a webhook completed.
+ * <p>
+ * Every sweep pages through stale requests, oldest first, on the (status, createdAt) index and asks the payment
+ * gateway about each one: paid orders are finalized the same way a verify call would, and requests that stay unpaid
+ * past the expiry window are marked EXPIRED, after which the TTL index removes them. A request is claimed by pushing
+ * its reconcileAfter forward before the gateway is called, so replicas sweeping at the same time split the work and
+ * an unpaid request is not asked about again until it is due.
+ * <p>
+ * Gateway calls are paced at a small fixed rate so a backlog of abandoned checkouts never eats into the API
+ * quota live payments need; a sweep that runs out of its time budget, or finds the gateway failing or saturated,
+ * stops and leaves the rest for the next one.
+ */
+@Service
+@Slf4j
+public class PaymentReconciliationService {
+
+    private final MongoTemplate mongoTemplate;
+    private final PaymentGateway paymentGateway;
+    private final BillingService billingService;
+    private final MeterRegistry meterRegistry;
+    private final RateLimiter gatewayRate;
+    private final int batchSize;
+    private final int maxPerSweep;
+    private final Duration staleAfter;
+    private final Duration expireAfter;
+    private final Duration recheckAfter;
+    private final Duration sweepBudget;
+
+    public PaymentReconciliationService(MongoTemplate mongoTemplate,
+                                        PaymentGateway paymentGateway,
+                                        BillingService billingService,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.payments.reconcile.gateway-calls-per-second:2}") double gatewayCallsPerSecond,
+                                        @Value("${app.payments.reconcile.batch-size:50}") int batchSize,
+                                        @Value("${app.payments.reconcile.max-per-sweep:200}") int maxPerSweep,
+                                        @Value("${app.payments.reconcile.stale-after-minutes:30}") long staleAfterMinutes,
+                                        @Value("${app.payments.reconcile.expire-after-hours:24}") long expireAfterHours,
+                                        @Value("${app.payments.reconcile.recheck-after-minutes:15}") long recheckAfterMinutes,
+                                        @Value("${app.payments.reconcile.sweep-budget-seconds:50}") long sweepBudgetSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.paymentGateway = paymentGateway;
+        this.billingService = billingService;
+        this.meterRegistry = meterRegistry;
+        this.gatewayRate = RateLimiter.create(gatewayCallsPerSecond);
+        this.batchSize = batchSize;
+        this.maxPerSweep = maxPerSweep;
+        this.staleAfter = Duration.ofMinutes(staleAfterMinutes);
+        this.expireAfter = Duration.ofHours(expireAfterHours);
+        this.recheckAfter = Duration.ofMinutes(recheckAfterMinutes);
+        this.sweepBudget = Duration.ofSeconds(sweepBudgetSeconds);
+    }
+
+    /**
+     * Reconcile stale payment requests until none are due, the sweep's share is used up or its time budget runs out.
+     * Gateway calls are paced at the configured rate within that budget rather than only spending stored permits.
+     * @return The number of requests checked with the gateway
+     */
+    @Scheduled(fixedDelayString = "${app.payments.reconcile.interval-ms:60000}",
+            initialDelayString = "${app.payments.reconcile.initial-delay-ms:60000}")
+    public int sweep() {
+        long deadline = System.nanoTime() + sweepBudget.toNanos();
+        int checked = 0;
+        while (checked < maxPerSweep) {
+            List<PaymentRequestEntity> page = dueRequests(Math.min(batchSize, maxPerSweep - checked));
+            for (PaymentRequestEntity request : page) {
+                // Waits for the next permit, unless it would only come after the budget is spent
+                if (!gatewayRate.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    log.debug("Payment reconciliation out of time budget after {} requests", checked);
+                    return checked;
+                }
+                PaymentRequestEntity claimed = claim(request);
+                if (claimed != null) {
+                    checked++;
+                    if (!reconcile(claimed)) {
+                        return checked;
+                    }
+                }
+            }
+            if (page.size() < batchSize) {
+                break;
+            }
+        }
+        if (checked > 0) {
+            log.info("Reconciled {} stale payment requests", checked);
+        }
+        return checked;
+    }
+
+    private List<PaymentRequestEntity> dueRequests(int limit) {
+        Instant now = Instant.now();
+        Query query = Query.query(due(now)).with(Sort.by(Sort.Direction.ASC, "createdAt")).limit(limit);
+        query.fields().include("_id", "razorpayOrderId", "status", "createdAt", "reconcileAfter");
+        return mongoTemplate.find(query, PaymentRequestEntity.class);
+    }
+
+    /**
+     * Push a request's reconcileAfter forward unless another sweeper or a payment got to it first
+     */
+    private PaymentRequestEntity claim(PaymentRequestEntity request) {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("_id").is(request.getId()).andOperator(due(now)));
+        return mongoTemplate.findAndModify(query, new Update().set("reconcileAfter", now.plus(recheckAfter)),
+                FindAndModifyOptions.options().returnNew(true), PaymentRequestEntity.class);
+    }
+
+    /**
+     * @return Whether the sweep should go on; it stops while the gateway is unavailable
+     */
+    private boolean reconcile(PaymentRequestEntity request) {
+        String razorpayOrderId = request.getRazorpayOrderId();
+        try {
+            GatewayOrder order = paymentGateway.fetchOrder(razorpayOrderId);
+            if (order.isPaid()) {
+                billingService.reconcilePayment(razorpayOrderId, order.getCapturedPaymentId());
+                count("paid");
+                log.info("Payment {} was paid but never completed; order {} created", razorpayOrderId, request.getOrderId());
+            } else if (request.getCreatedAt().isBefore(LocalDateTime.now().minus(expireAfter))) {
+                expire(request, order.getStatus());
+            } else {
+                count("unpaid");
+            }
+        } catch (IdempotencyConflictException e) {
+            count("busy"); // Being completed right now
+        } catch (PaymentGatewayUnavailableException e) {
+            // Leave the gateway to live payments until it recovers
+            count("gateway_unavailable");
+            log.info("Payment reconciliation paused: {}", e.getMessage());
+            return false;
+        } catch (Exception e) {
+            count("failed");
+            log.warn("Could not reconcile payment {}: {}", razorpayOrderId, e.getMessage());
+        }
+        return true;
+    }
+
+    private void expire(PaymentRequestEntity request, String gatewayStatus) {
+        // Only an untouched request; a payment that just started completing wins
+        Query pending = Query.query(Criteria.where("_id").is(request.getId()).and("status").is("PENDING"));
+        Instant now = Instant.now();
+        Update update = new Update().set("status", "EXPIRED").set("closedAt", now).unset("reconcileAfter");
+        if (mongoTemplate.updateFirst(pending, update, PaymentRequestEntity.class).getModifiedCount() > 0) {
+            count("expired");
+            log.info("Payment request {} expired unpaid (Razorpay status {})", request.getRazorpayOrderId(), gatewayStatus);
+        }
+    }
+
+    /**
+     * Stale requests that are due for a check: unpaid ones and ones whose payment claim was abandoned
+     */
+    private Criteria due(Instant now) {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+        return new Criteria().andOperator(
+                new Criteria().orOperator(
+                        Criteria.where("status").is("PENDING"),
+                        Criteria.where("status").is("PROCESSING").and("claimedAt").lt(now.minus(BillingServiceImpl.PAYMENT_CLAIM_LEASE))),
+                Criteria.where("createdAt").lt(staleBefore),
+                new Criteria().orOperator(
+                        Criteria.where("reconcileAfter").exists(false),
+                        Criteria.where("reconcileAfter").lte(now)));
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("zaikabox.payments.reconciled", "outcome", outcome).increment();
+    }
+}
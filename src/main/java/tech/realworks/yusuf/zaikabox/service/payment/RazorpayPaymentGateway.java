@@ -0,0 +1,56 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+import com.razorpay.Order;
+import com.razorpay.Payment;
+import com.razorpay.RazorpayClient;
+import com.razorpay.RazorpayException;
+import lombok.RequiredArgsConstructor;
+import org.json.JSONObject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link PaymentGateway} backed by the Razorpay API.
+ */
+@Component(PaymentGateway.BACKEND)
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "app.payments.gateway.backend", havingValue = "razorpay", matchIfMissing = true)
+public class RazorpayPaymentGateway implements PaymentGateway {
+
+    private final RazorpayClient client;
+
+    @Override
+    public GatewayOrder createOrder(long amountPaise, String currency, String receipt) throws RazorpayException {
+        JSONObject request = new JSONObject();
+        request.put("amount", amountPaise);
+        request.put("currency", currency);
+        request.put("receipt", receipt);
+
+        Order order = client.orders.create(request);
+        return GatewayOrder.builder()
+                .id(order.get("id"))
+                .status(order.get("status"))
+                .build();
+    }
+
+    @Override
+    public GatewayOrder fetchOrder(String razorpayOrderId) throws RazorpayException {
+        Order order = client.orders.fetch(razorpayOrderId);
+        String status = order.get("status");
+
+        String capturedPaymentId = null;
+        if ("paid".equals(status)) {
+            for (Payment payment : client.orders.fetchPayments(razorpayOrderId)) {
+                if ("captured".equals(payment.get("status"))) {
+                    capturedPaymentId = payment.get("id");
+                    break;
+                }
+            }
+        }
+        return GatewayOrder.builder()
+                .id(razorpayOrderId)
+                .status(status)
+                .capturedPaymentId(capturedPaymentId)
+                .build();
+    }
+}
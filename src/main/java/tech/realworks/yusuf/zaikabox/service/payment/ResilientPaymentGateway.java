@@ -0,0 +1,160 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+import com.razorpay.RazorpayException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Guards the payment gateway backend so a slow or failing provider cannot take request threads down with it.
+ * <p>
+ * Calls run on a dedicated pool of {@code max-concurrent-calls} threads with no queue, which is the bulkhead: when
+ * every thread is busy, including threads still stuck in calls that already timed out, further calls fail fast.
+ * Callers wait at most {@code timeout-ms} for an answer. Timeouts and errors other than rejected requests count
+ * towards the circuit breaker, which fails calls fast while the provider recovers. Every call is timed, with a
+ * percentile histogram per operation and outcome.
+ * <p>
+ * The Razorpay SDK builds its own HTTP client with fixed connect and read timeouts, so the timeout is enforced
+ * around the call rather than on the socket.
+ */
+@Service
+@Primary
+@Slf4j
+public class ResilientPaymentGateway implements PaymentGateway {
+
+    private final PaymentGateway backend;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final long timeoutMs;
+
+    public ResilientPaymentGateway(@Qualifier(PaymentGateway.BACKEND) PaymentGateway backend,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.payments.gateway.timeout-ms:5000}") long timeoutMs,
+                                   @Value("${app.payments.gateway.max-concurrent-calls:20}") int maxConcurrentCalls,
+                                   @Value("${app.payments.gateway.circuit.failure-threshold:5}") int failureThreshold,
+                                   @Value("${app.payments.gateway.circuit.open-seconds:30}") long openSeconds) {
+        this(backend, meterRegistry, timeoutMs, maxConcurrentCalls,
+                new CircuitBreaker(failureThreshold, Duration.ofSeconds(openSeconds)));
+    }
+
+    ResilientPaymentGateway(PaymentGateway backend, MeterRegistry meterRegistry, long timeoutMs,
+                            int maxConcurrentCalls, CircuitBreaker circuitBreaker) {
+        this.backend = backend;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMs = timeoutMs;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new CustomizableThreadFactory("payment-gateway-"));
+        this.bulkhead.allowCoreThreadTimeOut(true);
+
+        Gauge.builder("zaikabox.payments.gateway.in_flight", bulkhead, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("zaikabox.payments.gateway.circuit.open", circuitBreaker,
+                        breaker -> breaker.state() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayOrder createOrder(long amountPaise, String currency, String receipt) throws RazorpayException {
+        return call("create_order", () -> backend.createOrder(amountPaise, currency, receipt));
+    }
+
+    @Override
+    public GatewayOrder fetchOrder(String razorpayOrderId) throws RazorpayException {
+        return call("fetch_order", () -> backend.fetchOrder(razorpayOrderId));
+    }
+
+    private <T> T call(String operation, Callable<T> call) throws RazorpayException {
+        if (!circuitBreaker.tryAcquire()) {
+            record(operation, "circuit_open", 0);
+            throw new PaymentGatewayUnavailableException("Payment gateway is unavailable, please try again shortly");
+        }
+
+        long started = System.nanoTime();
+        Future<T> future;
+        try {
+            future = bulkhead.submit(call);
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.onSkipped();
+            record(operation, "rejected", 0);
+            throw new PaymentGatewayUnavailableException("Payment gateway is busy, please try again shortly", e);
+        }
+
+        try {
+            T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            record(operation, "success", System.nanoTime() - started);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.onFailure();
+            record(operation, "timeout", System.nanoTime() - started);
+            log.warn("Payment gateway {} timed out after {} ms", operation, timeoutMs);
+            throw new PaymentGatewayUnavailableException("Payment gateway did not respond in time", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isClientError(cause)) {
+                // The provider answered; the request itself was wrong
+                circuitBreaker.onSuccess();
+                record(operation, "rejected_by_gateway", System.nanoTime() - started);
+            } else {
+                circuitBreaker.onFailure();
+                record(operation, "error", System.nanoTime() - started);
+            }
+            if (cause instanceof RazorpayException razorpayException) {
+                throw razorpayException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            circuitBreaker.onSkipped();
+            Thread.currentThread().interrupt();
+            throw new PaymentGatewayUnavailableException("Interrupted while waiting for the payment gateway", e);
+        }
+    }
+
+    private static boolean isClientError(Throwable cause) {
+        return cause instanceof IllegalArgumentException
+                || (cause instanceof RazorpayException && cause.getMessage() != null
+                && cause.getMessage().startsWith("BAD_REQUEST_ERROR"));
+    }
+
+    private void record(String operation, String outcome, long nanos) {
+        Timer.builder("zaikabox.payments.gateway.calls")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        bulkhead.shutdownNow();
+    }
+}
@@ -0,0 +1,58 @@
+package tech.realworks.yusuf.zaikabox.service.pricing;
+
+import org.springframework.stereotype.Component;
+import tech.realworks.yusuf.zaikabox.config.PricingProperties;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the GST rate of a food category.
+ * Rates are normalised once at startup; each distinct category string is resolved once and then served from a map.
+ */
+@Component
+public class GstRules {
+
+    private static final int MAX_BASIS_POINTS = 10_000;
+
+    private final int defaultBasisPoints;
+    private final Map<String, Integer> byCategory = new HashMap<>();
+    private final Map<String, Integer> resolved = new ConcurrentHashMap<>();
+
+    public GstRules(PricingProperties properties) {
+        this.defaultBasisPoints = validate("default", properties.getDefaultGstBasisPoints());
+        properties.getCategoryGstBasisPoints().forEach((category, basisPoints) ->
+                byCategory.put(normalize(category), validate(category, basisPoints)));
+    }
+
+    /**
+     * GST rate of a food category
+     * @param category The food's category, or null
+     * @return The rate in basis points
+     */
+    public int basisPointsFor(String category) {
+        if (category == null) {
+            return defaultBasisPoints;
+        }
+        Integer basisPoints = resolved.get(category);
+        if (basisPoints == null) {
+            basisPoints = byCategory.getOrDefault(normalize(category), defaultBasisPoints);
+            resolved.putIfAbsent(category, basisPoints);
+        }
+        return basisPoints;
+    }
+
+    private static String normalize(String category) {
+        return category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int validate(String name, Integer basisPoints) {
+        if (basisPoints == null || basisPoints < 0 || basisPoints > MAX_BASIS_POINTS) {
+            throw new IllegalStateException("GST rate for " + name + " must be between 0 and " + MAX_BASIS_POINTS
+                    + " basis points, was " + basisPoints);
+        }
+        return basisPoints;
+    }
+}
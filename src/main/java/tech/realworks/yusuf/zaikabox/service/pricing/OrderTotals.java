@@ -0,0 +1,33 @@
+package tech.realworks.yusuf.zaikabox.service.pricing;
+
+import lombok.Value;
+
+/**
+ * Totals of an order in paise, with the rupee values the order documents store.
+ */
+@Value
+public class OrderTotals {
+    long subTotalPaise;
+    long gstPaise;
+    long totalPaise;
+    int gstBasisPoints; // Effective rate over the whole order
+
+    public double getSubTotal() {
+        return PricingEngine.toRupees(subTotalPaise);
+    }
+
+    public double getGstAmount() {
+        return PricingEngine.toRupees(gstPaise);
+    }
+
+    public double getTotal() {
+        return PricingEngine.toRupees(totalPaise);
+    }
+
+    /**
+     * Effective GST rate in percent, e.g. 5.0
+     */
+    public double getGstRate() {
+        return gstBasisPoints / 100.0;
+    }
+}
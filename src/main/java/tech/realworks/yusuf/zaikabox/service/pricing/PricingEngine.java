@@ -0,0 +1,101 @@
+package tech.realworks.yusuf.zaikabox.service.pricing;
+
+/**
+ * Totals an order in integer paise.
+ * <p>
+ * Line totals are exact. GST is accumulated exactly as paise times basis points across all lines, whatever their
+ * rates, and rounded half up to the paisa once for the whole order, so the total never drifts with the number or
+ * order of lines and always matches the amount charged at the payment gateway. Adding a line does not allocate;
+ * arithmetic that would overflow throws {@link ArithmeticException} rather than wrapping.
+ * <p>
+ * An engine totals one order at a time and is not thread-safe.
+ */
+public final class PricingEngine {
+
+    private static final long BASIS_POINTS_PER_UNIT = 10_000;
+
+    private long subTotalPaise;
+    private long taxPaiseBasisPoints; // Sum of line total x GST rate, before rounding
+
+    /**
+     * Convert a rupee amount from the catalogue to paise
+     * @throws IllegalArgumentException if the amount is negative, not a number or too large
+     */
+    public static long toPaise(double rupees) {
+        if (!(rupees >= 0) || rupees > Long.MAX_VALUE / 100.0) {
+            throw new IllegalArgumentException("Invalid amount: " + rupees);
+        }
+        return Math.round(rupees * 100);
+    }
+
+    /**
+     * Convert paise to rupees, for the amounts stored as doubles
+     */
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+
+    /**
+     * Total of one order line
+     */
+    public static long lineTotal(long unitPricePaise, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Invalid quantity: " + quantity);
+        }
+        return Math.multiplyExact(unitPricePaise, (long) quantity);
+    }
+
+    /**
+     * Add an order line
+     * @param unitPricePaise Price per unit in paise
+     * @param quantity Number of units
+     * @param gstBasisPoints GST rate of the line in basis points
+     * @return The line total in paise, before GST
+     */
+    public long addLine(long unitPricePaise, int quantity, int gstBasisPoints) {
+        long line = lineTotal(unitPricePaise, quantity);
+        subTotalPaise = Math.addExact(subTotalPaise, line);
+        taxPaiseBasisPoints = Math.addExact(taxPaiseBasisPoints, Math.multiplyExact(line, (long) gstBasisPoints));
+        return line;
+    }
+
+    public long subTotalPaise() {
+        return subTotalPaise;
+    }
+
+    /**
+     * GST of the order, rounded half up to the paisa
+     */
+    public long gstPaise() {
+        return (taxPaiseBasisPoints + BASIS_POINTS_PER_UNIT / 2) / BASIS_POINTS_PER_UNIT;
+    }
+
+    public long totalPaise() {
+        return Math.addExact(subTotalPaise, gstPaise());
+    }
+
+    /**
+     * GST rate of the order as a whole in basis points, rounded half up; the lines' rate when they all share one
+     */
+    public int effectiveGstBasisPoints() {
+        if (subTotalPaise == 0) {
+            return 0;
+        }
+        return (int) ((taxPaiseBasisPoints + subTotalPaise / 2) / subTotalPaise);
+    }
+
+    /**
+     * @return The totals of the lines added so far
+     */
+    public OrderTotals totals() {
+        return new OrderTotals(subTotalPaise, gstPaise(), totalPaise(), effectiveGstBasisPoints());
+    }
+
+    /**
+     * Start over for another order
+     */
+    public void reset() {
+        subTotalPaise = 0;
+        taxPaiseBasisPoints = 0;
+    }
+}
@@ -0,0 +1,35 @@
+package tech.realworks.yusuf.zaikabox.service.ratelimit;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared counter storage used by {@link SharedRateLimiterBackend}.
+ * Implementations must apply increments atomically so concurrent nodes never lose counts.
+ */
+public interface CounterStore {
+
+    /**
+     * Add the given deltas, creating counters that do not exist yet
+     * @param increments Counter IDs with the amount to add and when the counter may be discarded
+     */
+    void incrementAll(List<Increment> increments);
+
+    /**
+     * Read the current totals
+     * @param counterIds The counters to read
+     * @return Totals by counter ID; counters that do not exist are absent
+     */
+    Map<String, Long> fetchAll(Collection<String> counterIds);
+
+    @Value
+    class Increment {
+        String counterId;
+        long delta;
+        Instant expiresAt;
+    }
+}
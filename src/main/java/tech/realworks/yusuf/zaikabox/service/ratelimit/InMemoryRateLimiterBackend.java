@@ -0,0 +1,57 @@
+package tech.realworks.yusuf.zaikabox.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tech.realworks.yusuf.zaikabox.config.RateLimitProperties;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Node-local token buckets, one per policy and client key.
+ * Buckets are dropped once idle for a full refill period, at which point they would be full anyway.
+ */
+@Component
+@ConditionalOnProperty(value = "app.rate-limit.backend", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimiterBackend implements RateLimiterBackend {
+
+    private final LongSupplier nanoClock;
+
+    private final Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfter(new Expiry<String, TokenBucket>() {
+                @Override
+                public long expireAfterCreate(String key, TokenBucket bucket, long currentTime) {
+                    return bucket.getRefillPeriodNanos();
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, TokenBucket bucket, long currentTime, long currentDuration) {
+                    return bucket.getRefillPeriodNanos();
+                }
+
+                @Override
+                public long expireAfterRead(String key, TokenBucket bucket, long currentTime, long currentDuration) {
+                    return bucket.getRefillPeriodNanos();
+                }
+            })
+            .build();
+
+    public InMemoryRateLimiterBackend() {
+        this(System::nanoTime);
+    }
+
+    InMemoryRateLimiterBackend(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public RateLimitDecision tryConsume(String policyName, RateLimitProperties.Policy policy, String clientKey) {
+        long now = nanoClock.getAsLong();
+        TokenBucket bucket = buckets.get(policyName + ":" + clientKey,
+                ignored -> new TokenBucket(policy.getCapacity(), policy.getRefillPeriod().toNanos(), now));
+        return bucket.tryConsume(now);
+    }
+}
@@ -0,0 +1,49 @@
+package tech.realworks.yusuf.zaikabox.service.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import tech.realworks.yusuf.zaikabox.entity.RateLimitCounterEntity;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counters in the rate_limit_counters collection, incremented with $inc upserts in one unordered bulk write.
+ * Documents are removed by the TTL index once their window can no longer affect a decision.
+ */
+@Component
+@ConditionalOnProperty(value = "app.rate-limit.backend", havingValue = "shared")
+@RequiredArgsConstructor
+public class MongoCounterStore implements CounterStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void incrementAll(List<Increment> increments) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RateLimitCounterEntity.class);
+        for (Increment increment : increments) {
+            bulkOps.upsert(Query.query(Criteria.where("_id").is(increment.getCounterId())),
+                    new Update().inc("count", increment.getDelta()).setOnInsert("expiresAt", increment.getExpiresAt()));
+        }
+        bulkOps.execute();
+    }
+
+    @Override
+    public Map<String, Long> fetchAll(Collection<String> counterIds) {
+        Query query = Query.query(Criteria.where("_id").in(counterIds));
+        query.fields().include("count");
+        Map<String, Long> totals = new HashMap<>();
+        for (RateLimitCounterEntity counter : mongoTemplate.find(query, RateLimitCounterEntity.class)) {
+            totals.put(counter.getId(), counter.getCount());
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,17 @@
+package tech.realworks.yusuf.zaikabox.service.ratelimit;
+
+import lombok.Value;
+
+/**
+ * Outcome of a single rate limit check, carrying what the X-RateLimit-* and Retry-After headers need.
+ */
+@Value
+public class RateLimitDecision {
+    boolean allowed;
+    long limit;
+    long remaining;
+    // Nanoseconds until the bucket is full again
+    long resetNanos;
+    // Nanoseconds until the next request would be allowed; zero when allowed
+    long retryAfterNanos;
+}
@@ -0,0 +1,18 @@
+package tech.realworks.yusuf.zaikabox.service.ratelimit;
+
+import tech.realworks.yusuf.zaikabox.config.RateLimitProperties;
+
+/**
+ * Storage strategy for rate limit state, selected with {@code app.rate-limit.backend}.
+ */
+public interface RateLimiterBackend {
+
+    /**
+     * Take one unit of the client's budget for the given policy
+     * @param policyName Name of the matched policy
+     * @param policy The policy's capacity and refill period
+     * @param clientKey The client identity (IP or user ID)
+     * @return The decision, including remaining budget and retry delay
+     */
+    RateLimitDecision tryConsume(String policyName, RateLimitProperties.Policy policy, String clientKey);
+}
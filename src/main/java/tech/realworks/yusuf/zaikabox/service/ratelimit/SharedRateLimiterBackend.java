@@ -0,0 +1,181 @@
+package tech.realworks.yusuf.zaikabox.service.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tech.realworks.yusuf.zaikabox.config.RateLimitProperties;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cluster-wide limiter using sliding-window counters kept in a shared {@link CounterStore}.
+ * <p>
+ * Each policy and client key has one counter per window (the policy's refill period), aligned on the epoch so
+ * every node uses the same windows. The estimate is the current window's count plus the previous window's count
+ * weighted by how much of it still overlaps the sliding window. Requests are decided against the local view and
+ * counted locally; {@link #sync()} flushes the local deltas in one batch and pulls the cluster totals back, so the
+ * store sees a few writes per sync interval instead of one per request. Between syncs a node may over-admit by
+ * what other nodes admitted in that interval, and a key first seen on a node is counted locally until its next sync.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "app.rate-limit.backend", havingValue = "shared")
+public class SharedRateLimiterBackend implements RateLimiterBackend {
+
+    private final CounterStore counterStore;
+    private final LongSupplier millisClock;
+    private final Map<String, WindowCounter> windows = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SharedRateLimiterBackend(CounterStore counterStore) {
+        this(counterStore, System::currentTimeMillis);
+    }
+
+    SharedRateLimiterBackend(CounterStore counterStore, LongSupplier millisClock) {
+        this.counterStore = counterStore;
+        this.millisClock = millisClock;
+    }
+
+    @Override
+    public RateLimitDecision tryConsume(String policyName, RateLimitProperties.Policy policy, String clientKey) {
+        long now = millisClock.getAsLong();
+        long windowMillis = Math.max(1L, policy.getRefillPeriod().toMillis());
+        long windowIndex = now / windowMillis;
+        long windowStart = windowIndex * windowMillis;
+        double previousWeight = 1.0 - (now - windowStart) / (double) windowMillis;
+        long capacity = policy.getCapacity();
+
+        String baseKey = policyName + ":" + clientKey;
+        WindowCounter current = window(baseKey, windowIndex, windowMillis);
+        // Registered even when idle so the next sync pulls other nodes' counts for it
+        WindowCounter previous = window(baseKey, windowIndex - 1, windowMillis);
+
+        double weightedPrevious = previous.estimate() * previousWeight;
+        long currentCount = current.reserve();
+        double estimated = weightedPrevious + currentCount;
+        long resetMillis = windowStart + 2 * windowMillis - now;
+
+        if (estimated > capacity) {
+            current.release();
+            long retryAfterMillis = retryAfterMillis(previous.estimate(), currentCount - 1, capacity, windowStart, windowMillis, now);
+            return new RateLimitDecision(false, capacity, 0,
+                    TimeUnit.MILLISECONDS.toNanos(resetMillis), TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+        }
+
+        long remaining = (long) Math.max(0, Math.floor(capacity - estimated));
+        return new RateLimitDecision(true, capacity, remaining, TimeUnit.MILLISECONDS.toNanos(resetMillis), 0);
+    }
+
+    /**
+     * Flush local deltas to the shared store and refresh the local view with the cluster totals.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.shared.sync-interval-ms:250}")
+    public void sync() {
+        long now = millisClock.getAsLong();
+        // No node decides on an expired window any more, so it goes even if its last deltas were never flushed
+        windows.values().removeIf(window -> window.expiresAtMillis() <= now);
+
+        List<CounterStore.Increment> increments = new ArrayList<>();
+        Map<WindowCounter, Long> flushed = new HashMap<>();
+        for (WindowCounter window : windows.values()) {
+            long delta = window.pending.get();
+            if (delta != 0) {
+                // Counted in global before it leaves pending, so estimates never miss it while the write is in flight
+                window.global.addAndGet(delta);
+                window.pending.addAndGet(-delta);
+                flushed.put(window, delta);
+                increments.add(new CounterStore.Increment(window.id, delta, Instant.ofEpochMilli(window.expiresAtMillis())));
+            }
+        }
+
+        if (!increments.isEmpty()) {
+            try {
+                counterStore.incrementAll(increments);
+            } catch (Exception e) {
+                // Keep the deltas for the next attempt
+                flushed.forEach((window, delta) -> {
+                    window.pending.addAndGet(delta);
+                    window.global.addAndGet(-delta);
+                });
+                log.warn("Rate limit counter flush failed: {}", e.getMessage());
+                return;
+            }
+        }
+
+        if (windows.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, Long> totals = counterStore.fetchAll(new ArrayList<>(windows.keySet()));
+            for (WindowCounter window : windows.values()) {
+                window.global.set(totals.getOrDefault(window.id, 0L));
+            }
+        } catch (Exception e) {
+            log.warn("Rate limit counter refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private WindowCounter window(String baseKey, long windowIndex, long windowMillis) {
+        String id = baseKey + ":" + windowIndex;
+        return windows.computeIfAbsent(id, ignored -> new WindowCounter(id, windowIndex, windowMillis));
+    }
+
+    /**
+     * Time until the weighted estimate leaves room for one more request, assuming no further traffic.
+     */
+    private static long retryAfterMillis(long previousCount, long currentCount, long capacity,
+                                         long windowStart, long windowMillis, long now) {
+        long untilNextWindow = windowStart + windowMillis - now;
+        if (previousCount <= 0 || currentCount + 1 > capacity) {
+            return untilNextWindow;
+        }
+        // Solve previousCount * (1 - fraction) + currentCount + 1 <= capacity for the window fraction
+        double requiredFraction = 1.0 - (capacity - currentCount - 1) / (double) previousCount;
+        long allowAt = windowStart + (long) Math.ceil(requiredFraction * windowMillis);
+        return Math.max(0, Math.min(allowAt - now, untilNextWindow));
+    }
+
+    static final class WindowCounter {
+        final String id;
+        final long windowIndex;
+        final long windowMillis;
+        // Last cluster total read from the store, plus deltas this node has flushed since
+        final AtomicLong global = new AtomicLong();
+        // Admitted locally, not yet flushed
+        final AtomicLong pending = new AtomicLong();
+
+        WindowCounter(String id, long windowIndex, long windowMillis) {
+            this.id = id;
+            this.windowIndex = windowIndex;
+            this.windowMillis = windowMillis;
+        }
+
+        long estimate() {
+            return global.get() + pending.get();
+        }
+
+        long reserve() {
+            return global.get() + pending.incrementAndGet();
+        }
+
+        void release() {
+            pending.decrementAndGet();
+        }
+
+        // Once the window after this one has ended, the counter no longer affects any decision
+        long expiresAtMillis() {
+            return (windowIndex + 2) * windowMillis;
+        }
+    }
+}
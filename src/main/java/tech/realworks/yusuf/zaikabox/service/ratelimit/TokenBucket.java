@@ -0,0 +1,59 @@
+package tech.realworks.yusuf.zaikabox.service.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as GCRA (generic cell rate algorithm).
+ * The whole bucket state is a single "theoretical arrival time" updated with CAS,
+ * so tokens refill continuously instead of resetting at window boundaries.
+ */
+public class TokenBucket {
+
+    private final long capacity;
+    // Time to earn one token
+    private final long emissionIntervalNanos;
+    // How far the arrival time may run ahead of now, i.e. the burst allowance
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+    public TokenBucket(long capacity, long refillPeriodNanos, long nowNanos) {
+        if (capacity <= 0 || refillPeriodNanos <= 0) {
+            throw new IllegalArgumentException("Capacity and refill period must be positive");
+        }
+        this.capacity = capacity;
+        this.emissionIntervalNanos = Math.max(1L, refillPeriodNanos / capacity);
+        this.burstToleranceNanos = emissionIntervalNanos * capacity;
+        this.theoreticalArrivalTime = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Try to take one token.
+     * @param nowNanos Current monotonic time in nanoseconds
+     * @return The decision, including remaining tokens and retry delay
+     */
+    public RateLimitDecision tryConsume(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrivalTime.get();
+            long newTat = Math.max(tat, nowNanos) + emissionIntervalNanos;
+            long allowAt = newTat - burstToleranceNanos;
+            if (allowAt > nowNanos) {
+                return new RateLimitDecision(false, capacity, 0, Math.max(0, tat - nowNanos), allowAt - nowNanos);
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, newTat)) {
+                long remaining = (burstToleranceNanos - (newTat - nowNanos)) / emissionIntervalNanos;
+                return new RateLimitDecision(true, capacity, remaining, newTat - nowNanos, 0);
+            }
+        }
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Time after which an idle bucket is full again, so it can be dropped without granting extra tokens.
+     */
+    public long getRefillPeriodNanos() {
+        return burstToleranceNanos;
+    }
+}
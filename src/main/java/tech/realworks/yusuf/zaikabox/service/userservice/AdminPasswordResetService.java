@@ -28,6 +28,7 @@ public class AdminPasswordResetService {
     private final AdminPasswordResetTokenRepository tokenRepository;
     private final PasswordEncoder passwordEncoder;
     private final JavaMailSender mailSender;
+    private final TokenRevocationService tokenRevocationService;
 
     public void sendOtp(String email) {
         UserEntity admin = userRepository.findByEmail(email)
@@ -78,6 +79,7 @@ public class AdminPasswordResetService {
 
         admin.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(admin);
+        tokenRevocationService.revokeTokens(admin.getId());
 
         token.setConsumed(true);
         tokenRepository.save(token);
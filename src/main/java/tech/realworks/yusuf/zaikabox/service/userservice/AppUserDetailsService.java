@@ -1,7 +1,6 @@
 package tech.realworks.yusuf.zaikabox.service.userservice;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -23,6 +22,6 @@ public class AppUserDetailsService implements UserDetailsService {
         // If role is null, default to CUSTOMER role
         Role role = user.getRole() != null ? user.getRole() : Role.CUSTOMER;
 
-        return new User(user.getEmail(), user.getPassword(), role.getAuthorities());
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getPassword(), role);
     }
 }
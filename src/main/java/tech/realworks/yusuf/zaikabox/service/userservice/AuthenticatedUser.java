@@ -0,0 +1,28 @@
+package tech.realworks.yusuf.zaikabox.service.userservice;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.core.userdetails.User;
+import tech.realworks.yusuf.zaikabox.entity.Role;
+
+/**
+ * Authenticated principal carrying the user ID and role alongside the email,
+ * so request handling never has to look the user up again by email.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class AuthenticatedUser extends User {
+
+    private final String userId;
+    private final Role role;
+
+    public AuthenticatedUser(String userId, String email, String password, Role role) {
+        super(email, password != null ? password : "", role.getAuthorities());
+        this.userId = userId;
+        this.role = role;
+    }
+
+    public String getEmail() {
+        return getUsername();
+    }
+}
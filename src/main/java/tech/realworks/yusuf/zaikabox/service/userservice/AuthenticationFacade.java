@@ -2,6 +2,18 @@ package tech.realworks.yusuf.zaikabox.service.userservice;
 
 import org.springframework.security.core.Authentication;
 
+import java.util.Optional;
+
 public interface AuthenticationFacade {
     Authentication getAuthentication();
+
+    /**
+     * The principal of the current request, if it was authenticated with a user ID attached.
+     */
+    Optional<AuthenticatedUser> getAuthenticatedUser();
+
+    /**
+     * The ID of the current user as carried by the principal, without a database lookup.
+     */
+    Optional<String> getCurrentUserId();
 }
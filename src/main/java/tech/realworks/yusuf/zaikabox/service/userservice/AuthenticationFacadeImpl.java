@@ -4,10 +4,26 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 @Component
 public class AuthenticationFacadeImpl implements AuthenticationFacade {
     @Override
     public Authentication getAuthentication() {
         return SecurityContextHolder.getContext().getAuthentication();
     }
+
+    @Override
+    public Optional<AuthenticatedUser> getAuthenticatedUser() {
+        Authentication authentication = getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return Optional.of(user);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<String> getCurrentUserId() {
+        return getAuthenticatedUser().map(AuthenticatedUser::getUserId);
+    }
 }
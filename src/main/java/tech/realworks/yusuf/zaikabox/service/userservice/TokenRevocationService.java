@@ -0,0 +1,107 @@
+package tech.realworks.yusuf.zaikabox.service.userservice;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.entity.TokenRevocationEntity;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks, per user, the instant before which issued access tokens are no longer accepted.
+ * Cut-offs are persisted in the token_revocations collection and mirrored in memory, so checking
+ * a token costs a map lookup. Other replicas pick up new cut-offs on the next sync.
+ * <p>
+ * Cut-offs and issue times are compared in milliseconds, so logging in right after a logout or password reset
+ * gives a working token. Tokens without the millisecond issue-time claim fall back to iat, which is rounded down
+ * and so never slips past a cut-off.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    // Matches the access token lifetime; older cut-offs cannot match a live token
+    private static final Duration MAX_TOKEN_LIFETIME = Duration.ofHours(24);
+    // Overlap between syncs so writes landing during a sync are not missed
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.security.jwt.stateless:false}")
+    private boolean statelessEnabled;
+
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    @PostConstruct
+    void loadRevocations() {
+        if (!statelessEnabled) {
+            return;
+        }
+        try {
+            syncRevocations();
+        } catch (Exception e) {
+            log.warn("Initial token revocation sync failed, retrying on schedule: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reject every access token of the user issued up to now.
+     * @param userId The ID of the user whose tokens should be revoked
+     */
+    public void revokeTokens(String userId) {
+        if (userId == null) {
+            return;
+        }
+        long cutOff = Instant.now().toEpochMilli();
+        revokedBefore.merge(userId, cutOff, Math::max);
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().max("revokedBeforeMillis", cutOff).set("updatedAt", Instant.now()),
+                TokenRevocationEntity.class);
+    }
+
+    /**
+     * Check a token against the user's revocation cut-off.
+     * @param userId The user ID carried by the token
+     * @param issuedAt The token's iat
+     * @return true if the token was issued at or before the user's last revocation
+     */
+    public boolean isRevoked(String userId, Instant issuedAt) {
+        Long cutOff = revokedBefore.get(userId);
+        if (cutOff == null) {
+            return false;
+        }
+        return issuedAt == null || issuedAt.toEpochMilli() <= cutOff;
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.jwt.revocation-sync-interval-ms:5000}")
+    public void syncRevocations() {
+        if (!statelessEnabled) {
+            return;
+        }
+        Instant syncStartedAt = Instant.now();
+        List<TokenRevocationEntity> changed = mongoTemplate.find(
+                Query.query(Criteria.where("updatedAt").gte(lastSync.minus(SYNC_OVERLAP))),
+                TokenRevocationEntity.class);
+        for (TokenRevocationEntity revocation : changed) {
+            revokedBefore.merge(revocation.getUserId(), revocation.getRevokedBeforeMillis(), Math::max);
+        }
+
+        long expired = syncStartedAt.minus(MAX_TOKEN_LIFETIME).toEpochMilli();
+        revokedBefore.values().removeIf(cutOff -> cutOff < expired);
+        lastSync = syncStartedAt;
+    }
+}
@@ -16,6 +16,7 @@ import tech.realworks.yusuf.zaikabox.repository.CartRepository;
 import tech.realworks.yusuf.zaikabox.repository.userRepo.UserRepository;
 import tech.realworks.yusuf.zaikabox.util.JwtOtpUtil;
 
+import java.util.Optional;
 import java.util.Random;
 
 @Service
@@ -28,6 +29,7 @@ public class UserServiceImpl implements UserService {
     private final CartRepository cartRepository;
     private final JavaMailSender javaMailSender;
     private final JwtOtpUtil jwtOtpUtil;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     public UserResponse registerUser(UserRequest userRequest) {
@@ -38,6 +40,12 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public String findByUserId() {
+        // The principal built during authentication already carries the ID
+        Optional<String> principalUserId = authenticationFacade.getCurrentUserId();
+        if (principalUserId.isPresent()) {
+            return principalUserId.get();
+        }
+
         String loggedInUserEmail = authenticationFacade.getAuthentication().getName();
         UserEntity loggedInUser = userRepository
                 .findByEmail(loggedInUserEmail)
@@ -66,6 +74,7 @@ public class UserServiceImpl implements UserService {
 
         // Then delete the user
         userRepository.delete(loggedInUser);
+        tokenRevocationService.revokeTokens(loggedInUser.getId());
     }
 
     @Override
@@ -105,6 +114,7 @@ public class UserServiceImpl implements UserService {
             UserEntity user = userRepository.findByEmail(email).orElseThrow(() -> new UsernameNotFoundException("User with email " + email + " not found"));
             user.setPassword(passwordEncoder.encode(newPassword));
             userRepository.save(user);
+            tokenRevocationService.revokeTokens(user.getId());
         } catch (Exception e) {
             throw new RuntimeException("Invalid token");
         }
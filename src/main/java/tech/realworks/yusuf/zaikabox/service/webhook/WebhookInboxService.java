@@ -0,0 +1,332 @@
+package tech.realworks.yusuf.zaikabox.service.webhook;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import tech.realworks.yusuf.zaikabox.entity.WebhookEventEntity;
+import tech.realworks.yusuf.zaikabox.entity.WebhookEventEntity.State;
+import tech.realworks.yusuf.zaikabox.io.WebhookEventResponse;
+import tech.realworks.yusuf.zaikabox.service.BillingService;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable inbox for Razorpay webhooks.
+ * <p>
+ * A delivery is verified, stored under its event ID and acknowledged; processing happens afterwards on a bounded
+ * worker pool, so Razorpay gets its 200 in one insert and a redelivered event is dropped by the unique ID. Workers
+ * claim an event with a lease before processing it. Transient failures are retried with exponential backoff until
+ * the attempts run out, after which the event is parked as DEAD for an admin to inspect and retry. Events that can
+ * never succeed (malformed payload, unknown payment request) are parked as DEAD straight away.
+ * <p>
+ * Events are handed to the pool as they arrive; a scheduled poll picks up whatever the pool could not take, events
+ * due for a retry, and events whose worker died mid-way (across all replicas).
+ */
+@Service
+@Slf4j
+public class WebhookInboxService {
+
+    public static final int MAX_PAGE_SIZE = 200;
+    private static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final BillingService billingService;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor workers;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration lease;
+
+    // Events waiting in or running on this node's pool, so the poll does not queue them twice
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    public WebhookInboxService(MongoTemplate mongoTemplate,
+                               BillingService billingService,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.webhooks.workers:4}") int workerCount,
+                               @Value("${app.webhooks.queue-capacity:1000}") int queueCapacity,
+                               @Value("${app.webhooks.max-attempts:8}") int maxAttempts,
+                               @Value("${app.webhooks.retry-backoff-ms:5000}") long retryBackoffMs,
+                               @Value("${app.webhooks.lease-seconds:60}") long leaseSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.billingService = billingService;
+        this.meterRegistry = meterRegistry;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("webhook-"));
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    /**
+     * Verify and store a webhook delivery, then queue it for processing
+     * @param eventId X-Razorpay-Event-Id header, or null
+     * @param payload Request body
+     * @param signature X-Razorpay-Signature header
+     * @throws SecurityException if the signature is invalid
+     */
+    public void receive(String eventId, String payload, String signature) {
+        if (!billingService.isValidWebhookSignature(payload, signature)) {
+            throw new SecurityException("Invalid Webhook Signature");
+        }
+
+        Instant now = Instant.now();
+        WebhookEventEntity event = WebhookEventEntity.builder()
+                .id(eventId != null && !eventId.isBlank() ? eventId : sha256(payload))
+                .event(eventType(payload))
+                .payload(payload)
+                .signature(signature)
+                .status(State.PENDING)
+                .attempts(0)
+                .receivedAt(now)
+                .nextAttemptAt(now)
+                .build();
+        try {
+            mongoTemplate.insert(event);
+        } catch (DuplicateKeyException e) {
+            // Razorpay redelivers events it did not see acknowledged in time
+            count("duplicate");
+            log.info("Ignoring duplicate webhook event id={} event={}", event.getId(), event.getEvent());
+            return;
+        }
+        count("received");
+        submit(event.getId());
+    }
+
+    /**
+     * Queue events that are due: new events the pool had no room for, retries, and events with an expired lease
+     */
+    @Scheduled(fixedDelayString = "${app.webhooks.poll-interval-ms:5000}")
+    public void pollDueEvents() {
+        int room = workers.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+        Query query = Query.query(due(Instant.now()))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"))
+                .limit(room);
+        query.fields().include("_id");
+        for (WebhookEventEntity event : mongoTemplate.find(query, WebhookEventEntity.class)) {
+            if (!submit(event.getId())) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * List stored events, most recent first
+     * @param status Only list events in this state
+     * @param limit Maximum number of events to return (1-200)
+     */
+    public List<WebhookEventResponse> getEvents(State status, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Query query = Query.query(Criteria.where("status").is(status))
+                .with(Sort.by(Sort.Direction.DESC, "receivedAt"))
+                .limit(limit);
+        query.fields().exclude("payload", "signature");
+        return mongoTemplate.find(query, WebhookEventEntity.class).stream()
+                .map(this::convertToResponse)
+                .toList();
+    }
+
+    /**
+     * Give a dead event a fresh set of attempts
+     * @param eventId The event ID
+     * @return The event, queued again
+     * @throws NoSuchElementException if there is no such event
+     * @throws IllegalArgumentException if the event is not dead
+     */
+    public WebhookEventResponse retry(String eventId) {
+        Query query = Query.query(Criteria.where("_id").is(eventId).and("status").is(State.DEAD));
+        Update update = new Update()
+                .set("status", State.PENDING)
+                .set("attempts", 0)
+                .set("nextAttemptAt", Instant.now());
+        WebhookEventEntity event = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), WebhookEventEntity.class);
+        if (event == null) {
+            if (mongoTemplate.findById(eventId, WebhookEventEntity.class) == null) {
+                throw new NoSuchElementException("Webhook event not found: " + eventId);
+            }
+            throw new IllegalArgumentException("Only dead webhook events can be retried: " + eventId);
+        }
+        log.info("Webhook event id={} queued again by admin", eventId);
+        submit(eventId);
+        return convertToResponse(event);
+    }
+
+    /**
+     * Claim an event and process it, recording the outcome
+     */
+    void process(String eventId) {
+        Instant now = Instant.now();
+        Query claim = Query.query(Criteria.where("_id").is(eventId).andOperator(due(now)));
+        Update update = new Update()
+                .set("status", State.PROCESSING)
+                .set("lockedUntil", now.plus(lease))
+                .inc("attempts", 1);
+        WebhookEventEntity event = mongoTemplate.findAndModify(claim, update,
+                FindAndModifyOptions.options().returnNew(true), WebhookEventEntity.class);
+        if (event == null) {
+            return; // Processed, not due yet, or claimed by another worker
+        }
+
+        try {
+            billingService.processWebhook(event.getPayload(), event.getSignature());
+            finish(event, new Update()
+                    .set("status", State.PROCESSED)
+                    .set("processedAt", Instant.now())
+                    .unset("lockedUntil")
+                    .unset("lastError"));
+            count("processed");
+        } catch (RuntimeException e) {
+            String reason = e.getClass().getSimpleName() + ": " + e.getMessage();
+            if (isPermanent(e)) {
+                finish(event, new Update()
+                        .set("status", State.DEAD)
+                        .set("lastError", reason)
+                        .unset("lockedUntil"));
+                count("dead");
+                log.error("Webhook event id={} event={} cannot be processed, not retrying: {}",
+                        event.getId(), event.getEvent(), reason);
+            } else if (event.getAttempts() >= maxAttempts) {
+                finish(event, new Update()
+                        .set("status", State.DEAD)
+                        .set("lastError", reason)
+                        .unset("lockedUntil"));
+                count("dead");
+                log.error("Webhook event id={} event={} failed {} times, giving up: {}",
+                        event.getId(), event.getEvent(), event.getAttempts(), reason, e);
+            } else {
+                Instant nextAttemptAt = Instant.now().plus(backoff(event.getAttempts()));
+                finish(event, new Update()
+                        .set("status", State.PENDING)
+                        .set("nextAttemptAt", nextAttemptAt)
+                        .set("lastError", reason)
+                        .unset("lockedUntil"));
+                count("retried");
+                log.warn("Webhook event id={} event={} failed attempt {}, retrying at {}: {}",
+                        event.getId(), event.getEvent(), event.getAttempts(), nextAttemptAt, reason);
+            }
+        }
+    }
+
+    /**
+     * Failures that would happen again on every attempt: a payload we cannot read or a payment we do not know.
+     * Everything else (database, gateway, a concurrent claim) may go away and is retried.
+     */
+    private static boolean isPermanent(RuntimeException e) {
+        return e instanceof JSONException
+                || e instanceof NoSuchElementException
+                || e instanceof IllegalArgumentException;
+    }
+
+    Duration backoff(int attempts) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private void finish(WebhookEventEntity event, Update update) {
+        // Only the worker holding the lease records an outcome
+        Query owned = Query.query(Criteria.where("_id").is(event.getId())
+                .and("status").is(State.PROCESSING)
+                .and("lockedUntil").is(event.getLockedUntil()));
+        mongoTemplate.updateFirst(owned, update, WebhookEventEntity.class);
+    }
+
+    private boolean submit(String eventId) {
+        if (!queued.add(eventId)) {
+            return true;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    process(eventId);
+                } catch (RuntimeException e) {
+                    // The lease expires and the poll picks the event up again
+                    log.error("Webhook worker failed on event id={}: {}", eventId, e.getMessage(), e);
+                } finally {
+                    queued.remove(eventId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // The event is stored; the poll queues it once the pool has room
+            queued.remove(eventId);
+            return false;
+        }
+    }
+
+    private static Criteria due(Instant now) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is(State.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(State.PROCESSING).and("lockedUntil").lt(now));
+    }
+
+    private static String eventType(String payload) {
+        try {
+            return new JSONObject(payload).optString("event", "unknown");
+        } catch (JSONException e) {
+            return "unknown";
+        }
+    }
+
+    private static String sha256(String payload) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(payload.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("zaikabox.webhooks.events", "outcome", outcome).increment();
+    }
+
+    private WebhookEventResponse convertToResponse(WebhookEventEntity event) {
+        return WebhookEventResponse.builder()
+                .id(event.getId())
+                .event(event.getEvent())
+                .status(event.getStatus().name())
+                .attempts(event.getAttempts())
+                .lastError(event.getLastError())
+                .receivedAt(event.getReceivedAt())
+                .nextAttemptAt(event.getNextAttemptAt())
+                .processedAt(event.getProcessedAt())
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,54 @@
+package tech.realworks.yusuf.zaikabox.util;
+
+import java.util.Locale;
+
+/**
+ * Helpers for Accept-Encoding negotiation.
+ */
+public final class ContentCodings {
+
+    private ContentCodings() {
+    }
+
+    /**
+     * Check whether an Accept-Encoding header allows a content coding, honouring q-values
+     * @param acceptEncoding The raw header value, possibly a comma separated list with q-values
+     * @param coding The content coding, e.g. gzip
+     * @return true if the coding is listed, or covered by "*", with a q-value above zero
+     */
+    public static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        Double explicit = null;
+        Double wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (name.equals(coding) || name.equals("x-" + coding)) {
+                explicit = explicit == null ? quality(parts) : Math.max(explicit, quality(parts));
+            } else if (name.equals("*")) {
+                wildcard = quality(parts);
+            }
+        }
+        // A coding named on its own wins over the wildcard, so "gzip;q=0, *" still refuses gzip
+        if (explicit != null) {
+            return explicit > 0;
+        }
+        return wildcard != null && wildcard > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 1 && Character.toLowerCase(parameter.charAt(0)) == 'q' && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0; // A malformed weight is not an acceptance
+                }
+            }
+        }
+        return 1;
+    }
+}
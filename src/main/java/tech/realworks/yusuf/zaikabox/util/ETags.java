@@ -0,0 +1,34 @@
+package tech.realworks.yusuf.zaikabox.util;
+
+/**
+ * Helpers for conditional GET handling.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Check an If-None-Match header value against an ETag, using weak comparison
+     * @param etag The current ETag of the resource
+     * @param ifNoneMatch The raw header value, possibly a comma separated list
+     * @return true if the client already holds this version of the resource
+     */
+    public static boolean matches(String etag, String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String current = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if ("*".equals(trimmed) || current.equals(opaqueTag(trimmed))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -1,16 +1,29 @@
 package tech.realworks.yusuf.zaikabox.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import tech.realworks.yusuf.zaikabox.service.userservice.AuthenticatedUser;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -22,12 +35,51 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class JwtUtil {
 
+    private static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
     @Value("${jwt.secret.key}")
     private String SECRET_KEY;
 
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
+
+    @Value("${jwt.verified-cache.max-ttl-seconds:300}")
+    private long verifiedCacheMaxTtlSeconds;
+
+    // Decoded once; the key and the parser are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    // Verified tokens keyed by SHA-256 of the token, never outliving the token's own exp
+    private Cache<String, VerifiedJwt> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedJwt>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedJwt value, long currentTime) {
+                        return timeToLive(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedJwt value, long currentTime, long currentDuration) {
+                        return timeToLive(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedJwt value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -40,23 +92,51 @@ public class JwtUtil {
 
         claims.put("authorities", authorities);
 
+        // Carry the user ID and role so the principal can be rebuilt without a lookup by email
+        if (userDetails instanceof AuthenticatedUser authenticatedUser) {
+            claims.put("uid", authenticatedUser.getUserId());
+            claims.put("role", authenticatedUser.getRole().name());
+        }
+
         return createToken(claims, userDetails.getUsername());
     }
 
     private String createToken(Map<String, Object> claims, String email) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .claims(claims)
+                // iat only has second precision; revocation cut-offs are compared against the exact issue time
+                .claim(ISSUED_AT_MILLIS_CLAIM, now)
                 .subject(email)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24)) // 24-hour expiration
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + 1000 * 60 * 60 * 24)) // 24-hour expiration
                 .signWith(getSigningKey())
                 .compact();
     }
 
+    /**
+     * Verify the token's signature and expiry, parsing it at most once while it stays cached.
+     * @param token The compact JWT
+     * @return The verified claims
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public VerifiedJwt parseAndValidate(String token) {
+        String cacheKey = hash(token);
+        VerifiedJwt cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            return cached;
+        }
+
+        VerifiedJwt verified = toVerifiedJwt(extractAllClaims(token));
+        if (verified.isExpired(Instant.now())) {
+            throw new ExpiredJwtException(null, null, "JWT expired at " + verified.getExpiresAt());
+        }
+        verifiedTokens.put(cacheKey, verified);
+        return verified;
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
@@ -67,19 +147,60 @@ public class JwtUtil {
     }
 
     public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseAndValidate(token).getSubject();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return Date.from(parseAndValidate(token).getExpiresAt());
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        return isValidFor(parseAndValidate(token), userDetails);
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String email = extractEmail(token);
-        return (email.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public boolean isValidFor(VerifiedJwt jwt, UserDetails userDetails) {
+        return jwt.getSubject() != null
+                && jwt.getSubject().equals(userDetails.getUsername())
+                && !jwt.isExpired(Instant.now());
+    }
+
+    private VerifiedJwt toVerifiedJwt(Claims claims) {
+        return new VerifiedJwt(
+                claims.getSubject(),
+                claims.get("uid", String.class),
+                claims.get("role", String.class),
+                claims.get("authorities", String.class),
+                issuedAt(claims),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    private static Instant issuedAt(Claims claims) {
+        Long issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
+        if (issuedAtMillis != null) {
+            return Instant.ofEpochMilli(issuedAtMillis);
+        }
+        // Tokens issued before the millisecond claim existed
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+    }
+
+    private long timeToLive(VerifiedJwt jwt) {
+        Duration maxTtl = Duration.ofSeconds(verifiedCacheMaxTtlSeconds);
+        if (jwt.getExpiresAt() == null) {
+            return maxTtl.toNanos();
+        }
+        Duration untilExpiry = Duration.between(Instant.now(), jwt.getExpiresAt());
+        if (untilExpiry.isNegative()) {
+            return 0L;
+        }
+        return (untilExpiry.compareTo(maxTtl) < 0 ? untilExpiry : maxTtl).toNanos();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
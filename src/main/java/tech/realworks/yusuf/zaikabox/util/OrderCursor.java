@@ -0,0 +1,57 @@
+package tech.realworks.yusuf.zaikabox.util;
+
+import lombok.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in an order listing sorted by {@code orderDate} descending, then {@code _id} descending.
+ * Encoded as an opaque URL-safe token so clients cannot depend on its contents.
+ */
+@Value
+public class OrderCursor {
+
+    /** The order the cursor walks; listings must be sorted this way for cursors to be stable */
+    public static final Sort SORT = Sort.by(Sort.Order.desc("orderDate"), Sort.Order.desc("id"));
+
+    LocalDateTime orderDate;
+    String id;
+
+    /**
+     * Criteria matching the orders that come after this position in {@link #SORT} order
+     */
+    public Criteria after() {
+        return new Criteria().orOperator(
+                Criteria.where("orderDate").lt(orderDate),
+                Criteria.where("orderDate").is(orderDate).and("id").lt(id));
+    }
+
+    public String encode() {
+        String raw = orderDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor token
+     * @param token The token returned as {@code nextCursor}
+     * @return The decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package tech.realworks.yusuf.zaikabox.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates order IDs such as {@code FD0SEWQ5XK3C01S}: the {@code FD} prefix followed by a fixed-width base36
+ * encoding of {@code millis since 2024-01-01 | node ID | sequence}.
+ * <p>
+ * IDs are strictly increasing per node and unique across nodes as long as every node has its own node ID.
+ * The last timestamp and sequence live in a single {@link AtomicLong}, so concurrent callers never take a lock.
+ * When the clock goes backwards or a millisecond's sequence is used up, the generator moves on to the next
+ * logical millisecond instead of waiting.
+ */
+@Component
+@Slf4j
+public class OrderIdGenerator {
+
+    public static final String PREFIX = "FD";
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Long.MAX_VALUE in base36 is 13 characters; padding keeps IDs the same length and sortable as strings
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // (millis since epoch << SEQUENCE_BITS) | sequence of the last issued ID
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public OrderIdGenerator(@Value("${app.order-id.node-id:-1}") long configuredNodeId) {
+        this(configuredNodeId >= 0 ? configuredNodeId : deriveNodeId(), System::currentTimeMillis);
+        log.info("Order IDs are generated with node ID {}", nodeId);
+    }
+
+    OrderIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Order ID node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * Generate the next order ID
+     * @return A unique order ID with the {@code FD} prefix
+     */
+    public String nextId() {
+        return encode(nextValue());
+    }
+
+    long nextValue() {
+        long now = clock.getAsLong() - EPOCH_MILLIS;
+        while (true) {
+            long last = lastState.get();
+            long lastMillis = last >>> SEQUENCE_BITS;
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // Same millisecond, clock went backwards or sequence exhausted: advance the logical clock by one
+                next = last + 1;
+            }
+            if (lastState.compareAndSet(last, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    static String encode(long value) {
+        char[] buffer = new char[PREFIX.length() + ENCODED_LENGTH];
+        buffer[0] = PREFIX.charAt(0);
+        buffer[1] = PREFIX.charAt(1);
+        for (int i = buffer.length - 1; i >= PREFIX.length(); i--) {
+            buffer[i] = DIGITS[(int) (value % 36)];
+            value /= 36;
+        }
+        return new String(buffer);
+    }
+
+    /**
+     * Derive a node ID from the host name and process ID when none is configured.
+     * Deployments with more than a handful of replicas should set {@code app.order-id.node-id} explicitly.
+     */
+    private static long deriveNodeId() {
+        String identity;
+        try {
+            identity = InetAddress.getLocalHost().getHostName() + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        } catch (Exception e) {
+            identity = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        return (identity.hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1);
+    }
+}
@@ -0,0 +1,22 @@
+package tech.realworks.yusuf.zaikabox.util;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Immutable view of an access token whose signature and expiry have already been checked.
+ */
+@Value
+public class VerifiedJwt {
+    String subject;
+    String userId;
+    String role;
+    String authorities;
+    Instant issuedAt;
+    Instant expiresAt;
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,67 @@
+package tech.realworks.yusuf.zaikabox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tech.realworks.yusuf.zaikabox.util.OrderIdGenerator;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the order ID generator with the previous date-plus-random implementation.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tech.realworks.yusuf.zaikabox.benchmark.OrderIdGeneratorBenchmark} or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderIdGeneratorBenchmark {
+
+    private OrderIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new OrderIdGenerator(1);
+    }
+
+    @Benchmark
+    public String generator() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generatorContended() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String legacyDateAndRandom() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyMMddHHmmss"));
+        String randomSuffix = String.format("%03d", new Random().nextInt(1000));
+        return "FD" + timestamp.substring(0, 5) + randomSuffix;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderIdGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
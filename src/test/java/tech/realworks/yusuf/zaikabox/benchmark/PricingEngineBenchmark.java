@@ -0,0 +1,111 @@
+package tech.realworks.yusuf.zaikabox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tech.realworks.yusuf.zaikabox.config.PricingProperties;
+import tech.realworks.yusuf.zaikabox.entity.OrderItemEntity;
+import tech.realworks.yusuf.zaikabox.service.OrderPricingService;
+import tech.realworks.yusuf.zaikabox.service.pricing.GstRules;
+import tech.realworks.yusuf.zaikabox.service.pricing.OrderTotals;
+import tech.realworks.yusuf.zaikabox.service.pricing.PricingEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares order totals in paise with the previous double arithmetic on large carts.
+ * {@code legacyDoubleStreams} is the old calculateSubTotal/calculateGST path with a flat 5% rate; the paise
+ * benchmarks apply a per-category rate to every line. Run with {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=tech.realworks.yusuf.zaikabox.benchmark.PricingEngineBenchmark}
+ * or from the IDE; add {@code -prof gc} to the runner options to see that adding lines does not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingEngineBenchmark {
+
+    private static final int[] RATES = {500, 500, 500, 1200, 1800};
+
+    @Param({"10", "100", "1000"})
+    private int lines;
+
+    private List<OrderItemEntity> items;
+    private long[] unitPricesPaise;
+    private int[] quantities;
+    private int[] gstBasisPoints;
+    private OrderPricingService orderPricingService;
+    private PricingEngine engine;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        items = new ArrayList<>(lines);
+        unitPricesPaise = new long[lines];
+        quantities = new int[lines];
+        gstBasisPoints = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            long unitPricePaise = 2_000 + random.nextInt(60_000);
+            int quantity = 1 + random.nextInt(5);
+            int rate = RATES[random.nextInt(RATES.length)];
+            unitPricesPaise[i] = unitPricePaise;
+            quantities[i] = quantity;
+            gstBasisPoints[i] = rate;
+            items.add(OrderItemEntity.builder()
+                    .foodId("food" + i)
+                    .name("Item " + i)
+                    .quantity(quantity)
+                    .unitPrice(unitPricePaise / 100.0)
+                    .total(unitPricePaise * quantity / 100.0)
+                    .gstBasisPoints(rate)
+                    .build());
+        }
+        orderPricingService = new OrderPricingService(null, new GstRules(new PricingProperties()));
+        engine = new PricingEngine();
+    }
+
+    @Benchmark
+    public long legacyDoubleStreams() {
+        double subTotal = items.stream()
+                .mapToDouble(OrderItemEntity::getTotal)
+                .sum();
+        double gstAmount = (subTotal * 5.0) / 100;
+        return Math.round((subTotal + gstAmount) * 100);
+    }
+
+    @Benchmark
+    public OrderTotals paiseOverOrderItems() {
+        return orderPricingService.totals(items);
+    }
+
+    @Benchmark
+    public long paisePrimitiveLines() {
+        engine.reset();
+        for (int i = 0; i < lines; i++) {
+            engine.addLine(unitPricesPaise[i], quantities[i], gstBasisPoints[i]);
+        }
+        return engine.totalPaise();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package tech.realworks.yusuf.zaikabox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tech.realworks.yusuf.zaikabox.entity.BillingDetails;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.OrderItemEntity;
+import tech.realworks.yusuf.zaikabox.entity.Status;
+import tech.realworks.yusuf.zaikabox.service.bill.LegacyTextBillRenderer;
+import tech.realworks.yusuf.zaikabox.service.bill.TextBillRenderer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the text bill renderer with the previous String.format implementation on a typical eight item order.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=tech.realworks.yusuf.zaikabox.benchmark.TextBillRendererBenchmark} or from the IDE;
+ * add {@code -prof gc} to the runner options to compare allocation per bill.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextBillRendererBenchmark {
+
+    private TextBillRenderer renderer;
+    private OrderEntity order;
+
+    @Setup
+    public void setUp() {
+        renderer = new TextBillRenderer();
+
+        List<OrderItemEntity> items = new ArrayList<>();
+        double subTotal = 0;
+        for (int i = 1; i <= 8; i++) {
+            double unitPrice = 40 + i * 17.5;
+            items.add(OrderItemEntity.builder()
+                    .name(i % 3 == 0 ? "Chef's special thali with extra raita and papad" : "Paneer Butter Masala")
+                    .quantity(i)
+                    .unitPrice(unitPrice)
+                    .total(unitPrice * i)
+                    .build());
+            subTotal += unitPrice * i;
+        }
+        double gstAmount = subTotal * 5.0 / 100;
+        order = OrderEntity.builder()
+                .orderId("FD0SEWQ5XK3C01S")
+                .items(items)
+                .subTotal(subTotal)
+                .gstRate(5.0)
+                .gstAmount(gstAmount)
+                .totalAmountWithGST(subTotal + gstAmount)
+                .paymentMode("UPI")
+                .status(Status.PAID)
+                .orderDate(LocalDateTime.of(2025, 3, 1, 19, 42, 7))
+                .billingDetails(BillingDetails.builder()
+                        .firstName("Asha").lastName("Verma").email("asha@example.com")
+                        .address("12 MG Road").locality("Indiranagar").zip("560038")
+                        .state("Karnataka").country("India")
+                        .build())
+                .build();
+    }
+
+    @Benchmark
+    public String renderer() {
+        return renderer.render(order);
+    }
+
+    @Benchmark
+    public String legacyStringFormat() {
+        return LegacyTextBillRenderer.render(order);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TextBillRendererBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,76 @@
+package tech.realworks.yusuf.zaikabox.config;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MongoIndexManagerTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final MongoIndexManager mongoIndexManager = new MongoIndexManager(mongoTemplate, mappingContext());
+
+    // Same simple types as the application context, so java.time fields are not mapped as nested entities
+    private static MongoMappingContext mappingContext() {
+        MongoMappingContext context = new MongoMappingContext();
+        context.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        return context;
+    }
+
+    @Test
+    void report_ShouldListMissingUndeclaredAndUnusedIndexes() {
+        // Arrange
+        IndexOperations emptyOps = mock(IndexOperations.class);
+        when(emptyOps.getIndexInfo()).thenReturn(List.of());
+        when(mongoTemplate.indexOps(anyString())).thenReturn(emptyOps);
+
+        IndexOperations userOps = mock(IndexOperations.class);
+        when(userOps.getIndexInfo()).thenReturn(List.of(
+                new IndexInfo(List.of(IndexField.create("_id", Sort.Direction.ASC)), "_id_", false, false, null),
+                new IndexInfo(List.of(IndexField.create("email", Sort.Direction.ASC)), "users_email_uidx", true, false, null),
+                new IndexInfo(List.of(IndexField.create("name", Sort.Direction.ASC)), "name_1", false, false, null)));
+        when(mongoTemplate.indexOps("users")).thenReturn(userOps);
+
+        when(mongoTemplate.aggregate(any(Aggregation.class), anyString(), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("users"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(
+                        new Document("name", "_id_").append("accesses", new Document("ops", 0L)),
+                        new Document("name", "users_email_uidx").append("accesses", new Document("ops", 42L)),
+                        new Document("name", "name_1").append("accesses", new Document("ops", 0L))), new Document()));
+
+        // Act
+        MongoIndexManager.CollectionIndexReport users = mongoIndexManager.report().stream()
+                .filter(report -> report.getCollection().equals("users"))
+                .findFirst()
+                .orElseThrow();
+
+        // Assert
+        assertEquals(List.of("users_role_idx"), users.getMissing());
+        assertEquals(List.of("name_1"), users.getUndeclared());
+        assertEquals(List.of("name_1"), users.getUnused());
+        assertEquals(42L, users.getAccesses().get("users_email_uidx"));
+        assertEquals(MongoIndexManager.MANAGED_ENTITIES.size(), mongoIndexManager.report().size());
+    }
+
+    @Test
+    void signature_ShouldMatchDefaultMongoIndexNames() {
+        assertEquals("customerId_1_status_1_orderDate_-1",
+                MongoIndexManager.signature(new Document("customerId", 1).append("status", 1).append("orderDate", -1.0)));
+    }
+}
@@ -0,0 +1,102 @@
+package tech.realworks.yusuf.zaikabox.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tech.realworks.yusuf.zaikabox.io.FoodResponse;
+import tech.realworks.yusuf.zaikabox.service.FoodService;
+import tech.realworks.yusuf.zaikabox.service.foodserviceimpl.MenuSnapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class FoodControllerTest {
+
+    private static final String ETAG = "W/\"0123456789abcdef\"";
+
+    @Mock
+    private FoodService foodService;
+
+    @InjectMocks
+    private FoodController foodController;
+
+    private MockMvc mockMvc;
+    private MenuSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(foodController).build();
+
+        byte[] json = "[{\"id\":\"f1\",\"name\":\"Masala Dosa\"}]".getBytes(StandardCharsets.UTF_8);
+        snapshot = new MenuSnapshot(ETAG,
+                List.of(FoodResponse.builder().id("f1").name("Masala Dosa").build()),
+                json,
+                new byte[]{31, -117, 8, 0},
+                Instant.now());
+        when(foodService.getMenuSnapshot()).thenReturn(snapshot);
+    }
+
+    @Test
+    void readFoods_ShouldReturnSnapshotWithEtag() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/foods"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(snapshot.getJson()));
+    }
+
+    @Test
+    void readFoods_ShouldReturnNotModifiedForCurrentEtag() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/foods").header(HttpHeaders.IF_NONE_MATCH, "\"stale\", " + ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(result -> assertTrue(result.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void readFoods_ShouldReturnFullBodyForOutdatedEtag() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/foods").header(HttpHeaders.IF_NONE_MATCH, "W/\"outdated\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(snapshot.getJson()));
+    }
+
+    @Test
+    void readFoods_ShouldServeGzipWhenAccepted() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/foods").header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(result -> assertTrue(result.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(content().bytes(snapshot.getGzipJson()));
+    }
+
+    @Test
+    void readFoods_ShouldNotServeGzipRefusedWithZeroQuality() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/v1/foods").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(snapshot.getJson()));
+    }
+}
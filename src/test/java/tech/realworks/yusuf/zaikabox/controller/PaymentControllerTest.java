@@ -0,0 +1,120 @@
+package tech.realworks.yusuf.zaikabox.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tech.realworks.yusuf.zaikabox.io.RazorpayPaymentVerificationDTO;
+import tech.realworks.yusuf.zaikabox.service.BillingService;
+import tech.realworks.yusuf.zaikabox.service.IdempotencyConflictException;
+import tech.realworks.yusuf.zaikabox.service.IdempotencyService;
+import tech.realworks.yusuf.zaikabox.service.IdempotencyStore;
+import tech.realworks.yusuf.zaikabox.service.userservice.AuthenticationFacade;
+import tech.realworks.yusuf.zaikabox.service.webhook.WebhookInboxService;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentControllerTest {
+
+    @Mock
+    private BillingService billingService;
+
+    @Mock
+    private WebhookInboxService webhookInboxService;
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @Mock
+    private AuthenticationFacade authenticationFacade;
+
+    private MockMvc mockMvc;
+    private ObjectMapper objectMapper;
+    private RazorpayPaymentVerificationDTO dto;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        // The real idempotency wrapper, so exceptions reach the handler exactly as they do in production
+        IdempotencyService idempotencyService = new IdempotencyService(
+                idempotencyStore, objectMapper, authenticationFacade, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(idempotencyService, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(idempotencyService, "leaseSeconds", 120L);
+
+        PaymentController paymentController = new PaymentController(billingService, idempotencyService, webhookInboxService);
+        mockMvc = MockMvcBuilders.standaloneSetup(paymentController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        dto = new RazorpayPaymentVerificationDTO();
+        dto.setRazorpayPaymentId("pay_123");
+        dto.setRazorpayOrderId("order_rzp_123");
+        dto.setRazorpaySignature("signature");
+        dto.setOrderId("order123");
+    }
+
+    @Test
+    void verifyPayment_ShouldReturnConflictWhileAnotherCallerCompletesThePayment() throws Exception {
+        // Arrange
+        when(authenticationFacade.getCurrentUserId()).thenReturn(Optional.of("user123"));
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenReturn(Optional.empty());
+        when(billingService.verifyPayment(any(RazorpayPaymentVerificationDTO.class)))
+                .thenThrow(new IdempotencyConflictException("Payment order_rzp_123 is still being processed"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/payment/verify")
+                        .header("Idempotency-Key", "verify-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Payment order_rzp_123 is still being processed"));
+        verify(idempotencyStore).release(eq("payment-verify:user123:verify-key"), anyString());
+    }
+
+    @Test
+    void verifyPayment_ShouldReturnNotFoundForUnknownPayment() throws Exception {
+        // Arrange
+        when(authenticationFacade.getCurrentUserId()).thenReturn(Optional.of("user123"));
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenReturn(Optional.empty());
+        when(billingService.verifyPayment(any(RazorpayPaymentVerificationDTO.class)))
+                .thenThrow(new NoSuchElementException("Payment Request not found for: order_rzp_123"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/payment/verify")
+                        .header("Idempotency-Key", "verify-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Payment Request not found for: order_rzp_123"));
+    }
+
+    @Test
+    void verifyPayment_ShouldReturnConflictWithoutIdempotencyKey() throws Exception {
+        // Arrange
+        when(billingService.verifyPayment(any(RazorpayPaymentVerificationDTO.class)))
+                .thenThrow(new IdempotencyConflictException("Payment order_rzp_123 is still being processed"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/payment/verify")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isConflict());
+    }
+}
@@ -0,0 +1,138 @@
+package tech.realworks.yusuf.zaikabox.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.Status;
+import tech.realworks.yusuf.zaikabox.io.AdminOrderDTO;
+import tech.realworks.yusuf.zaikabox.io.CursorPage;
+import tech.realworks.yusuf.zaikabox.repository.OrderRepository;
+import tech.realworks.yusuf.zaikabox.service.userservice.UserService;
+import tech.realworks.yusuf.zaikabox.util.OrderCursor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminOrderManagementServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private AdminOrderManagementService adminOrderManagementService;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Test
+    void getOrders_ShouldFetchOneExtraRowAndReturnCursorOfLastItem() {
+        // Arrange
+        List<OrderEntity> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add(order("65f0000000000000000000" + (10 + i), NOW.minusMinutes(i)));
+        }
+        when(mongoTemplate.find(any(Query.class), eq(OrderEntity.class))).thenReturn(rows);
+
+        // Act
+        CursorPage<AdminOrderDTO> page = adminOrderManagementService.getOrders(Status.PENDING, null, 2);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        OrderCursor next = OrderCursor.decode(page.getNextCursor());
+        assertEquals(NOW.minusMinutes(1), next.getOrderDate());
+        assertEquals("65f000000000000000000011", next.getId());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(OrderEntity.class));
+        assertEquals(3, query.getValue().getLimit());
+        assertEquals(Status.PENDING, query.getValue().getQueryObject().get("status"));
+        assertEquals(new Document("orderDate", -1).append("id", -1), query.getValue().getSortObject());
+        assertFalse(query.getValue().getFieldsObject().containsKey("customerId"));
+        verify(orderRepository, never()).findAll();
+    }
+
+    @Test
+    void getOrders_ShouldContinueAfterCursorAndEndWithoutNextCursor() {
+        // Arrange
+        String cursor = new OrderCursor(NOW, "65f000000000000000000011").encode();
+        when(mongoTemplate.find(any(Query.class), eq(OrderEntity.class)))
+                .thenReturn(List.of(order("65f000000000000000000012", NOW.minusMinutes(5))));
+
+        // Act
+        CursorPage<AdminOrderDTO> page = adminOrderManagementService.getOrders(null, cursor, 50);
+
+        // Assert
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(OrderEntity.class));
+        assertTrue(query.getValue().getQueryObject().containsKey("$or"));
+    }
+
+    @Test
+    void getOrders_ShouldRejectInvalidLimitAndCursor() {
+        assertThrows(IllegalArgumentException.class, () -> adminOrderManagementService.getOrders(null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> adminOrderManagementService.getOrders(null, "not a cursor", 10));
+    }
+
+    @Test
+    void getOrdersByStatus_ShouldReturnEveryOrderWithThatStatus() {
+        // Arrange
+        List<OrderEntity> rows = new ArrayList<>();
+        for (int i = 0; i < AdminOrderManagementService.DEFAULT_PAGE_SIZE + 10; i++) {
+            rows.add(order("65f0000000000000000000" + (10 + i), NOW.minusMinutes(i)));
+        }
+        when(mongoTemplate.find(any(Query.class), eq(OrderEntity.class))).thenReturn(rows);
+
+        // Act
+        List<AdminOrderDTO> orders = adminOrderManagementService.getOrdersByStatus(Status.PENDING);
+
+        // Assert
+        assertEquals(rows.size(), orders.size());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(OrderEntity.class));
+        assertEquals(0, query.getValue().getLimit());
+        assertEquals(Status.PENDING, query.getValue().getQueryObject().get("status"));
+        assertEquals(new Document("orderDate", -1).append("id", -1), query.getValue().getSortObject());
+        verify(orderRepository, never()).findAll();
+    }
+
+    private OrderEntity order(String id, LocalDateTime orderDate) {
+        return OrderEntity.builder()
+                .id(id)
+                .orderId("FD" + id)
+                .status(Status.PENDING)
+                .orderDate(orderDate)
+                .build();
+    }
+}
@@ -1,28 +1,56 @@
 package tech.realworks.yusuf.zaikabox.service;
 
-import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.bson.Document;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import tech.realworks.yusuf.zaikabox.entity.CartEntity;
-import tech.realworks.yusuf.zaikabox.entity.FoodEntity;
 import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.OrderItemEntity;
+import tech.realworks.yusuf.zaikabox.entity.PaymentRequestEntity;
 import tech.realworks.yusuf.zaikabox.entity.Status;
+import tech.realworks.yusuf.zaikabox.io.CursorPage;
 import tech.realworks.yusuf.zaikabox.io.OrderItemRequest;
 import tech.realworks.yusuf.zaikabox.io.OrderRequest;
 import tech.realworks.yusuf.zaikabox.io.OrderResponse;
+import tech.realworks.yusuf.zaikabox.io.OrderSummaryResponse;
 import tech.realworks.yusuf.zaikabox.repository.CartRepository;
-import tech.realworks.yusuf.zaikabox.repository.FoodRepository;
 import tech.realworks.yusuf.zaikabox.repository.OrderRepository;
+import tech.realworks.yusuf.zaikabox.repository.PaymentRequestRepository;
+import tech.realworks.yusuf.zaikabox.service.bill.PdfBillCache;
+import tech.realworks.yusuf.zaikabox.service.bill.TextBillRenderer;
+import tech.realworks.yusuf.zaikabox.service.outbox.OutboxService;
+import tech.realworks.yusuf.zaikabox.service.payment.GatewayOrder;
+import tech.realworks.yusuf.zaikabox.service.payment.PaymentGateway;
+import tech.realworks.yusuf.zaikabox.service.pricing.OrderTotals;
 import tech.realworks.yusuf.zaikabox.service.userservice.UserService;
+import tech.realworks.yusuf.zaikabox.util.OrderCursor;
+import tech.realworks.yusuf.zaikabox.util.OrderIdGenerator;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class BillingServiceImplTest {
@@ -31,7 +59,7 @@ class BillingServiceImplTest {
     private OrderRepository orderRepository;
 
     @Mock
-    private FoodRepository foodRepository;
+    private OrderPricingService orderPricingService;
 
     @Mock
     private CartRepository cartRepository;
@@ -43,7 +71,28 @@ class BillingServiceImplTest {
     private CartService cartService;
 
     @Mock
-    private RazorpayClient razorpayClient;
+    private PaymentGateway paymentGateway;
+
+    @Mock
+    private PaymentRequestRepository paymentRequestRepository;
+
+    @Mock
+    private OrderIdGenerator orderIdGenerator;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Spy
+    private TextBillRenderer textBillRenderer = new TextBillRenderer();
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PdfBillCache pdfBillCache;
+
+    @Mock
+    private OutboxService outboxService;
 
     @InjectMocks
     private BillingServiceImpl billingService;
@@ -63,21 +112,11 @@ class BillingServiceImplTest {
         // Mock order repository to save and return the order
         when(orderRepository.save(any(OrderEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        // Mock food repository to return food entities
-        FoodEntity food1 = FoodEntity.builder()
-                .id(FOOD_ID_1)
-                .name("Paneer Butter Masala")
-                .price(220.00)
-                .build();
-
-        FoodEntity food2 = FoodEntity.builder()
-                .id(FOOD_ID_2)
-                .name("Butter Naan")
-                .price(40.00)
-                .build();
-
-        when(foodRepository.findById(FOOD_ID_1)).thenReturn(Optional.of(food1));
-        when(foodRepository.findById(FOOD_ID_2)).thenReturn(Optional.of(food2));
+        // Mock pricing to return priced order items
+        when(orderPricingService.priceItems(anyList())).thenReturn(List.of(
+                OrderItemEntity.builder().foodId(FOOD_ID_1).name("Paneer Butter Masala").quantity(1).unitPrice(220.00).total(220.00).build(),
+                OrderItemEntity.builder().foodId(FOOD_ID_2).name("Butter Naan").quantity(2).unitPrice(40.00).total(80.00).build()
+        ));
     }
 
 //    @Test
@@ -159,6 +198,34 @@ class BillingServiceImplTest {
 //        verify(cartService, never()).clearCart();
 //    }
 
+    @Test
+    void createOrder_ShouldCreateGatewayOrderForTotalInPaise() throws RazorpayException {
+        // Arrange
+        when(orderIdGenerator.nextId()).thenReturn(ORDER_ID);
+        when(orderPricingService.totals(anyList())).thenReturn(new OrderTotals(30000, 1500, 31500, 500));
+        when(paymentGateway.createOrder(anyLong(), anyString(), anyString()))
+                .thenReturn(GatewayOrder.builder().id("order_rzp_1").status("created").build());
+        OrderRequest orderRequest = OrderRequest.builder()
+                .useCart(false)
+                .items(List.of(OrderItemRequest.builder().foodId(FOOD_ID_1).quantity(1).build(),
+                        OrderItemRequest.builder().foodId(FOOD_ID_2).quantity(2).build()))
+                .paymentMode("UPI")
+                .build();
+
+        // Act
+        billingService.createOrder(orderRequest);
+
+        // Assert
+        verify(paymentGateway).createOrder(31500L, "INR", ORDER_ID);
+        ArgumentCaptor<PaymentRequestEntity> paymentRequest = ArgumentCaptor.forClass(PaymentRequestEntity.class);
+        verify(paymentRequestRepository).save(paymentRequest.capture());
+        assertEquals("order_rzp_1", paymentRequest.getValue().getRazorpayOrderId());
+        assertEquals("PENDING", paymentRequest.getValue().getStatus());
+        assertEquals(315.0, paymentRequest.getValue().getTotalAmountWithGST());
+        assertEquals(31500, paymentRequest.getValue().getTotalAmountPaise());
+        assertEquals(5.0, paymentRequest.getValue().getGstRate());
+    }
+
     @Test
     void getOrder() {
         // Arrange
@@ -221,15 +288,49 @@ class BillingServiceImplTest {
         assertEquals(USER_ID, responses.get(0).getCustomerId());
     }
 
+    @Test
+    void getOrderHistory_ShouldReturnSummaryPageWithCursor() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.of(2025, 3, 1, 12, 0);
+        List<OrderEntity> rows = List.of(
+                OrderEntity.builder().id("65f000000000000000000003").orderId("FD3").status(Status.PAID).orderDate(now).build(),
+                OrderEntity.builder().id("65f000000000000000000002").orderId("FD2").status(Status.DELIVERED).orderDate(now.minusDays(1)).build(),
+                OrderEntity.builder().id("65f000000000000000000001").orderId("FD1").status(Status.DELIVERED).orderDate(now.minusDays(2)).build());
+        when(mongoTemplate.find(any(Query.class), eq(OrderEntity.class))).thenReturn(rows);
+
+        // Act
+        CursorPage<OrderSummaryResponse> page = billingService.getOrderHistory(null, null, 2);
+
+        // Assert
+        assertEquals(List.of("FD3", "FD2"), page.getItems().stream().map(OrderSummaryResponse::getOrderId).toList());
+        assertEquals("65f000000000000000000002", OrderCursor.decode(page.getNextCursor()).getId());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(OrderEntity.class));
+        assertEquals(USER_ID, query.getValue().getQueryObject().get("customerId"));
+        assertEquals(3, query.getValue().getLimit());
+        assertFalse(query.getValue().getFieldsObject().containsKey("items"));
+        assertFalse(query.getValue().getFieldsObject().containsKey("billingDetails"));
+        verify(orderRepository, never()).findByCustomerId(anyString());
+    }
+
+    @Test
+    void getOrderHistory_ShouldRejectLimitOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> billingService.getOrderHistory(null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> billingService.getOrderHistory(null, null, 101));
+    }
+
     @Test
     void generateOrderId() {
+        // Arrange
+        when(orderIdGenerator.nextId()).thenReturn("FD0SEWQ5XK3C01S");
+
         // Act
         String orderId = billingService.generateOrderId();
 
         // Assert
-        assertNotNull(orderId);
-        assertTrue(orderId.startsWith("FD"));
-        assertEquals(10, orderId.length());
+        assertEquals("FD0SEWQ5XK3C01S", orderId);
+        verify(orderIdGenerator).nextId();
     }
 
     @Test
@@ -295,4 +396,167 @@ class BillingServiceImplTest {
         // Check footer
         assertTrue(textBill.contains("Thank you for your order!"));
     }
+
+    @Test
+    void processWebhook_ShouldCreateOrderWhenClaimIsWon() {
+        // Arrange
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRequestEntity.class))).thenReturn(claimedPaymentRequest());
+
+        // Act
+        billingService.processWebhook(capturedPayload(), "sig");
+
+        // Assert
+        ArgumentCaptor<OrderEntity> order = ArgumentCaptor.forClass(OrderEntity.class);
+        verify(orderRepository).save(order.capture());
+        assertEquals(ORDER_ID, order.getValue().getOrderId());
+        assertEquals("order_rzp_1", order.getValue().getRazorpayOrderId());
+        assertEquals("pay_1", order.getValue().getRazorpayPaymentId());
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(PaymentRequestEntity.class));
+        assertEquals("COMPLETED", update.getValue().getUpdateObject().get("$set", Document.class).get("status"));
+        verify(orderRepository, never()).findByRazorpayOrderId(anyString());
+        verify(outboxService).orderPaid(order.getValue(), false);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void processWebhook_ShouldCompleteRequestThatExpiredBeforePaymentArrived() {
+        // Arrange
+        PaymentRequestEntity expired = claimedPaymentRequest();
+        expired.setStatus("EXPIRED");
+        expired.setClaimedAt(null);
+        expired.setClosedAt(Instant.now());
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRequestEntity.class))).thenReturn(expired);
+
+        // Act
+        billingService.processWebhook(capturedPayload(), "sig");
+
+        // Assert
+        ArgumentCaptor<Query> claim = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(claim.capture(), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRequestEntity.class));
+        assertTrue(claim.getValue().getQueryObject().getList("$or", Document.class).contains(new Document("status", "EXPIRED")));
+        verify(orderRepository).save(any(OrderEntity.class));
+
+        ArgumentCaptor<Query> completed = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(completed.capture(), update.capture(), eq(PaymentRequestEntity.class));
+        assertEquals("COMPLETED", update.getValue().getUpdateObject().get("$set", Document.class).get("status"));
+        // Completed against the claim just taken, not the expired request it replaced
+        assertEquals("PROCESSING", completed.getValue().getQueryObject().get("status"));
+        assertNotNull(completed.getValue().getQueryObject().get("claimedAt"));
+    }
+
+    @Test
+    void processWebhook_ShouldRecordOutboxEventsWhenTakingOverSavedOrder() {
+        // Arrange
+        OrderEntity existing = OrderEntity.builder().orderId(ORDER_ID).razorpayOrderId("order_rzp_1").build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRequestEntity.class))).thenReturn(claimedPaymentRequest());
+        when(orderRepository.save(any(OrderEntity.class))).thenThrow(new DuplicateKeyException("duplicate order"));
+        when(orderRepository.findByRazorpayOrderId("order_rzp_1")).thenReturn(Optional.of(existing));
+
+        // Act
+        billingService.processWebhook(capturedPayload(), "sig");
+
+        // Assert
+        verify(outboxService).orderPaid(existing, false);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(PaymentRequestEntity.class));
+        assertEquals("COMPLETED", update.getValue().getUpdateObject().get("$set", Document.class).get("status"));
+    }
+
+    @Test
+    void processWebhook_ShouldUseExistingOrderWhenClaimIsLost() {
+        // Arrange
+        when(orderRepository.findByRazorpayOrderId("order_rzp_1"))
+                .thenReturn(Optional.of(OrderEntity.builder().orderId(ORDER_ID).razorpayOrderId("order_rzp_1").build()));
+
+        // Act
+        billingService.processWebhook(capturedPayload(), "sig");
+
+        // Assert
+        verify(orderRepository, never()).save(any(OrderEntity.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(PaymentRequestEntity.class));
+    }
+
+    @Test
+    void processWebhook_ShouldReportConflictWhileOrderIsCreatedElsewhere() {
+        // Arrange
+        when(orderRepository.findByRazorpayOrderId("order_rzp_1")).thenReturn(Optional.empty());
+        when(mongoTemplate.exists(any(Query.class), eq(PaymentRequestEntity.class))).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(IdempotencyConflictException.class, () -> billingService.processWebhook(capturedPayload(), "sig"));
+        verify(orderRepository, never()).save(any(OrderEntity.class));
+    }
+
+    @Test
+    void processWebhook_ShouldReleaseClaimWhenOrderCreationFails() {
+        // Arrange
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRequestEntity.class))).thenReturn(claimedPaymentRequest());
+        when(orderRepository.save(any(OrderEntity.class))).thenThrow(new IllegalStateException("Mongo unavailable"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> billingService.processWebhook(capturedPayload(), "sig"));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(PaymentRequestEntity.class));
+        assertEquals("PENDING", update.getValue().getUpdateObject().get("$set", Document.class).get("status"));
+    }
+
+    @Test
+    void processWebhook_ShouldShareResultWithConcurrentCallerOnSameNode() throws Exception {
+        // Arrange
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRequestEntity.class))).thenAnswer(invocation -> {
+            claimed.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return claimedPaymentRequest();
+        });
+
+        // Act
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> billingService.processWebhook(capturedPayload(), "sig"));
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+        Thread waiter = new Thread(() -> billingService.processWebhook(capturedPayload(), "sig"));
+        waiter.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waiter.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(waiter.isAlive() && System.nanoTime() < deadline, "second caller never waited for the first");
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        waiter.join(5000);
+        assertFalse(waiter.isAlive(), "second caller did not finish");
+
+        // Assert
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRequestEntity.class));
+        verify(orderRepository, times(1)).save(any(OrderEntity.class));
+    }
+
+    private PaymentRequestEntity claimedPaymentRequest() {
+        return PaymentRequestEntity.builder()
+                .id("pr1")
+                .orderId(ORDER_ID)
+                .customerId(USER_ID)
+                .razorpayOrderId("order_rzp_1")
+                .items(List.of())
+                .paymentMode("UPI")
+                .status("PROCESSING")
+                .claimedAt(Instant.now())
+                .build();
+    }
+
+    private String capturedPayload() {
+        return "{\"event\":\"payment.captured\",\"payload\":{"
+                + "\"payment\":{\"entity\":{\"id\":\"pay_1\"}},"
+                + "\"order\":{\"entity\":{\"id\":\"order_rzp_1\"}}}}";
+    }
 }
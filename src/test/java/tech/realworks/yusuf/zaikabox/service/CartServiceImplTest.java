@@ -1,25 +1,31 @@
 package tech.realworks.yusuf.zaikabox.service;
 
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
 import tech.realworks.yusuf.zaikabox.entity.CartEntity;
 import tech.realworks.yusuf.zaikabox.io.CartRequest;
 import tech.realworks.yusuf.zaikabox.io.CartResponse;
 import tech.realworks.yusuf.zaikabox.repository.CartRepository;
-import tech.realworks.yusuf.zaikabox.repository.userRepo.UserRepository;
 import tech.realworks.yusuf.zaikabox.service.userservice.UserService;
 
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,10 +35,10 @@ class CartServiceImplTest {
     private CartRepository cartRepository;
 
     @Mock
-    private UserService userService;
+    private MongoTemplate mongoTemplate;
 
     @Mock
-    private UserRepository userRepository;
+    private UserService userService;
 
     @InjectMocks
     private CartServiceImpl cartService;
@@ -62,46 +68,85 @@ class CartServiceImplTest {
         when(userService.findByUserId()).thenReturn(userId);
     }
 
+    private void whenFindAndModify(CartEntity result) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CartEntity.class))).thenReturn(result);
+    }
+
+    private String lastUpdate() {
+        verify(mongoTemplate, atLeastOnce()).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CartEntity.class));
+        return mockingDetails(mongoTemplate).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("findAndModify"))
+                .reduce((first, second) -> second)
+                .map(invocation -> ((UpdateDefinition) invocation.getArgument(1)).getUpdateObject().toJson())
+                .orElseThrow();
+    }
+
     @Test
-    void addToCart_WhenCartExists_ShouldAddItemAndReturnUpdatedCart() {
+    void addToCart_ShouldIncrementItemWithSingleUpsert() {
         // Arrange
-        when(cartRepository.findByUserId(userId)).thenReturn(List.of(cartEntity));
-        when(cartRepository.save(any(CartEntity.class))).thenReturn(cartEntity);
+        CartEntity incremented = new CartEntity("cart123", userId, new HashMap<>(Map.of(foodId, 2)));
+        whenFindAndModify(incremented);
 
         // Act
         CartResponse response = cartService.addToCart(foodId);
 
         // Assert
         assertNotNull(response);
-        assertEquals(cartEntity.getId(), response.getId());
+        assertEquals("cart123", response.getId());
         assertEquals(userId, response.getUserId());
-        assertEquals(2, response.getItems().get(foodId)); // Item quantity should be incremented
-        verify(cartRepository).findByUserId(userId);
-        verify(cartRepository).save(any(CartEntity.class));
+        assertEquals(2, response.getItems().get(foodId));
+        assertTrue(lastUpdate().contains("$inc"));
+        assertTrue(lastUpdate().contains("cartItems." + foodId));
+        verify(cartRepository, never()).save(any(CartEntity.class));
     }
 
     @Test
-    void addToCart_WhenCartDoesNotExist_ShouldCreateCartAddItemAndReturnCart() {
+    void addToCart_ShouldWriteToOldestCartWhileDuplicatesRemain() {
         // Arrange
-        when(cartRepository.findByUserId(userId)).thenReturn(Collections.emptyList());
-        when(cartRepository.save(any(CartEntity.class))).thenReturn(cartEntity);
+        whenFindAndModify(cartEntity);
+
+        // Act
+        cartService.addToCart(foodId);
+
+        // Assert
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(query.capture(), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CartEntity.class));
+        assertEquals(userId, query.getValue().getQueryObject().get("userId"));
+        assertEquals(new Document("_id", 1), query.getValue().getSortObject());
+    }
+
+    @Test
+    void addToCart_WhenConcurrentUpsertCreatedCart_ShouldRetryOnce() {
+        // Arrange
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CartEntity.class)))
+                .thenThrow(new DuplicateKeyException("duplicate userId"))
+                .thenReturn(cartEntity);
 
         // Act
         CartResponse response = cartService.addToCart(foodId);
 
         // Assert
-        assertNotNull(response);
         assertEquals(cartEntity.getId(), response.getId());
-        assertEquals(userId, response.getUserId());
-        assertEquals(1, response.getItems().get(foodId)); // Item quantity should be 1
-        verify(cartRepository).findByUserId(userId);
-        verify(cartRepository).save(any(CartEntity.class));
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CartEntity.class));
+    }
+
+    @Test
+    void addToCart_WithInvalidFoodId_ShouldRejectWithoutWriting() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> cartService.addToCart("$where"));
+        assertThrows(IllegalArgumentException.class, () -> cartService.addToCart("food.123"));
+        verifyNoInteractions(mongoTemplate);
     }
 
     @Test
     void getCart_WhenCartExists_ShouldReturnCart() {
         // Arrange
-        when(cartRepository.findByUserId(userId)).thenReturn(List.of(cartEntity));
+        when(cartRepository.findFirstByUserIdOrderByIdAsc(userId)).thenReturn(Optional.of(cartEntity));
 
         // Act
         CartResponse response = cartService.getCart();
@@ -111,13 +156,13 @@ class CartServiceImplTest {
         assertEquals(cartEntity.getId(), response.getId());
         assertEquals(userId, response.getUserId());
         assertEquals(cartItems, response.getItems());
-        verify(cartRepository).findByUserId(userId);
+        verify(cartRepository).findFirstByUserIdOrderByIdAsc(userId);
     }
 
     @Test
     void getCart_WhenCartDoesNotExist_ShouldReturnEmptyCart() {
         // Arrange
-        when(cartRepository.findByUserId(userId)).thenReturn(Collections.emptyList());
+        when(cartRepository.findFirstByUserIdOrderByIdAsc(userId)).thenReturn(Optional.empty());
 
         // Act
         CartResponse response = cartService.getCart();
@@ -127,86 +172,54 @@ class CartServiceImplTest {
         assertNull(response.getId()); // Empty cart has no ID
         assertEquals(userId, response.getUserId());
         assertTrue(response.getItems().isEmpty()); // Empty cart has no items
-        verify(cartRepository).findByUserId(userId);
+        verify(cartRepository).findFirstByUserIdOrderByIdAsc(userId);
     }
 
     @Test
-    void updateCart_WhenCartExists_ShouldUpdateCartAndReturnUpdatedCart() {
+    void updateCart_ShouldReplaceItemsWithSingleUpsert() {
         // Arrange
         Map<String, Integer> updatedItems = new HashMap<>();
         updatedItems.put(foodId, 3);
         updatedItems.put("food456", 2);
-        
+
         CartRequest updateRequest = new CartRequest();
         updateRequest.setUserId(userId);
         updateRequest.setItems(updatedItems);
-        
-        CartEntity updatedEntity = new CartEntity();
-        updatedEntity.setId(cartEntity.getId());
-        updatedEntity.setUserId(userId);
-        updatedEntity.setCartItems(updatedItems);
-        
-        when(cartRepository.findByUserId(userId)).thenReturn(List.of(cartEntity));
-        when(cartRepository.save(any(CartEntity.class))).thenReturn(updatedEntity);
-
-        // Act
-        CartResponse response = cartService.updateCart(updateRequest);
-
-        // Assert
-        assertNotNull(response);
-        assertEquals(updatedEntity.getId(), response.getId());
-        assertEquals(userId, response.getUserId());
-        assertEquals(updatedItems, response.getItems());
-        verify(cartRepository).findByUserId(userId);
-        verify(cartRepository).save(any(CartEntity.class));
-    }
 
-    @Test
-    void updateCart_WhenCartDoesNotExist_ShouldCreateCartWithItemsAndReturnCart() {
-        // Arrange
-        when(cartRepository.findByUserId(userId)).thenReturn(Collections.emptyList());
-        when(cartRepository.save(any(CartEntity.class))).thenReturn(cartEntity);
+        whenFindAndModify(new CartEntity(cartEntity.getId(), userId, updatedItems));
 
         // Act
-        CartResponse response = cartService.updateCart(cartRequest);
+        CartResponse response = cartService.updateCart(updateRequest);
 
         // Assert
         assertNotNull(response);
         assertEquals(cartEntity.getId(), response.getId());
         assertEquals(userId, response.getUserId());
-        assertEquals(cartItems, response.getItems());
-        verify(cartRepository).findByUserId(userId);
-        verify(cartRepository).save(any(CartEntity.class));
+        assertEquals(updatedItems, response.getItems());
+        assertTrue(lastUpdate().contains("$set"));
+        verify(cartRepository, never()).save(any(CartEntity.class));
     }
 
     @Test
-    void removeFromCart_WhenCartExistsAndItemExists_ShouldRemoveItemAndReturnUpdatedCart() {
+    void removeFromCart_WhenCartExists_ShouldUnsetItemAndReturnUpdatedCart() {
         // Arrange
-        when(cartRepository.findByUserId(userId)).thenReturn(List.of(cartEntity));
-
-        CartEntity updatedEntity = new CartEntity();
-        updatedEntity.setId(cartEntity.getId());
-        updatedEntity.setUserId(userId);
-        updatedEntity.setCartItems(new HashMap<>()); // Empty cart after removal
-        
-        when(cartRepository.save(any(CartEntity.class))).thenReturn(updatedEntity);
+        whenFindAndModify(new CartEntity(cartEntity.getId(), userId, new HashMap<>()));
 
         // Act
         CartResponse response = cartService.removeFromCart(foodId);
 
         // Assert
         assertNotNull(response);
-        assertEquals(updatedEntity.getId(), response.getId());
+        assertEquals(cartEntity.getId(), response.getId());
         assertEquals(userId, response.getUserId());
         assertTrue(response.getItems().isEmpty()); // Item should be removed
-        verify(cartRepository).findByUserId(userId);
-        verify(cartRepository).save(any(CartEntity.class));
+        assertTrue(lastUpdate().contains("$unset"));
     }
 
     @Test
     void removeFromCart_WhenCartDoesNotExist_ShouldReturnEmptyCart() {
         // Arrange
-        when(cartRepository.findByUserId(userId)).thenReturn(Collections.emptyList());
+        whenFindAndModify(null);
 
         // Act
         CartResponse response = cartService.removeFromCart(foodId);
@@ -216,38 +229,28 @@ class CartServiceImplTest {
         assertNull(response.getId()); // Empty cart has no ID
         assertEquals(userId, response.getUserId());
         assertTrue(response.getItems().isEmpty()); // Empty cart has no items
-        verify(cartRepository).findByUserId(userId);
         verify(cartRepository, never()).save(any(CartEntity.class));
     }
 
     @Test
     void clearCart_WhenCartExists_ShouldClearCartAndReturnEmptyCart() {
         // Arrange
-        when(cartRepository.findByUserId(userId)).thenReturn(List.of(cartEntity));
-
-        CartEntity clearedEntity = new CartEntity();
-        clearedEntity.setId(cartEntity.getId());
-        clearedEntity.setUserId(userId);
-        clearedEntity.setCartItems(new HashMap<>()); // Empty cart after clearing
-        
-        when(cartRepository.save(any(CartEntity.class))).thenReturn(clearedEntity);
+        whenFindAndModify(new CartEntity(cartEntity.getId(), userId, new HashMap<>()));
 
         // Act
         CartResponse response = cartService.clearCart();
 
         // Assert
         assertNotNull(response);
-        assertEquals(clearedEntity.getId(), response.getId());
+        assertEquals(cartEntity.getId(), response.getId());
         assertEquals(userId, response.getUserId());
         assertTrue(response.getItems().isEmpty()); // Cart should be empty
-        verify(cartRepository).findByUserId(userId);
-        verify(cartRepository).save(any(CartEntity.class));
     }
 
     @Test
     void clearCart_WhenCartDoesNotExist_ShouldReturnEmptyCart() {
         // Arrange
-        when(cartRepository.findByUserId(userId)).thenReturn(Collections.emptyList());
+        whenFindAndModify(null);
 
         // Act
         CartResponse response = cartService.clearCart();
@@ -257,7 +260,6 @@ class CartServiceImplTest {
         assertNull(response.getId()); // Empty cart has no ID
         assertEquals(userId, response.getUserId());
         assertTrue(response.getItems().isEmpty()); // Empty cart has no items
-        verify(cartRepository).findByUserId(userId);
         verify(cartRepository, never()).save(any(CartEntity.class));
     }
-}
\ No newline at end of file
+}
@@ -1,24 +1,227 @@
 package tech.realworks.yusuf.zaikabox.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.realworks.yusuf.zaikabox.entity.IdempotencyRecordEntity;
+import tech.realworks.yusuf.zaikabox.service.userservice.AuthenticationFacade;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 class IdempotencyServiceTest {
 
-    private final IdempotencyService idempotencyService = new IdempotencyService();
+    private final IdempotencyStore idempotencyStore = mock(IdempotencyStore.class);
+    private final AuthenticationFacade authenticationFacade = mock(AuthenticationFacade.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyStore, objectMapper, authenticationFacade, meterRegistry);
+        ReflectionTestUtils.setField(idempotencyService, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(idempotencyService, "leaseSeconds", 120L);
+        when(authenticationFacade.getCurrentUserId()).thenReturn(Optional.of("user123"));
+    }
 
     @Test
     void shouldReuseCachedResultForSameIdempotencyKey() {
         AtomicInteger counter = new AtomicInteger(0);
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenReturn(Optional.empty());
 
-        String first = idempotencyService.execute("same-key", "op", () -> "value-" + counter.incrementAndGet());
-        String second = idempotencyService.execute("same-key", "op", () -> "value-" + counter.incrementAndGet());
+        String first = idempotencyService.execute("same-key", "op", Map.of("item", 1), String.class, () -> "value-" + counter.incrementAndGet());
+        String second = idempotencyService.execute("same-key", "op", Map.of("item", 1), String.class, () -> "value-" + counter.incrementAndGet());
 
         assertEquals("value-1", first);
         assertEquals("value-1", second);
         assertEquals(1, counter.get());
+        verify(idempotencyStore).complete(eq("op:user123:same-key"), anyString(), eq("\"value-1\""));
+    }
+
+    @Test
+    void shouldReplayResponseStoredByAnotherNode() {
+        AtomicReference<String> fingerprint = new AtomicReference<>();
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenAnswer(invocation -> {
+            fingerprint.set(invocation.getArgument(1));
+            return Optional.of(IdempotencyRecordEntity.builder()
+                    .id(invocation.getArgument(0))
+                    .fingerprint(invocation.getArgument(1))
+                    .state(IdempotencyRecordEntity.State.COMPLETED)
+                    .responseBody("\"stored-value\"")
+                    .build());
+        });
+
+        String response = idempotencyService.execute("same-key", "op", Map.of("item", 1), String.class, () -> fail("Task must not run again"));
+
+        assertEquals("stored-value", response);
+        assertNotNull(fingerprint.get());
+        verify(idempotencyStore, never()).complete(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() {
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenReturn(Optional.of(IdempotencyRecordEntity.builder()
+                .fingerprint("another-request")
+                .state(IdempotencyRecordEntity.State.COMPLETED)
+                .responseBody("\"stored-value\"")
+                .build()));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.execute("same-key", "op", Map.of("item", 2), String.class, () -> "value"));
+    }
+
+    @Test
+    void shouldRejectWhileAnotherRequestHoldsTheKey() {
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenAnswer(invocation -> Optional.of(IdempotencyRecordEntity.builder()
+                .fingerprint(invocation.getArgument(1))
+                .state(IdempotencyRecordEntity.State.IN_PROGRESS)
+                .build()));
+        when(idempotencyStore.takeOver(anyString(), any(), anyString())).thenReturn(false);
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.execute("same-key", "op", Map.of("item", 1), String.class, () -> "value"));
+    }
+
+    @Test
+    void shouldReleaseClaimWhenTaskFails() {
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenReturn(Optional.empty());
+
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute("same-key", "op", Map.of("item", 1), String.class, () -> {
+            throw new IllegalStateException("gateway down");
+        }));
+
+        verify(idempotencyStore).release(eq("op:user123:same-key"), anyString());
+        verify(idempotencyStore, never()).complete(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void shouldWriteOutcomeUnderTheTokenThatTookTheClaimOver() {
+        AtomicReference<String> claimToken = new AtomicReference<>();
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenAnswer(invocation -> {
+            claimToken.set(invocation.getArgument(3));
+            return Optional.of(IdempotencyRecordEntity.builder()
+                    .fingerprint(invocation.getArgument(1))
+                    .state(IdempotencyRecordEntity.State.IN_PROGRESS)
+                    .claimToken("stale-owner")
+                    .build());
+        });
+        when(idempotencyStore.takeOver(anyString(), any(), anyString())).thenReturn(true);
+        when(idempotencyStore.complete(anyString(), anyString(), anyString())).thenReturn(true);
+
+        idempotencyService.execute("same-key", "op", Map.of("item", 1), String.class, () -> "value");
+
+        assertNotNull(claimToken.get());
+        verify(idempotencyStore).takeOver(eq("op:user123:same-key"), any(), eq(claimToken.get()));
+        verify(idempotencyStore).complete("op:user123:same-key", claimToken.get(), "\"value\"");
+    }
+
+    @Test
+    void shouldRetryStoringResponse() {
+        AtomicInteger counter = new AtomicInteger(0);
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("Mongo unavailable"))
+                .doThrow(new IllegalStateException("Mongo unavailable"))
+                .doReturn(true)
+                .when(idempotencyStore).complete(anyString(), anyString(), anyString());
+
+        String response = idempotencyService.execute("same-key", "op", Map.of("item", 1), String.class, () -> "value-" + counter.incrementAndGet());
+
+        assertEquals("value-1", response);
+        verify(idempotencyStore, times(3)).complete(eq("op:user123:same-key"), anyString(), eq("\"value-1\""));
+        verify(idempotencyStore, never()).markUnrecorded(anyString(), anyString());
+    }
+
+    @Test
+    void shouldCloseRecordWhenResponseCannotBeStored() {
+        AtomicInteger counter = new AtomicInteger(0);
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("Mongo unavailable")).when(idempotencyStore).complete(anyString(), anyString(), anyString());
+
+        String response = idempotencyService.execute("same-key", "op", Map.of("item", 1), String.class, () -> "value-" + counter.incrementAndGet());
+
+        assertEquals("value-1", response);
+        verify(idempotencyStore, times(3)).complete(anyString(), anyString(), anyString());
+        verify(idempotencyStore).markUnrecorded(eq("op:user123:same-key"), anyString());
+        assertEquals(1.0, meterRegistry.counter("zaikabox.idempotency.requests", "outcome", "unrecorded").count());
+    }
+
+    @Test
+    void shouldNeverRunUnrecordedRequestAgain() {
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenAnswer(invocation -> Optional.of(IdempotencyRecordEntity.builder()
+                .fingerprint(invocation.getArgument(1))
+                .state(IdempotencyRecordEntity.State.UNRECORDED)
+                .build()));
+
+        assertThrows(IdempotencyConflictException.class, () -> idempotencyService.execute(
+                "same-key", "op", Map.of("item", 1), String.class, () -> fail("Task must not run again")));
+        verify(idempotencyStore, never()).takeOver(anyString(), any(), anyString());
+    }
+
+    @Test
+    void shouldCoalesceConcurrentDuplicatesOnTheSameNode() throws Exception {
+        AtomicInteger counter = new AtomicInteger(0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenReturn(Optional.empty());
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> idempotencyService.execute(
+                "same-key", "op", Map.of("item", 1), String.class, () -> {
+                    started.countDown();
+                    release.await();
+                    return "value-" + counter.incrementAndGet();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> idempotencyService.execute(
+                "same-key", "op", Map.of("item", 1), String.class, () -> "value-" + counter.incrementAndGet()));
+
+        // The duplicate is parked on the first request's future, not on the store
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("zaikabox.idempotency.requests", "outcome", "coalesced").count() < 1) {
+            assertTrue(System.nanoTime() < deadline, "duplicate request was never coalesced");
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals("value-1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("value-1", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, counter.get());
+        verify(idempotencyStore, times(1)).claim(anyString(), anyString(), any(), anyString());
+    }
+
+    @Test
+    void shouldRunTaskAgainAfterFailure() {
+        when(idempotencyStore.claim(anyString(), anyString(), any(), anyString())).thenReturn(Optional.empty());
+
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute(
+                "same-key", "op", Map.of("item", 1), String.class, () -> {
+                    throw new IllegalStateException("gateway down");
+                }));
+        String retried = idempotencyService.execute("same-key", "op", Map.of("item", 1), String.class, () -> "value");
+
+        assertEquals("value", retried);
+        assertEquals(2.0, meterRegistry.counter("zaikabox.idempotency.requests", "outcome", "executed").count());
+    }
+
+    @Test
+    void shouldRunTaskDirectlyWithoutKey() {
+        String response = idempotencyService.execute(null, "op", Map.of("item", 1), String.class, () -> "value");
+
+        assertEquals("value", response);
+        verifyNoInteractions(idempotencyStore);
+        verify(authenticationFacade, never()).getCurrentUserId();
     }
 }
@@ -0,0 +1,72 @@
+package tech.realworks.yusuf.zaikabox.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tech.realworks.yusuf.zaikabox.entity.IdempotencyRecordEntity;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotencyStoreTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final IdempotencyStore idempotencyStore = new IdempotencyStore(mongoTemplate);
+
+    @Test
+    void complete_ShouldOnlyMatchTheCurrentOwner() {
+        // Arrange
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecordEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        // Act
+        boolean completed = idempotencyStore.complete("op:user123:key", "first-owner", "\"value\"");
+
+        // Assert
+        assertFalse(completed);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(IdempotencyRecordEntity.class));
+        assertOwnedBy("first-owner", query.getValue());
+    }
+
+    @Test
+    void markUnrecordedAndRelease_ShouldOnlyMatchTheCurrentOwner() {
+        // Act
+        idempotencyStore.markUnrecorded("op:user123:key", "first-owner");
+        idempotencyStore.release("op:user123:key", "first-owner");
+
+        // Assert
+        ArgumentCaptor<Query> closed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(closed.capture(), any(Update.class), eq(IdempotencyRecordEntity.class));
+        assertOwnedBy("first-owner", closed.getValue());
+        ArgumentCaptor<Query> released = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(released.capture(), eq(IdempotencyRecordEntity.class));
+        assertOwnedBy("first-owner", released.getValue());
+    }
+
+    @Test
+    void takeOver_ShouldHandTheClaimToTheNewOwner() {
+        // Act
+        idempotencyStore.takeOver("op:user123:key", Instant.now(), "second-owner");
+
+        // Assert
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(), eq(IdempotencyRecordEntity.class));
+        assertEquals("second-owner", update.getValue().getUpdateObject().get("$set", Document.class).get("claimToken"));
+    }
+
+    private static void assertOwnedBy(String claimToken, Query query) {
+        Document criteria = query.getQueryObject();
+        assertEquals("op:user123:key", criteria.get("_id"));
+        assertEquals(IdempotencyRecordEntity.State.IN_PROGRESS, criteria.get("state"));
+        assertEquals(claimToken, criteria.get("claimToken"));
+    }
+}
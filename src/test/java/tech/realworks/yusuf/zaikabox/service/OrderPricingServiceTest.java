@@ -0,0 +1,123 @@
+package tech.realworks.yusuf.zaikabox.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tech.realworks.yusuf.zaikabox.config.PricingProperties;
+import tech.realworks.yusuf.zaikabox.entity.FoodEntity;
+import tech.realworks.yusuf.zaikabox.entity.OrderItemEntity;
+import tech.realworks.yusuf.zaikabox.io.OrderItemRequest;
+import tech.realworks.yusuf.zaikabox.repository.FoodRepository;
+import tech.realworks.yusuf.zaikabox.service.pricing.GstRules;
+import tech.realworks.yusuf.zaikabox.service.pricing.OrderTotals;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderPricingServiceTest {
+
+    @Mock
+    private FoodRepository foodRepository;
+
+    @Spy
+    private GstRules gstRules = new GstRules(pricingProperties());
+
+    @InjectMocks
+    private OrderPricingService orderPricingService;
+
+    private final FoodEntity paneer = FoodEntity.builder().id("food123").name("Paneer Butter Masala").price(220.00).build();
+    private final FoodEntity naan = FoodEntity.builder().id("food456").name("Butter Naan").price(40.00).build();
+    private final FoodEntity cola = FoodEntity.builder().id("food789").name("Cola").price(45.50).category("Beverages").build();
+
+    @Test
+    void priceItems_ShouldResolveAllFoodsWithSingleQuery() {
+        // Arrange
+        when(foodRepository.findAllById(anyIterable())).thenReturn(List.of(naan, paneer));
+
+        // Act
+        List<OrderItemEntity> items = orderPricingService.priceItems(List.of(
+                new OrderItemRequest("food123", 1),
+                new OrderItemRequest("food456", 2)));
+
+        // Assert
+        assertEquals(2, items.size());
+        assertEquals("Paneer Butter Masala", items.get(0).getName());
+        assertEquals(220.0, items.get(0).getTotal());
+        assertEquals("Butter Naan", items.get(1).getName());
+        assertEquals(80.0, items.get(1).getTotal());
+        verify(foodRepository, times(1)).findAllById(anyIterable());
+        verify(foodRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void priceItems_WhenFoodsAreMissing_ShouldReportEveryMissingId() {
+        // Arrange
+        when(foodRepository.findAllById(anyIterable())).thenReturn(List.of(paneer));
+
+        // Act
+        NoSuchElementException ex = assertThrows(NoSuchElementException.class, () -> orderPricingService.priceItems(List.of(
+                new OrderItemRequest("food123", 1),
+                new OrderItemRequest("missing1", 1),
+                new OrderItemRequest("missing2", 3))));
+
+        // Assert
+        assertTrue(ex.getMessage().contains("missing1"));
+        assertTrue(ex.getMessage().contains("missing2"));
+        assertFalse(ex.getMessage().contains("food123"));
+    }
+
+    @Test
+    void priceItems_ShouldApplyGstRateOfEachCategory() {
+        // Arrange
+        when(foodRepository.findAllById(anyIterable())).thenReturn(List.of(paneer, cola));
+
+        // Act
+        List<OrderItemEntity> items = orderPricingService.priceItems(List.of(
+                new OrderItemRequest("food123", 1),
+                new OrderItemRequest("food789", 3)));
+        OrderTotals totals = orderPricingService.totals(items);
+
+        // Assert
+        assertEquals(500, items.get(0).getGstBasisPoints());
+        assertEquals(1800, items.get(1).getGstBasisPoints());
+        assertEquals(136.5, items.get(1).getTotal());
+        // 220.00 at 5% + 136.50 at 18% = 11.00 + 24.57 GST
+        assertEquals(35650, totals.getSubTotalPaise());
+        assertEquals(3557, totals.getGstPaise());
+        assertEquals(39207, totals.getTotalPaise());
+        assertEquals(392.07, totals.getTotal());
+        assertEquals(998, totals.getGstBasisPoints());
+    }
+
+    @Test
+    void totals_ShouldMatchPreviousFlatRateMathForSingleRateOrders() {
+        // Arrange
+        when(foodRepository.findAllById(anyIterable())).thenReturn(List.of(naan, paneer));
+
+        // Act
+        OrderTotals totals = orderPricingService.totals(orderPricingService.priceItems(List.of(
+                new OrderItemRequest("food123", 1),
+                new OrderItemRequest("food456", 2))));
+
+        // Assert
+        assertEquals(300.0, totals.getSubTotal());
+        assertEquals(5.0, totals.getGstRate());
+        assertEquals(15.0, totals.getGstAmount());
+        assertEquals(315.0, totals.getTotal());
+        assertEquals(31500, totals.getTotalPaise());
+    }
+
+    private static PricingProperties pricingProperties() {
+        PricingProperties properties = new PricingProperties();
+        properties.getCategoryGstBasisPoints().put("beverages", 1800);
+        return properties;
+    }
+}
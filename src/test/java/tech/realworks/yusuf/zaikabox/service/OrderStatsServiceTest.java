@@ -0,0 +1,112 @@
+package tech.realworks.yusuf.zaikabox.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.Status;
+import tech.realworks.yusuf.zaikabox.event.OrderLifecycleEvent;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatsServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private OrderStatsService orderStatsService;
+
+    @BeforeEach
+    void setUp() {
+        List<Document> rows = List.of(
+                new Document("_id", "PAID").append("count", 4),
+                new Document("_id", "PENDING").append("count", 2L));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(OrderEntity.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(rows, new Document()));
+        orderStatsService.reseed();
+    }
+
+    @Test
+    void reseed_ShouldCountEveryStatusFromOneAggregation() {
+        Map<Status, Long> counts = orderStatsService.getCountsByStatus();
+
+        assertEquals(Status.values().length, counts.size());
+        assertEquals(4L, counts.get(Status.PAID));
+        assertEquals(2L, counts.get(Status.PENDING));
+        assertEquals(0L, counts.get(Status.DELIVERED));
+        verify(mongoTemplate, times(1)).aggregate(any(Aggregation.class), eq(OrderEntity.class), eq(Document.class));
+    }
+
+    @Test
+    void onOrderLifecycleEvent_ShouldKeepCountersCurrentWithoutQuerying() {
+        // Act
+        orderStatsService.onOrderLifecycleEvent(event(OrderLifecycleEvent.OrderChange.CREATED, null, "PAID"));
+        orderStatsService.onOrderLifecycleEvent(event(OrderLifecycleEvent.OrderChange.STATUS_CHANGED, "PAID", "PROCESSING"));
+        orderStatsService.onOrderLifecycleEvent(event(OrderLifecycleEvent.OrderChange.DELETED, "PENDING", "CANCELLED"));
+        orderStatsService.onOrderLifecycleEvent(event(null, null, "PENDING")); // Payment request, no order yet
+
+        // Assert
+        Map<Status, Long> counts = orderStatsService.getCountsByStatus();
+        assertEquals(4L, counts.get(Status.PAID));
+        assertEquals(1L, counts.get(Status.PROCESSING));
+        assertEquals(1L, counts.get(Status.PENDING));
+        assertEquals(0L, counts.get(Status.CANCELLED));
+        verify(mongoTemplate, times(1)).aggregate(any(Aggregation.class), eq(OrderEntity.class), eq(Document.class));
+    }
+
+    @Test
+    void onOrderLifecycleEvent_ShouldCountRedeliveredCreatedEventOnce() {
+        // Act
+        orderStatsService.onOrderLifecycleEvent(event(OrderLifecycleEvent.OrderChange.CREATED, null, "PAID"));
+        orderStatsService.onOrderLifecycleEvent(event(OrderLifecycleEvent.OrderChange.CREATED, null, "PAID"));
+
+        // Assert
+        assertEquals(5L, orderStatsService.getCountsByStatus().get(Status.PAID));
+    }
+
+    @Test
+    void reseed_ShouldNotDropEventAppliedWhileAggregating() {
+        // Arrange
+        List<Document> before = List.of(new Document("_id", "PAID").append("count", 4));
+        List<Document> after = List.of(new Document("_id", "PAID").append("count", 5));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(OrderEntity.class), eq(Document.class)))
+                .thenAnswer(invocation -> {
+                    // The order is written after the aggregation read the collection, and its event lands meanwhile
+                    orderStatsService.onOrderLifecycleEvent(event(OrderLifecycleEvent.OrderChange.CREATED, null, "PAID"));
+                    return new AggregationResults<>(before, new Document());
+                })
+                .thenReturn(new AggregationResults<>(after, new Document()));
+
+        // Act
+        orderStatsService.reseed();
+
+        // Assert
+        assertEquals(5L, orderStatsService.getCountsByStatus().get(Status.PAID));
+        verify(mongoTemplate, times(3)).aggregate(any(Aggregation.class), eq(OrderEntity.class), eq(Document.class));
+    }
+
+    private OrderLifecycleEvent event(OrderLifecycleEvent.OrderChange change, String previousStatus, String status) {
+        return OrderLifecycleEvent.builder()
+                .orderId("FD0000000000001")
+                .status(status)
+                .previousStatus(previousStatus)
+                .change(change)
+                .source("test")
+                .build();
+    }
+}
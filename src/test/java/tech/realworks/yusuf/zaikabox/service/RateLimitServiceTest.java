@@ -1,20 +1,34 @@
 package tech.realworks.yusuf.zaikabox.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import tech.realworks.yusuf.zaikabox.config.RateLimitProperties;
+import tech.realworks.yusuf.zaikabox.service.ratelimit.RateLimitDecision;
+import tech.realworks.yusuf.zaikabox.service.ratelimit.RateLimiterBackend;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class RateLimitServiceTest {
 
-    private final RateLimitService rateLimitService = new RateLimitService();
+    private final RateLimiterBackend rateLimiterBackend = mock(RateLimiterBackend.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitService rateLimitService = new RateLimitService(rateLimiterBackend, meterRegistry);
 
     @Test
-    void shouldBlockAfterLimitIsReached() {
-        String key = "127.0.0.1:/api/v1/auth/login";
-        for (int i = 0; i < 30; i++) {
-            assertTrue(rateLimitService.allow(key));
-        }
-        assertFalse(rateLimitService.allow(key));
+    void shouldReturnBackendDecisionAndCountOutcomes() {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        when(rateLimiterBackend.tryConsume(anyString(), any(RateLimitProperties.Policy.class), anyString()))
+                .thenReturn(new RateLimitDecision(true, 1, 0, 0, 0))
+                .thenReturn(new RateLimitDecision(false, 1, 0, 0, 1_000_000_000L));
+
+        assertTrue(rateLimitService.tryConsume("auth", policy, "ip:127.0.0.1").isAllowed());
+        assertFalse(rateLimitService.tryConsume("auth", policy, "ip:127.0.0.1").isAllowed());
+
+        assertEquals(1.0, meterRegistry.get("zaikabox.ratelimit.requests").tag("outcome", "allowed").counter().count());
+        assertEquals(1.0, meterRegistry.get("zaikabox.ratelimit.requests").tag("outcome", "rejected").counter().count());
     }
 }
@@ -0,0 +1,114 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.Status;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BillExportServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BillPdfRenderer pdfRenderer = mock(BillPdfRenderer.class);
+    private final BillExportService billExportService =
+            new BillExportService(mongoTemplate, pdfRenderer, new TextBillRenderer(), 4, 2);
+
+    @AfterEach
+    void tearDown() {
+        billExportService.shutdown();
+    }
+
+    @Test
+    void prepare_ShouldWriteBillsInCursorOrder() throws IOException {
+        // Arrange
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            orders.add(OrderEntity.builder().orderId("FD" + i).status(Status.DELIVERED).build());
+        }
+        when(mongoTemplate.stream(any(Query.class), eq(OrderEntity.class))).thenReturn(orders.stream());
+        when(pdfRenderer.render(any(OrderEntity.class)))
+                .thenAnswer(invocation -> invocation.<OrderEntity>getArgument(0).getOrderId().getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        BillExport export = billExportService.prepare(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31), null, BillFormat.PDF);
+        Map<String, String> entries = unzip(export);
+
+        // Assert
+        assertEquals("bills-from-2025-03-01-to-2025-03-31.zip", export.getFileName());
+        assertEquals(10, entries.size());
+        int i = 1;
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            assertEquals("order-FD" + i + "-bill.pdf", entry.getKey());
+            assertEquals("FD" + i, entry.getValue());
+            i++;
+        }
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(OrderEntity.class));
+        assertTrue(query.getValue().getQueryObject().containsKey("orderDate"));
+        assertFalse(query.getValue().getQueryObject().containsKey("status"));
+    }
+
+    @Test
+    void prepare_ShouldListBillsThatFailToRender() throws IOException {
+        // Arrange
+        when(mongoTemplate.stream(any(Query.class), eq(OrderEntity.class))).thenReturn(Stream.of(
+                OrderEntity.builder().orderId("FD1").status(Status.PAID).build(),
+                OrderEntity.builder().orderId("FD2").status(Status.PAID).build()));
+        when(pdfRenderer.render(any(OrderEntity.class))).thenReturn(new byte[]{1});
+        when(pdfRenderer.render(argThat((OrderEntity order) -> order != null && "FD2".equals(order.getOrderId()))))
+                .thenThrow(new RuntimeException("Error generating PDF bill: boom"));
+
+        // Act
+        Map<String, String> entries = unzip(billExportService.prepare(null, null, Status.PAID, BillFormat.PDF));
+
+        // Assert
+        assertTrue(entries.containsKey("order-FD1-bill.pdf"));
+        assertFalse(entries.containsKey("order-FD2-bill.pdf"));
+        assertTrue(entries.get(BillExportService.FAILURES_ENTRY).startsWith("FD2: "));
+    }
+
+    @Test
+    void prepare_ShouldRejectExportsWithoutFilterOrWithReversedRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> billExportService.prepare(null, null, null, BillFormat.PDF));
+        assertThrows(IllegalArgumentException.class,
+                () -> billExportService.prepare(LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 1), null, BillFormat.TEXT));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    private Map<String, String> unzip(BillExport export) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.writeTo(out);
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
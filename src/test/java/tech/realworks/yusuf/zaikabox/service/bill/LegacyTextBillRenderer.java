@@ -0,0 +1,107 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import tech.realworks.yusuf.zaikabox.entity.BillingDetails;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.OrderItemEntity;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * The String.format based text bill that TextBillRenderer replaced, kept as the reference its output must match
+ * byte for byte and as the baseline of its benchmark.
+ */
+public final class LegacyTextBillRenderer {
+
+    private LegacyTextBillRenderer() {
+    }
+
+    public static String render(OrderEntity order) {
+        StringBuilder textBill = new StringBuilder();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+
+        // Add title
+        textBill.append("===========================================\n");
+        textBill.append("            ZaikaBox - Order Bill          \n");
+        textBill.append("===========================================\n\n");
+
+        // Add order details
+        textBill.append("Order ID: ").append(order.getOrderId()).append("\n");
+        textBill.append("Order Date: ").append(order.getOrderDate().format(formatter)).append("\n");
+        textBill.append("Payment Mode: ").append(order.getPaymentMode()).append("\n");
+        textBill.append("Status: ").append(order.getStatus()).append("\n\n");
+
+        // Add billing details if available
+        if (order.getBillingDetails() != null) {
+            BillingDetails billingDetails = order.getBillingDetails();
+            textBill.append("Billing Details:\n");
+
+            if (billingDetails.getFirstName() != null && billingDetails.getLastName() != null) {
+                textBill.append("Name: ").append(billingDetails.getFirstName()).append(" ").append(billingDetails.getLastName()).append("\n");
+            }
+
+            if (billingDetails.getEmail() != null) {
+                textBill.append("Email: ").append(billingDetails.getEmail()).append("\n");
+            }
+
+            if (billingDetails.getAddress() != null) {
+                textBill.append("Address: ").append(billingDetails.getAddress()).append("\n");
+            }
+
+            if (billingDetails.getLocality() != null) {
+                textBill.append("Locality: ").append(billingDetails.getLocality()).append("\n");
+            }
+
+            if (billingDetails.getLandmark() != null) {
+                textBill.append("Landmark: ").append(billingDetails.getLandmark()).append("\n");
+            }
+
+            if (billingDetails.getZip() != null) {
+                textBill.append("ZIP: ").append(billingDetails.getZip()).append("\n");
+            }
+
+            if (billingDetails.getState() != null && billingDetails.getCountry() != null) {
+                textBill.append("Location: ").append(billingDetails.getState()).append(", ").append(billingDetails.getCountry()).append("\n");
+            }
+
+            textBill.append("\n");
+        }
+
+        // Add items table header
+        textBill.append(String.format("%-5s %-30s %-8s %-12s %-12s\n", "No.", "Item", "Qty", "Unit Price", "Total"));
+        textBill.append("-------------------------------------------------------------------\n");
+
+        // Add items
+        List<OrderItemEntity> items = order.getItems();
+        for (int i = 0; i < items.size(); i++) {
+            OrderItemEntity item = items.get(i);
+            textBill.append(String.format("%-5d %-30s %-8d ₹%-11.2f ₹%-11.2f\n",
+                    i + 1, 
+                    truncateString(item.getName(), 30), 
+                    item.getQuantity(), 
+                    item.getUnitPrice(), 
+                    item.getTotal()));
+        }
+
+        textBill.append("-------------------------------------------------------------------\n\n");
+
+        // Add totals
+        textBill.append(String.format("%-47s ₹%.2f\n", "Subtotal:", order.getSubTotal()));
+        textBill.append(String.format("%-47s ₹%.2f\n", "GST (" + order.getGstRate() + "%):", order.getGstAmount()));
+        textBill.append(String.format("%-47s ₹%.2f\n\n", "Total:", order.getTotalAmountWithGST()));
+
+        // Add footer
+        textBill.append("===========================================\n");
+        textBill.append("          Thank you for your order!        \n");
+        textBill.append("===========================================\n");
+
+        return textBill.toString();
+    }
+
+    private static String truncateString(String str, int maxLength) {
+        if (str.length() <= maxLength) {
+            return str;
+        }
+        return str.substring(0, maxLength - 3) + "...";
+    }
+}
@@ -0,0 +1,236 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.Status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PdfBillCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final BillPdfRenderer renderer = mock(BillPdfRenderer.class);
+
+    @Test
+    void get_ShouldRenderEachOrderVersionOnce() {
+        // Arrange
+        when(renderer.render(any(OrderEntity.class))).thenReturn(new byte[]{1, 2, 3});
+        PdfBillCache cache = new PdfBillCache(renderer, 1024 * 1024, directory, 1024 * 1024);
+        OrderEntity order = order(Status.PAID, 1_000L);
+
+        // Act
+        byte[] first = cache.get(order);
+        byte[] second = cache.get(order);
+
+        // Assert
+        assertArrayEquals(first, second);
+        verify(renderer, times(1)).render(any(OrderEntity.class));
+    }
+
+    @Test
+    void get_ShouldReadBillsRenderedBeforeRestartFromDisk() {
+        // Arrange
+        when(renderer.render(any(OrderEntity.class))).thenReturn(new byte[]{1, 2, 3});
+        OrderEntity order = order(Status.PAID, 1_000L);
+        new PdfBillCache(renderer, 1024 * 1024, directory, 1024 * 1024).get(order);
+
+        // Act
+        byte[] pdf = new PdfBillCache(renderer, 1024 * 1024, directory, 1024 * 1024).get(order);
+
+        // Assert
+        assertArrayEquals(new byte[]{1, 2, 3}, pdf);
+        verify(renderer, times(1)).render(any(OrderEntity.class));
+    }
+
+    @Test
+    void get_ShouldRenderAgainWhenOrderChanges() {
+        // Arrange
+        when(renderer.render(any(OrderEntity.class))).thenReturn(new byte[]{1});
+        PdfBillCache cache = new PdfBillCache(renderer, 1024 * 1024, directory, 1024 * 1024);
+        OrderEntity paid = order(Status.PAID, 1_000L);
+        OrderEntity delivered = order(Status.DELIVERED, 2_000L);
+
+        // Act
+        cache.get(paid);
+        cache.get(delivered);
+
+        // Assert
+        verify(renderer, times(2)).render(any(OrderEntity.class));
+        assertNotEquals(cache.etag(paid), cache.etag(delivered));
+        assertTrue(cache.etag(paid).startsWith("W/\""));
+    }
+
+    @Test
+    void get_ShouldKeepDiskTierWithinLimit() throws IOException {
+        // Arrange
+        when(renderer.render(any(OrderEntity.class))).thenReturn(new byte[400]);
+        PdfBillCache cache = new PdfBillCache(renderer, 1024 * 1024, directory, 1000);
+
+        // Act
+        for (long version = 1; version <= 5; version++) {
+            cache.get(order(Status.PAID, version));
+        }
+
+        // Assert
+        long stored;
+        try (Stream<Path> files = Files.list(directory)) {
+            stored = files.mapToLong(path -> path.toFile().length()).sum();
+        }
+        assertTrue(stored <= 1000, "disk tier holds " + stored + " bytes");
+    }
+
+    @Test
+    void writeTo_ShouldStreamRenderedBillAndKeepCopyOnDisk() throws IOException {
+        // Arrange
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write(new byte[]{4, 5, 6});
+            return null;
+        }).when(renderer).render(any(OrderEntity.class), any(OutputStream.class));
+        PdfBillCache cache = new PdfBillCache(renderer, 1024 * 1024, directory, 1024 * 1024);
+        OrderEntity order = order(Status.PAID, 1_000L);
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        // Act
+        cache.writeTo(order, first);
+        cache.writeTo(order, second);
+
+        // Assert
+        assertArrayEquals(new byte[]{4, 5, 6}, first.toByteArray());
+        assertArrayEquals(new byte[]{4, 5, 6}, second.toByteArray());
+        verify(renderer, times(1)).render(any(OrderEntity.class), any(OutputStream.class));
+        verify(renderer, never()).render(any(OrderEntity.class));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".pdf")).count());
+        }
+    }
+
+    @Test
+    void writeTo_ShouldShareOneRenderBetweenConcurrentDownloads() throws Exception {
+        // Arrange
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            rendering.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            invocation.<OutputStream>getArgument(1).write(new byte[]{4, 5, 6});
+            return null;
+        }).when(renderer).render(any(OrderEntity.class), any(OutputStream.class));
+        PdfBillCache cache = new PdfBillCache(renderer, 1024 * 1024, directory, 1024 * 1024);
+        OrderEntity order = order(Status.PAID, 1_000L);
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        // Act
+        CompletableFuture<Void> leader = CompletableFuture.runAsync(() -> writeQuietly(cache, order, first));
+        assertTrue(rendering.await(5, TimeUnit.SECONDS));
+        Thread follower = new Thread(() -> writeQuietly(cache, order, second));
+        follower.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (follower.getState() != Thread.State.WAITING) {
+            assertTrue(follower.isAlive() && System.nanoTime() < deadline, "follower never waited for the render");
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        follower.join(5000);
+
+        // Assert
+        assertFalse(follower.isAlive());
+        assertArrayEquals(new byte[]{4, 5, 6}, first.toByteArray());
+        assertArrayEquals(new byte[]{4, 5, 6}, second.toByteArray());
+        verify(renderer, times(1)).render(any(OrderEntity.class), any(OutputStream.class));
+        // The streamed render also fills the memory tier
+        assertArrayEquals(new byte[]{4, 5, 6}, cache.get(order));
+        verify(renderer, never()).render(any(OrderEntity.class));
+    }
+
+    @Test
+    void writeTo_ShouldCacheBillWhenClientGoesAwayMidDownload() throws IOException {
+        // Arrange
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write(new byte[]{4, 5, 6});
+            return null;
+        }).when(renderer).render(any(OrderEntity.class), any(OutputStream.class));
+        PdfBillCache cache = new PdfBillCache(renderer, 1024 * 1024, directory, 1024 * 1024);
+        OrderEntity order = order(Status.PAID, 1_000L);
+        OutputStream brokenPipe = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> cache.writeTo(order, brokenPipe));
+        ByteArrayOutputStream retry = new ByteArrayOutputStream();
+        cache.writeTo(order, retry);
+        assertArrayEquals(new byte[]{4, 5, 6}, retry.toByteArray());
+        verify(renderer, times(1)).render(any(OrderEntity.class), any(OutputStream.class));
+    }
+
+    @Test
+    void writeTo_ShouldServeBillsCachedInMemoryWithoutRendering() throws IOException {
+        // Arrange
+        when(renderer.render(any(OrderEntity.class))).thenReturn(new byte[]{1, 2, 3});
+        PdfBillCache cache = new PdfBillCache(renderer, 1024 * 1024, directory, 0);
+        OrderEntity order = order(Status.PAID, 1_000L);
+        cache.get(order);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        cache.writeTo(order, out);
+
+        // Assert
+        assertArrayEquals(new byte[]{1, 2, 3}, out.toByteArray());
+        verify(renderer, times(1)).render(any(OrderEntity.class));
+        verify(renderer, never()).render(any(OrderEntity.class), any(OutputStream.class));
+    }
+
+    @Test
+    void writeTo_ShouldNotLeavePartialFilesWhenRenderingFails() throws IOException {
+        // Arrange
+        doThrow(new RuntimeException("Error generating PDF bill: boom"))
+                .when(renderer).render(any(OrderEntity.class), any(OutputStream.class));
+        PdfBillCache cache = new PdfBillCache(renderer, 1024 * 1024, directory, 1024 * 1024);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> cache.writeTo(order(Status.PAID, 1_000L), new ByteArrayOutputStream()));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static void writeQuietly(PdfBillCache cache, OrderEntity order, OutputStream out) {
+        try {
+            cache.writeTo(order, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private OrderEntity order(Status status, long lastModifiedMillis) {
+        return OrderEntity.builder()
+                .orderId("FD0000000000001")
+                .status(status)
+                .lastModified(Instant.ofEpochMilli(lastModifiedMillis))
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package tech.realworks.yusuf.zaikabox.service.bill;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tech.realworks.yusuf.zaikabox.entity.BillingDetails;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.OrderItemEntity;
+import tech.realworks.yusuf.zaikabox.entity.Status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextBillRendererTest {
+
+    private static final Locale DEFAULT_LOCALE = Locale.getDefault(Locale.Category.FORMAT);
+
+    private final TextBillRenderer renderer = new TextBillRenderer();
+
+    @AfterEach
+    void restoreLocale() {
+        Locale.setDefault(Locale.Category.FORMAT, DEFAULT_LOCALE);
+    }
+
+    @Test
+    void render_ShouldMatchLegacyOutputByteForByte() {
+        // Arrange
+        Random random = new Random(42);
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            orders.add(randomOrder(random, i));
+        }
+
+        for (OrderEntity order : orders) {
+            // Act
+            String bill = renderer.render(order);
+
+            // Assert
+            assertArrayEquals(LegacyTextBillRenderer.render(order).getBytes(StandardCharsets.UTF_8),
+                    bill.getBytes(StandardCharsets.UTF_8), () -> "Bill differs for " + order.getOrderId());
+        }
+    }
+
+    @Test
+    void render_ShouldRoundAmountsLikeStringFormat() {
+        // Arrange
+        double[] amounts = {0, -0.0, 0.005, 0.015, 1.005, 2.675, 10.125, 15.000000000000002, 99.995, 0.001, -0.001,
+                -12.345, 1234567.891, 12345678.905, 1e15 + 0.5, Double.NaN, Double.POSITIVE_INFINITY};
+
+        for (double amount : amounts) {
+            OrderEntity order = order(List.of(item("Tea", 1, amount, amount)), amount);
+
+            // Act & Assert
+            assertEquals(LegacyTextBillRenderer.render(order), renderer.render(order), "amount " + amount);
+        }
+    }
+
+    @Test
+    void render_ShouldFollowDefaultFormatLocale() {
+        OrderEntity order = order(List.of(item("Masala Dosa", 12, 89.5, 1074.0)), 53.7);
+
+        for (Locale locale : List.of(Locale.GERMANY, Locale.forLanguageTag("hi-IN"),
+                Locale.forLanguageTag("th-TH-u-nu-thai"), Locale.forLanguageTag("ar-EG"))) {
+            Locale.setDefault(Locale.Category.FORMAT, locale);
+
+            // Act & Assert
+            assertEquals(LegacyTextBillRenderer.render(order), renderer.render(order), "locale " + locale);
+        }
+    }
+
+    @Test
+    void renderTo_ShouldAppendToBuffer() {
+        // Arrange
+        OrderEntity order = order(List.of(item("A very long dish name that will not fit the column", 2, 40, 80)), 4);
+        StringBuilder buffer = new StringBuilder("header\n");
+
+        // Act
+        renderer.renderTo(order, buffer);
+
+        // Assert
+        assertEquals("header\n" + LegacyTextBillRenderer.render(order), buffer.toString());
+        assertTrue(buffer.indexOf("A very long dish name that ...") > 0);
+    }
+
+    private OrderEntity randomOrder(Random random, int index) {
+        List<OrderItemEntity> items = new ArrayList<>();
+        double subTotal = 0;
+        int itemCount = 1 + random.nextInt(8);
+        for (int i = 0; i < itemCount; i++) {
+            int quantity = 1 + random.nextInt(12);
+            // Mostly whole paise, sometimes the result of arithmetic
+            double unitPrice = random.nextBoolean() ? random.nextInt(100_000) / 100.0 : random.nextDouble() * 1000;
+            double total = unitPrice * quantity;
+            subTotal += total;
+            String name = "Dish " + "x".repeat(random.nextInt(40));
+            items.add(item(name, quantity, unitPrice, total));
+        }
+
+        double gstRate = random.nextBoolean() ? 5.0 : 18.0;
+        double gstAmount = subTotal * gstRate / 100;
+        OrderEntity order = OrderEntity.builder()
+                .orderId("FD" + index)
+                .items(items)
+                .subTotal(subTotal)
+                .gstRate(gstRate)
+                .gstAmount(gstAmount)
+                .totalAmountWithGST(subTotal + gstAmount)
+                .paymentMode(random.nextBoolean() ? "UPI" : "COD")
+                .status(Status.values()[random.nextInt(Status.values().length)])
+                .orderDate(LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(random.nextInt(31_536_000)))
+                .build();
+        if (random.nextBoolean()) {
+            order.setBillingDetails(BillingDetails.builder()
+                    .firstName("Asha")
+                    .lastName("Verma")
+                    .email("asha@example.com")
+                    .address("12 MG Road")
+                    .locality(random.nextBoolean() ? "Indiranagar" : null)
+                    .zip("560038")
+                    .state("Karnataka")
+                    .country("India")
+                    .build());
+        }
+        return order;
+    }
+
+    private OrderEntity order(List<OrderItemEntity> items, double gstAmount) {
+        return OrderEntity.builder()
+                .orderId("FD0000000000001")
+                .items(items)
+                .subTotal(items.stream().mapToDouble(OrderItemEntity::getTotal).sum())
+                .gstRate(5.0)
+                .gstAmount(gstAmount)
+                .totalAmountWithGST(items.stream().mapToDouble(OrderItemEntity::getTotal).sum() + gstAmount)
+                .paymentMode("CARD")
+                .status(Status.DELIVERED)
+                .orderDate(LocalDateTime.of(2023, 6, 15, 14, 30, 45))
+                .build();
+    }
+
+    private OrderItemEntity item(String name, int quantity, double unitPrice, double total) {
+        return OrderItemEntity.builder().name(name).quantity(quantity).unitPrice(unitPrice).total(total).build();
+    }
+}
@@ -0,0 +1,127 @@
+package tech.realworks.yusuf.zaikabox.service.foodserviceimpl;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.realworks.yusuf.zaikabox.entity.FoodEntity;
+import tech.realworks.yusuf.zaikabox.io.FoodRequest;
+import tech.realworks.yusuf.zaikabox.io.FoodResponse;
+import tech.realworks.yusuf.zaikabox.repository.FoodRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FoodServiceImplTest {
+
+    private final FoodRepository foodRepository = mock(FoodRepository.class);
+    private final BlobContainerClient blobContainerClient = mock(BlobContainerClient.class);
+    private final BlobClient blobClient = mock(BlobClient.class);
+    private MenuSnapshotService menuSnapshotService;
+    private FoodServiceImpl foodService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<BlobContainerClient> blobContainerClientProvider = mock(ObjectProvider.class);
+        when(blobContainerClientProvider.getIfAvailable()).thenReturn(blobContainerClient);
+        when(blobContainerClient.getBlobClient(anyString())).thenReturn(blobClient);
+        when(blobClient.getBlobUrl()).thenReturn("https://blob.example/menu/dosa.png");
+        when(blobClient.exists()).thenReturn(true);
+
+        menuSnapshotService = new MenuSnapshotService(foodRepository, new ObjectMapper());
+        ReflectionTestUtils.setField(menuSnapshotService, "maxAgeSeconds", 300L);
+        foodService = new FoodServiceImpl(blobContainerClientProvider, foodRepository, menuSnapshotService);
+    }
+
+    @Test
+    void addFood_ShouldRebuildMenuSnapshot() {
+        // Arrange
+        FoodEntity saved = food("f1", "Masala Dosa");
+        when(foodRepository.findAll()).thenReturn(List.of()).thenReturn(List.of(saved));
+        when(foodRepository.save(any(FoodEntity.class))).thenReturn(saved);
+        String etagBefore = foodService.getMenuSnapshot().getEtag();
+
+        // Act
+        foodService.addFood(FoodRequest.builder().name("Masala Dosa").price(89.5).build(), image());
+
+        // Assert
+        assertNotEquals(etagBefore, foodService.getMenuSnapshot().getEtag());
+        assertEquals(List.of("Masala Dosa"), foodService.readFoods().stream().map(FoodResponse::getName).toList());
+    }
+
+    @Test
+    void addFood_ShouldSucceedWhenSnapshotRebuildFails() {
+        // Arrange
+        FoodEntity saved = food("f1", "Masala Dosa");
+        when(foodRepository.findAll())
+                .thenReturn(List.of())
+                .thenThrow(new IllegalStateException("Mongo unavailable"))
+                .thenReturn(List.of(saved));
+        when(foodRepository.save(any(FoodEntity.class))).thenReturn(saved);
+        foodService.getMenuSnapshot();
+
+        // Act
+        FoodResponse response = foodService.addFood(FoodRequest.builder().name("Masala Dosa").price(89.5).build(), image());
+
+        // Assert
+        assertEquals("f1", response.getId());
+        // The next read picks the change up
+        assertEquals(1, foodService.readFoods().size());
+    }
+
+    @Test
+    void deleteFood_ShouldRebuildMenuSnapshot() {
+        // Arrange
+        FoodEntity food = food("f1", "Masala Dosa");
+        when(foodRepository.findById("f1")).thenReturn(Optional.of(food));
+        when(foodRepository.findAll()).thenReturn(List.of(food)).thenReturn(List.of());
+        assertEquals(1, foodService.readFoods().size());
+
+        // Act
+        foodService.deleteFood("f1");
+
+        // Assert
+        verify(foodRepository).deleteById("f1");
+        assertTrue(foodService.readFoods().isEmpty());
+    }
+
+    @Test
+    void deleteFood_ShouldSucceedWhenSnapshotRebuildFails() {
+        // Arrange
+        FoodEntity food = food("f1", "Masala Dosa");
+        when(foodRepository.findById("f1")).thenReturn(Optional.of(food));
+        when(foodRepository.findAll())
+                .thenReturn(List.of(food))
+                .thenThrow(new IllegalStateException("Mongo unavailable"))
+                .thenReturn(List.of());
+        foodService.readFoods();
+
+        // Act & Assert
+        assertDoesNotThrow(() -> foodService.deleteFood("f1"));
+        verify(foodRepository).deleteById("f1");
+        assertTrue(foodService.readFoods().isEmpty());
+    }
+
+    private static MockMultipartFile image() {
+        return new MockMultipartFile("file", "dosa.png", "image/png", new byte[]{1, 2, 3});
+    }
+
+    private static FoodEntity food(String id, String name) {
+        return FoodEntity.builder()
+                .id(id)
+                .name(name)
+                .price(89.5)
+                .imageUrl("https://blob.example/menu/" + id + ".png")
+                .build();
+    }
+}
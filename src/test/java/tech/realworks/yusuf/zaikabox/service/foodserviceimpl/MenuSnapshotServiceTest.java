@@ -0,0 +1,134 @@
+package tech.realworks.yusuf.zaikabox.service.foodserviceimpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.realworks.yusuf.zaikabox.entity.FoodEntity;
+import tech.realworks.yusuf.zaikabox.repository.FoodRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MenuSnapshotServiceTest {
+
+    private final FoodRepository foodRepository = mock(FoodRepository.class);
+    private MenuSnapshotService menuSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        menuSnapshotService = new MenuSnapshotService(foodRepository, new ObjectMapper());
+        ReflectionTestUtils.setField(menuSnapshotService, "maxAgeSeconds", 300L);
+    }
+
+    @Test
+    void current_ShouldBuildOnceAndServeFromMemory() {
+        // Arrange
+        when(foodRepository.findAll()).thenReturn(List.of(food("f1", "Masala Dosa", 89.5)));
+
+        // Act
+        MenuSnapshot first = menuSnapshotService.current();
+        MenuSnapshot second = menuSnapshotService.current();
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, first.getFoods().size());
+        assertEquals("Masala Dosa", first.getFoods().get(0).getName());
+        verify(foodRepository, times(1)).findAll();
+    }
+
+    @Test
+    void current_ShouldHoldJsonPlainAndGzipped() throws IOException {
+        // Arrange
+        when(foodRepository.findAll()).thenReturn(List.of(food("f1", "Masala Dosa", 89.5)));
+
+        // Act
+        MenuSnapshot snapshot = menuSnapshotService.current();
+
+        // Assert
+        assertTrue(new String(snapshot.getJson()).contains("\"name\":\"Masala Dosa\""));
+        try (GZIPInputStream gunzip = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzipJson()))) {
+            assertArrayEquals(snapshot.getJson(), gunzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void rebuild_ShouldKeepEtagForSameContentAndChangeItForNewContent() {
+        // Arrange
+        when(foodRepository.findAll())
+                .thenReturn(List.of(food("f1", "Masala Dosa", 89.5)))
+                .thenReturn(List.of(food("f1", "Masala Dosa", 89.5)))
+                .thenReturn(List.of(food("f1", "Masala Dosa", 99.0)));
+
+        // Act
+        MenuSnapshot first = menuSnapshotService.current();
+        MenuSnapshot unchanged = menuSnapshotService.rebuild();
+        MenuSnapshot changed = menuSnapshotService.rebuild();
+
+        // Assert
+        assertEquals(first.getEtag(), unchanged.getEtag());
+        assertNotEquals(first.getEtag(), changed.getEtag());
+        assertTrue(changed.matches(changed.getEtag()));
+        assertTrue(changed.matches("\"other\", " + changed.getEtag().substring(2)));
+        assertFalse(changed.matches(first.getEtag()));
+    }
+
+    @Test
+    void refreshAfterChange_ShouldPublishNewSnapshot() {
+        // Arrange
+        when(foodRepository.findAll())
+                .thenReturn(List.of(food("f1", "Masala Dosa", 89.5)))
+                .thenReturn(List.of(food("f1", "Masala Dosa", 89.5), food("f2", "Idli", 40)));
+        menuSnapshotService.current();
+
+        // Act
+        menuSnapshotService.refreshAfterChange();
+
+        // Assert
+        assertEquals(2, menuSnapshotService.current().getFoods().size());
+    }
+
+    @Test
+    void refreshAfterChange_ShouldNotThrowAndRebuildOnNextRead() {
+        // Arrange
+        when(foodRepository.findAll())
+                .thenReturn(List.of(food("f1", "Masala Dosa", 89.5)))
+                .thenThrow(new IllegalStateException("Mongo unavailable"))
+                .thenReturn(List.of(food("f2", "Idli", 40)));
+        MenuSnapshot before = menuSnapshotService.current();
+
+        // Act
+        assertDoesNotThrow(() -> menuSnapshotService.refreshAfterChange());
+        MenuSnapshot after = menuSnapshotService.current();
+
+        // Assert
+        assertNotEquals(before.getEtag(), after.getEtag());
+        assertEquals("Idli", after.getFoods().get(0).getName());
+        verify(foodRepository, times(3)).findAll();
+    }
+
+    @Test
+    void current_ShouldKeepServingPreviousSnapshotWhenRefreshFails() {
+        // Arrange
+        ReflectionTestUtils.setField(menuSnapshotService, "maxAgeSeconds", 0L);
+        when(foodRepository.findAll())
+                .thenReturn(List.of(food("f1", "Masala Dosa", 89.5)))
+                .thenThrow(new IllegalStateException("Mongo unavailable"));
+        MenuSnapshot before = menuSnapshotService.current();
+
+        // Act
+        MenuSnapshot after = menuSnapshotService.current();
+
+        // Assert
+        assertSame(before, after);
+    }
+
+    private static FoodEntity food(String id, String name, double price) {
+        return FoodEntity.builder().id(id).name(name).price(price).category("South Indian").build();
+    }
+}
@@ -0,0 +1,142 @@
+package tech.realworks.yusuf.zaikabox.service.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.OutboxEventEntity;
+import tech.realworks.yusuf.zaikabox.entity.OutboxEventEntity.State;
+import tech.realworks.yusuf.zaikabox.entity.OutboxEventEntity.Type;
+import tech.realworks.yusuf.zaikabox.event.OrderLifecycleEvent;
+import tech.realworks.yusuf.zaikabox.service.CartService;
+import tech.realworks.yusuf.zaikabox.util.OrderNotificationPublisher;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxDispatcherTest {
+
+    private static final Instant CREATED_AT = Instant.parse("2025-03-01T10:00:00Z");
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CartService cartService = mock(CartService.class);
+    private final OrderNotificationPublisher orderNotificationPublisher = mock(OrderNotificationPublisher.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OutboxDispatcher outboxDispatcher = new OutboxDispatcher(mongoTemplate, cartService,
+            orderNotificationPublisher, eventPublisher, meterRegistry, 100, 1000, 30);
+
+    @Test
+    void dispatchBatch_ShouldRunHandlersAndMarkEventsDispatched() {
+        // Arrange
+        OrderEntity order = OrderEntity.builder().orderId("FD1").customerId("user1").build();
+        claim(List.of(event("FD1:ORDER_PAID", "FD1", CREATED_AT)), List.of());
+        when(mongoTemplate.find(any(Query.class), eq(OrderEntity.class))).thenReturn(List.of(order));
+
+        // Act
+        int claimed = outboxDispatcher.dispatchBatch();
+
+        // Assert
+        assertEquals(1, claimed);
+        verify(cartService).clearCart("user1");
+        verify(orderNotificationPublisher).notifyAdminNewOrder(order);
+        verify(orderNotificationPublisher).notifyUserOrderUpdate(order);
+        ArgumentCaptor<OrderLifecycleEvent> lifecycleEvent = ArgumentCaptor.forClass(OrderLifecycleEvent.class);
+        verify(eventPublisher).publishEvent(lifecycleEvent.capture());
+        assertEquals(OrderLifecycleEvent.OrderChange.CREATED, lifecycleEvent.getValue().getChange());
+        assertEquals(State.DISPATCHED, lastMultiUpdate().get("status"));
+        assertEquals(1.0, meterRegistry.counter("zaikabox.outbox.events", "type", "ORDER_PAID", "outcome", "dispatched").count());
+    }
+
+    @Test
+    void dispatchBatch_ShouldRetryFailedEventAndHoldLaterEventsOfSameOrder() {
+        // Arrange
+        OrderEntity order = OrderEntity.builder().orderId("FD1").customerId("user1").build();
+        claim(List.of(event("FD1:a", "FD1", CREATED_AT), event("FD1:b", "FD1", CREATED_AT.plusSeconds(1))), List.of());
+        when(mongoTemplate.find(any(Query.class), eq(OrderEntity.class))).thenReturn(List.of(order));
+        doThrow(new IllegalStateException("broker down")).when(orderNotificationPublisher).notifyAdminNewOrder(order);
+
+        // Act
+        outboxDispatcher.dispatchBatch();
+
+        // Assert
+        verify(cartService, times(1)).clearCart("user1");
+        ArgumentCaptor<Update> retry = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), retry.capture(), eq(OutboxEventEntity.class));
+        Document set = retry.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(State.PENDING, set.get("status"));
+        assertTrue(set.getString("lastError").contains("broker down"));
+        assertEquals(State.PENDING, lastMultiUpdate().get("status"));
+        assertEquals(1.0, meterRegistry.counter("zaikabox.outbox.events", "type", "ORDER_PAID", "outcome", "retried").count());
+    }
+
+    @Test
+    void dispatchBatch_ShouldWaitForOlderEventOfSameOrder() {
+        // Arrange
+        claim(List.of(event("FD1:b", "FD1", CREATED_AT)), List.of(event("FD1:a", "FD1", CREATED_AT.minusSeconds(1))));
+
+        // Act
+        outboxDispatcher.dispatchBatch();
+
+        // Assert
+        verifyNoInteractions(cartService, orderNotificationPublisher, eventPublisher);
+        assertEquals(State.PENDING, lastMultiUpdate().get("status"));
+    }
+
+    @Test
+    void dispatchBatch_ShouldDoNothingWhenNoEventIsDue() {
+        assertEquals(0, outboxDispatcher.dispatchBatch());
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(OutboxEventEntity.class));
+        verify(cartService, never()).clearCart(anyString());
+    }
+
+    @Test
+    void backoff_ShouldDoubleUpToCap() {
+        assertEquals(Duration.ofSeconds(1), outboxDispatcher.backoff(1));
+        assertEquals(Duration.ofSeconds(4), outboxDispatcher.backoff(3));
+        assertEquals(Duration.ofMinutes(10), outboxDispatcher.backoff(30));
+    }
+
+    /**
+     * Stub the due-event lookup, the claimed batch and the lookup of other unfinished events of the same orders
+     */
+    private void claim(List<OutboxEventEntity> claimed, List<OutboxEventEntity> others) {
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEventEntity.class)))
+                .thenReturn(claimed.stream().map(e -> OutboxEventEntity.builder().id(e.getId()).build()).toList())
+                .thenReturn(claimed)
+                .thenReturn(others);
+    }
+
+    private Document lastMultiUpdate() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).updateMulti(any(Query.class), update.capture(), eq(OutboxEventEntity.class));
+        List<Update> updates = update.getAllValues();
+        return updates.get(updates.size() - 1).getUpdateObject().get("$set", Document.class);
+    }
+
+    private OutboxEventEntity event(String id, String orderId, Instant createdAt) {
+        return OutboxEventEntity.builder()
+                .id(id)
+                .orderId(orderId)
+                .type(Type.ORDER_PAID)
+                .customerId("user1")
+                .clearCart(true)
+                .status(State.DISPATCHING)
+                .attempts(1)
+                .createdAt(createdAt)
+                .claimToken("token")
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofSeconds(30), clock::get);
+
+    @Test
+    void shouldOpenAfterConsecutiveFailures() {
+        fail(2);
+        circuitBreaker.onSuccess();
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void shouldLetOneTrialThroughAfterOpenDuration() {
+        // Arrange
+        fail(3);
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        // Act & Assert
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void shouldReopenWhenTrialFails() {
+        // Arrange
+        fail(3);
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(circuitBreaker.tryAcquire());
+
+        // Act
+        circuitBreaker.onFailure();
+
+        // Assert
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+        clock.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(circuitBreaker.tryAcquire());
+            circuitBreaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tech.realworks.yusuf.zaikabox.entity.PaymentRequestEntity;
+import tech.realworks.yusuf.zaikabox.service.BillingService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PaymentReconciliationServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BillingService billingService = mock(BillingService.class);
+    private final StubPaymentGateway paymentGateway = new StubPaymentGateway();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void sweep_ShouldCompleteRequestThatWasPaid() {
+        // Arrange
+        PaymentRequestEntity request = request("order_rzp_1", LocalDateTime.now().minusHours(1));
+        stubDue(request);
+        paymentGateway.paid("order_rzp_1", "pay_1");
+
+        // Act
+        int checked = service(100).sweep();
+
+        // Assert
+        assertEquals(1, checked);
+        verify(billingService).reconcilePayment("order_rzp_1", "pay_1");
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(PaymentRequestEntity.class));
+        assertEquals(1.0, meterRegistry.counter("zaikabox.payments.reconciled", "outcome", "paid").count());
+    }
+
+    @Test
+    void sweep_ShouldExpireRequestUnpaidPastExpiryWindow() {
+        // Arrange
+        PaymentRequestEntity request = request("order_rzp_1", LocalDateTime.now().minusDays(2));
+        stubDue(request);
+        paymentGateway.unpaid("order_rzp_1", "attempted");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PaymentRequestEntity.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // Act
+        service(100).sweep();
+
+        // Assert
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(PaymentRequestEntity.class));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals("EXPIRED", set.get("status"));
+        assertNotNull(set.get("closedAt"));
+        verify(billingService, never()).reconcilePayment(anyString(), anyString());
+        assertEquals(1.0, meterRegistry.counter("zaikabox.payments.reconciled", "outcome", "expired").count());
+    }
+
+    @Test
+    void sweep_ShouldLeaveRecentUnpaidRequestForLaterCheck() {
+        // Arrange
+        stubDue(request("order_rzp_1", LocalDateTime.now().minusHours(1)));
+        paymentGateway.unpaid("order_rzp_1", "created");
+
+        // Act
+        service(100).sweep();
+
+        // Assert
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(PaymentRequestEntity.class));
+        verify(billingService, never()).reconcilePayment(anyString(), anyString());
+        assertEquals(1.0, meterRegistry.counter("zaikabox.payments.reconciled", "outcome", "unpaid").count());
+    }
+
+    @Test
+    void sweep_ShouldSkipRequestClaimedByAnotherSweeper() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(PaymentRequestEntity.class)))
+                .thenReturn(List.of(request("order_rzp_1", LocalDateTime.now().minusHours(1))))
+                .thenReturn(List.of());
+
+        // Act
+        int checked = service(100).sweep();
+
+        // Assert
+        assertEquals(0, checked);
+        assertEquals(0, paymentGateway.fetches());
+    }
+
+    @Test
+    void sweep_ShouldStopWhenGatewayBudgetRunsOut() {
+        // Arrange
+        PaymentRequestEntity first = request("order_rzp_1", LocalDateTime.now().minusHours(3));
+        PaymentRequestEntity second = request("order_rzp_2", LocalDateTime.now().minusHours(2));
+        when(mongoTemplate.find(any(Query.class), eq(PaymentRequestEntity.class))).thenReturn(List.of(first, second));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRequestEntity.class))).thenReturn(first, second);
+        paymentGateway.unpaid("order_rzp_1", "created").unpaid("order_rzp_2", "created");
+
+        // Act
+        int checked = service(0.001).sweep();
+
+        // Assert
+        assertEquals(1, checked);
+        assertEquals(1, paymentGateway.fetches());
+    }
+
+    @Test
+    void sweep_ShouldCountGatewayFailuresAndCarryOn() {
+        // Arrange
+        stubDue(request("order_rzp_unknown", LocalDateTime.now().minusHours(1)));
+
+        // Act
+        int checked = service(100).sweep();
+
+        // Assert
+        assertEquals(1, checked);
+        assertEquals(1.0, meterRegistry.counter("zaikabox.payments.reconciled", "outcome", "failed").count());
+    }
+
+    @Test
+    void sweep_ShouldPaceGatewayCallsWithinTimeBudget() {
+        // Arrange
+        List<PaymentRequestEntity> requests = List.of(
+                request("order_rzp_1", LocalDateTime.now().minusHours(5)),
+                request("order_rzp_2", LocalDateTime.now().minusHours(4)),
+                request("order_rzp_3", LocalDateTime.now().minusHours(3)),
+                request("order_rzp_4", LocalDateTime.now().minusHours(2)),
+                request("order_rzp_5", LocalDateTime.now().minusHours(1)));
+        when(mongoTemplate.find(any(Query.class), eq(PaymentRequestEntity.class))).thenReturn(requests, List.of());
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRequestEntity.class))).thenReturn(requests.get(0), requests.subList(1, 5).toArray(new PaymentRequestEntity[0]));
+        requests.forEach(request -> paymentGateway.unpaid(request.getRazorpayOrderId(), "created"));
+
+        // Act
+        long started = System.nanoTime();
+        int checked = service(20, 10).sweep();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // Assert
+        // No stored permits at 20 calls/s, so the later calls wait their turn instead of ending the sweep
+        assertEquals(5, checked);
+        assertEquals(5, paymentGateway.fetches());
+        assertTrue(elapsedMillis >= 150, "calls were not paced: " + elapsedMillis + "ms");
+    }
+
+    private PaymentReconciliationService service(double gatewayCallsPerSecond) {
+        return service(gatewayCallsPerSecond, 1);
+    }
+
+    private PaymentReconciliationService service(double gatewayCallsPerSecond, long sweepBudgetSeconds) {
+        return new PaymentReconciliationService(mongoTemplate, paymentGateway, billingService, meterRegistry,
+                gatewayCallsPerSecond, 50, 200, 30, 24, 15, sweepBudgetSeconds);
+    }
+
+    /**
+     * One due request on the first page, claimed successfully, and nothing after it
+     */
+    private void stubDue(PaymentRequestEntity request) {
+        when(mongoTemplate.find(any(Query.class), eq(PaymentRequestEntity.class))).thenReturn(List.of(request), List.of());
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRequestEntity.class))).thenReturn(request);
+    }
+
+    private PaymentRequestEntity request(String razorpayOrderId, LocalDateTime createdAt) {
+        return PaymentRequestEntity.builder()
+                .id("pr-" + razorpayOrderId)
+                .orderId("FD1")
+                .razorpayOrderId(razorpayOrderId)
+                .status("PENDING")
+                .createdAt(createdAt)
+                .build();
+    }
+}
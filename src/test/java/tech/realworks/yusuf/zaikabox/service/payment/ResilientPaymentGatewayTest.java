@@ -0,0 +1,116 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+import com.razorpay.RazorpayException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ResilientPaymentGatewayTest {
+
+    private final PaymentGateway backend = mock(PaymentGateway.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ResilientPaymentGateway gateway =
+            new ResilientPaymentGateway(backend, meterRegistry, 200, 2, new CircuitBreaker(2, Duration.ofMinutes(1)));
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        gateway.shutdown();
+    }
+
+    @Test
+    void createOrder_ShouldReturnBackendOrderAndTimeCall() throws RazorpayException {
+        // Arrange
+        GatewayOrder order = GatewayOrder.builder().id("order_rzp_1").status("created").build();
+        when(backend.createOrder(31500, "INR", "FD1")).thenReturn(order);
+
+        // Act
+        GatewayOrder created = gateway.createOrder(31500, "INR", "FD1");
+
+        // Assert
+        assertSame(order, created);
+        assertEquals(1, meterRegistry.timer("zaikabox.payments.gateway.calls",
+                "operation", "create_order", "outcome", "success").count());
+    }
+
+    @Test
+    void fetchOrder_ShouldGiveUpOnSlowBackend() throws RazorpayException {
+        // Arrange
+        when(backend.fetchOrder(anyString())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+
+        // Act & Assert
+        assertThrows(PaymentGatewayUnavailableException.class, () -> gateway.fetchOrder("order_rzp_1"));
+        assertEquals(1, meterRegistry.timer("zaikabox.payments.gateway.calls",
+                "operation", "fetch_order", "outcome", "timeout").count());
+    }
+
+    @Test
+    void fetchOrder_ShouldFailFastOnceCircuitIsOpen() throws RazorpayException {
+        // Arrange
+        when(backend.fetchOrder(anyString())).thenThrow(new RazorpayException("Network error"));
+
+        // Act
+        assertThrows(RazorpayException.class, () -> gateway.fetchOrder("order_rzp_1"));
+        assertThrows(RazorpayException.class, () -> gateway.fetchOrder("order_rzp_1"));
+
+        // Assert
+        assertThrows(PaymentGatewayUnavailableException.class, () -> gateway.fetchOrder("order_rzp_1"));
+        verify(backend, times(2)).fetchOrder("order_rzp_1");
+        assertEquals(CircuitBreaker.State.OPEN, gateway.circuitState());
+    }
+
+    @Test
+    void fetchOrder_ShouldNotTripCircuitOnRejectedRequest() throws RazorpayException {
+        // Arrange
+        when(backend.fetchOrder(anyString())).thenThrow(new RazorpayException("BAD_REQUEST_ERROR:The id provided does not exist"));
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RazorpayException.class, () -> gateway.fetchOrder("order_unknown"));
+        }
+
+        // Assert
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.circuitState());
+        verify(backend, times(3)).fetchOrder("order_unknown");
+    }
+
+    @Test
+    void fetchOrder_ShouldRejectCallsBeyondBulkhead() throws Exception {
+        // Arrange
+        gateway.shutdown();
+        gateway = new ResilientPaymentGateway(backend, meterRegistry, 5000, 1, new CircuitBreaker(2, Duration.ofMinutes(1)));
+        CountDownLatch started = new CountDownLatch(1);
+        when(backend.fetchOrder("order_slow")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return GatewayOrder.builder().id("order_slow").status("paid").build();
+        });
+        Thread slowCall = new Thread(() -> {
+            try {
+                gateway.fetchOrder("order_slow");
+            } catch (RazorpayException ignored) {
+            }
+        });
+        slowCall.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act & Assert
+        assertThrows(PaymentGatewayUnavailableException.class, () -> gateway.fetchOrder("order_rzp_1"));
+        verify(backend, never()).fetchOrder("order_rzp_1");
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.circuitState());
+        release.countDown();
+        slowCall.join(5000);
+    }
+}
@@ -0,0 +1,46 @@
+package tech.realworks.yusuf.zaikabox.service.payment;
+
+import com.razorpay.RazorpayException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory {@link PaymentGateway} for tests; orders it was not told about fail like an unknown ID would.
+ */
+class StubPaymentGateway implements PaymentGateway {
+
+    private final Map<String, GatewayOrder> orders = new HashMap<>();
+    private int fetches;
+
+    StubPaymentGateway paid(String razorpayOrderId, String paymentId) {
+        orders.put(razorpayOrderId, GatewayOrder.builder().id(razorpayOrderId).status("paid").capturedPaymentId(paymentId).build());
+        return this;
+    }
+
+    StubPaymentGateway unpaid(String razorpayOrderId, String status) {
+        orders.put(razorpayOrderId, GatewayOrder.builder().id(razorpayOrderId).status(status).build());
+        return this;
+    }
+
+    int fetches() {
+        return fetches;
+    }
+
+    @Override
+    public GatewayOrder createOrder(long amountPaise, String currency, String receipt) {
+        GatewayOrder order = GatewayOrder.builder().id("order_" + receipt).status("created").build();
+        orders.put(order.getId(), order);
+        return order;
+    }
+
+    @Override
+    public GatewayOrder fetchOrder(String razorpayOrderId) throws RazorpayException {
+        fetches++;
+        GatewayOrder order = orders.get(razorpayOrderId);
+        if (order == null) {
+            throw new RazorpayException("BAD_REQUEST_ERROR:The id provided does not exist");
+        }
+        return order;
+    }
+}
@@ -0,0 +1,90 @@
+package tech.realworks.yusuf.zaikabox.service.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+
+    private static final int[] RATES = {0, 500, 1200, 1800, 2800};
+
+    @Test
+    void totals_ShouldMatchExactDecimalArithmetic() {
+        // Arrange
+        Random random = new Random(42);
+        PricingEngine engine = new PricingEngine();
+
+        for (int order = 0; order < 1_000; order++) {
+            engine.reset();
+            BigDecimal subTotal = BigDecimal.ZERO;
+            BigDecimal gst = BigDecimal.ZERO;
+
+            // Act
+            int lines = 1 + random.nextInt(50);
+            for (int i = 0; i < lines; i++) {
+                long unitPricePaise = random.nextInt(200_000);
+                int quantity = 1 + random.nextInt(20);
+                int rate = RATES[random.nextInt(RATES.length)];
+                engine.addLine(unitPricePaise, quantity, rate);
+
+                BigDecimal line = BigDecimal.valueOf(unitPricePaise).multiply(BigDecimal.valueOf(quantity));
+                subTotal = subTotal.add(line);
+                gst = gst.add(line.multiply(BigDecimal.valueOf(rate)).movePointLeft(4));
+            }
+            OrderTotals totals = engine.totals();
+
+            // Assert
+            long expectedGst = gst.setScale(0, RoundingMode.HALF_UP).longValueExact();
+            assertEquals(subTotal.longValueExact(), totals.getSubTotalPaise());
+            assertEquals(expectedGst, totals.getGstPaise());
+            assertEquals(subTotal.longValueExact() + expectedGst, totals.getTotalPaise());
+        }
+    }
+
+    @Test
+    void gstPaise_ShouldRoundHalfUpOnceForWholeOrder() {
+        PricingEngine engine = new PricingEngine();
+
+        // 0.10 at 5% is half a paisa
+        engine.addLine(10, 1, 500);
+        assertEquals(1, engine.gstPaise());
+
+        // Two such lines are exactly one paisa, not two rounded halves
+        engine.addLine(10, 1, 500);
+        assertEquals(1, engine.gstPaise());
+        assertEquals(21, engine.totalPaise());
+    }
+
+    @Test
+    void effectiveGstBasisPoints_ShouldBeLineRateWhenAllLinesShareIt() {
+        PricingEngine engine = new PricingEngine();
+        engine.addLine(1999, 3, 1800);
+        engine.addLine(4550, 1, 1800);
+
+        assertEquals(1800, engine.effectiveGstBasisPoints());
+        assertEquals(18.0, engine.totals().getGstRate());
+        assertEquals(0, new PricingEngine().effectiveGstBasisPoints());
+    }
+
+    @Test
+    void addLine_ShouldRejectOverflowAndNegativeQuantity() {
+        PricingEngine engine = new PricingEngine();
+
+        assertThrows(ArithmeticException.class, () -> engine.addLine(Long.MAX_VALUE / 2, 3, 500));
+        assertThrows(IllegalArgumentException.class, () -> engine.addLine(100, -1, 500));
+    }
+
+    @Test
+    void toPaise_ShouldRoundCataloguePricesToNearestPaisa() {
+        assertEquals(1999, PricingEngine.toPaise(19.99));
+        assertEquals(3, PricingEngine.toPaise(0.1 + 0.2 - 0.27));
+        assertEquals(0, PricingEngine.toPaise(0.0));
+        assertThrows(IllegalArgumentException.class, () -> PricingEngine.toPaise(-1));
+        assertThrows(IllegalArgumentException.class, () -> PricingEngine.toPaise(Double.NaN));
+        assertEquals(19.99, PricingEngine.toRupees(1999));
+    }
+}
@@ -0,0 +1,37 @@
+package tech.realworks.yusuf.zaikabox.service.ratelimit;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the shared counter store, so several backends can act as separate replicas in one test.
+ */
+class InMemoryCounterStore implements CounterStore {
+
+    private final Map<String, Long> counters = new ConcurrentHashMap<>();
+    final AtomicInteger writes = new AtomicInteger();
+
+    @Override
+    public void incrementAll(List<Increment> increments) {
+        writes.incrementAndGet();
+        for (Increment increment : increments) {
+            counters.merge(increment.getCounterId(), increment.getDelta(), Long::sum);
+        }
+    }
+
+    @Override
+    public Map<String, Long> fetchAll(Collection<String> counterIds) {
+        Map<String, Long> totals = new HashMap<>();
+        for (String counterId : counterIds) {
+            Long count = counters.get(counterId);
+            if (count != null) {
+                totals.put(counterId, count);
+            }
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,60 @@
+package tech.realworks.yusuf.zaikabox.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import tech.realworks.yusuf.zaikabox.config.RateLimitProperties;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRateLimiterBackendTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final InMemoryRateLimiterBackend backend = new InMemoryRateLimiterBackend(clock::get);
+
+    private RateLimitProperties.Policy policy(int capacity, Duration refillPeriod) {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setCapacity(capacity);
+        policy.setRefillPeriod(refillPeriod);
+        return policy;
+    }
+
+    @Test
+    void shouldBlockAfterLimitIsReached() {
+        RateLimitProperties.Policy policy = policy(30, Duration.ofMinutes(1));
+        String key = "ip:127.0.0.1";
+        for (int i = 0; i < 30; i++) {
+            assertTrue(backend.tryConsume("auth", policy, key).isAllowed());
+        }
+        RateLimitDecision rejected = backend.tryConsume("auth", policy, key);
+        assertFalse(rejected.isAllowed());
+        assertEquals(0, rejected.getRemaining());
+        assertEquals(TimeUnit.SECONDS.toNanos(2), rejected.getRetryAfterNanos());
+    }
+
+    @Test
+    void shouldRefillContinuouslyInsteadOfAtWindowBoundary() {
+        RateLimitProperties.Policy policy = policy(10, Duration.ofSeconds(10));
+        String key = "user:user123";
+        for (int i = 0; i < 10; i++) {
+            assertTrue(backend.tryConsume("orders", policy, key).isAllowed());
+        }
+        assertFalse(backend.tryConsume("orders", policy, key).isAllowed());
+
+        // One token per second comes back, never a whole new window at once
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(backend.tryConsume("orders", policy, key).isAllowed());
+        assertFalse(backend.tryConsume("orders", policy, key).isAllowed());
+    }
+
+    @Test
+    void shouldKeepSeparateBucketsPerPolicyAndClient() {
+        RateLimitProperties.Policy policy = policy(1, Duration.ofMinutes(1));
+        assertTrue(backend.tryConsume("auth", policy, "ip:10.0.0.1").isAllowed());
+        assertFalse(backend.tryConsume("auth", policy, "ip:10.0.0.1").isAllowed());
+        assertTrue(backend.tryConsume("auth", policy, "ip:10.0.0.2").isAllowed());
+        assertTrue(backend.tryConsume("payment-verify", policy, "ip:10.0.0.1").isAllowed());
+    }
+}
@@ -0,0 +1,161 @@
+package tech.realworks.yusuf.zaikabox.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.realworks.yusuf.zaikabox.config.RateLimitProperties;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedRateLimiterBackendTest {
+
+    // Aligned on a window start so the previous window carries full weight only where a test sets it up
+    private final AtomicLong clock = new AtomicLong(60_000L * 1_000);
+    private final InMemoryCounterStore counterStore = new InMemoryCounterStore();
+    private final SharedRateLimiterBackend nodeA = new SharedRateLimiterBackend(counterStore, clock::get);
+    private final SharedRateLimiterBackend nodeB = new SharedRateLimiterBackend(counterStore, clock::get);
+
+    private final RateLimitProperties.Policy policy = policy(10, Duration.ofMinutes(1));
+
+    private RateLimitProperties.Policy policy(int capacity, Duration refillPeriod) {
+        RateLimitProperties.Policy policy = new RateLimitProperties.Policy();
+        policy.setCapacity(capacity);
+        policy.setRefillPeriod(refillPeriod);
+        return policy;
+    }
+
+    @Test
+    void shouldEnforceOneLimitAcrossNodesAfterSync() {
+        for (int i = 0; i < 6; i++) {
+            assertTrue(nodeA.tryConsume("orders", policy, "user:user123").isAllowed());
+        }
+        nodeA.sync();
+
+        // Node B has not seen this key yet, so it counts locally until its next sync
+        for (int i = 0; i < 4; i++) {
+            assertTrue(nodeB.tryConsume("orders", policy, "user:user123").isAllowed());
+        }
+        nodeB.sync();
+        assertFalse(nodeB.tryConsume("orders", policy, "user:user123").isAllowed());
+
+        nodeA.sync();
+        assertFalse(nodeA.tryConsume("orders", policy, "user:user123").isAllowed());
+    }
+
+    @Test
+    void shouldBatchWritesPerSyncInsteadOfPerRequest() {
+        for (int i = 0; i < 10; i++) {
+            nodeA.tryConsume("orders", policy, "user:user" + i);
+        }
+        assertEquals(0, counterStore.writes.get());
+
+        nodeA.sync();
+        assertEquals(1, counterStore.writes.get());
+    }
+
+    @Test
+    void shouldWeighPreviousWindowBySlidingOverlap() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(nodeA.tryConsume("orders", policy, "ip:10.0.0.1").isAllowed());
+        }
+        assertFalse(nodeA.tryConsume("orders", policy, "ip:10.0.0.1").isAllowed());
+        nodeA.sync();
+
+        // Half-way through the next window the previous one still counts for 5 requests
+        clock.addAndGet(Duration.ofSeconds(90).toMillis());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(nodeA.tryConsume("orders", policy, "ip:10.0.0.1").isAllowed());
+        }
+        RateLimitDecision rejected = nodeA.tryConsume("orders", policy, "ip:10.0.0.1");
+        assertFalse(rejected.isAllowed());
+        assertTrue(rejected.getRetryAfterNanos() > 0);
+    }
+
+    @Test
+    void shouldKeepCountingLocallyWhenStoreIsUnavailable() {
+        SharedRateLimiterBackend isolated = new SharedRateLimiterBackend(unavailableStore(), clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(isolated.tryConsume("orders", policy, "ip:10.0.0.1").isAllowed());
+        }
+        isolated.sync();
+        assertFalse(isolated.tryConsume("orders", policy, "ip:10.0.0.1").isAllowed());
+    }
+
+    @Test
+    void shouldEvictExpiredWindowsWhileStoreIsUnavailable() {
+        SharedRateLimiterBackend isolated = new SharedRateLimiterBackend(unavailableStore(), clock::get);
+        isolated.tryConsume("orders", policy, "ip:10.0.0.1");
+        isolated.sync();
+
+        // Both windows of the first key have ended; the second key keeps the flush failing
+        clock.addAndGet(Duration.ofMinutes(3).toMillis());
+        isolated.tryConsume("orders", policy, "ip:10.0.0.2");
+        isolated.sync();
+
+        @SuppressWarnings("unchecked")
+        Map<String, ?> windows = (Map<String, ?>) ReflectionTestUtils.getField(isolated, "windows");
+        assertNotNull(windows);
+        assertTrue(windows.keySet().stream().noneMatch(id -> id.contains("10.0.0.1")));
+        assertEquals(2, windows.size());
+    }
+
+    @Test
+    void shouldHoldLimitWhileFlushIsInFlight() throws InterruptedException {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch storeResponds = new CountDownLatch(1);
+        SharedRateLimiterBackend slowNode = new SharedRateLimiterBackend(new CounterStore() {
+            @Override
+            public void incrementAll(List<Increment> increments) {
+                flushing.countDown();
+                try {
+                    storeResponds.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                counterStore.incrementAll(increments);
+            }
+
+            @Override
+            public Map<String, Long> fetchAll(Collection<String> counterIds) {
+                return counterStore.fetchAll(counterIds);
+            }
+        }, clock::get);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(slowNode.tryConsume("orders", policy, "ip:10.0.0.1").isAllowed());
+        }
+
+        Thread sync = new Thread(slowNode::sync);
+        sync.start();
+        try {
+            assertTrue(flushing.await(5, TimeUnit.SECONDS));
+            assertFalse(slowNode.tryConsume("orders", policy, "ip:10.0.0.1").isAllowed());
+        } finally {
+            storeResponds.countDown();
+            sync.join(5000);
+        }
+        assertFalse(sync.isAlive());
+        assertFalse(slowNode.tryConsume("orders", policy, "ip:10.0.0.1").isAllowed());
+    }
+
+    private static CounterStore unavailableStore() {
+        return new CounterStore() {
+            @Override
+            public void incrementAll(List<Increment> increments) {
+                throw new IllegalStateException("store down");
+            }
+
+            @Override
+            public Map<String, Long> fetchAll(Collection<String> counterIds) {
+                throw new IllegalStateException("store down");
+            }
+        };
+    }
+}
@@ -0,0 +1,78 @@
+package tech.realworks.yusuf.zaikabox.service.userservice;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.realworks.yusuf.zaikabox.entity.TokenRevocationEntity;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tokenRevocationService, "statelessEnabled", true);
+    }
+
+    @Test
+    void revokeTokens_ShouldRejectTokensIssuedBeforeButNotAfter() {
+        // Act
+        tokenRevocationService.revokeTokens("user123");
+
+        // Assert
+        assertTrue(tokenRevocationService.isRevoked("user123", Instant.now().minusSeconds(60)));
+        assertFalse(tokenRevocationService.isRevoked("user123", Instant.now().plusSeconds(2)));
+        assertFalse(tokenRevocationService.isRevoked("otherUser", Instant.now().minusSeconds(60)));
+        verify(mongoTemplate).upsert(any(Query.class), any(UpdateDefinition.class), eq(TokenRevocationEntity.class));
+    }
+
+    @Test
+    void revokeTokens_ShouldAcceptTokenIssuedLaterInTheSameSecond() throws InterruptedException {
+        // Arrange
+        tokenRevocationService.revokeTokens("user123");
+        Thread.sleep(5);
+
+        // Act
+        Instant loggedInAgain = Instant.now();
+
+        // Assert
+        assertFalse(tokenRevocationService.isRevoked("user123", loggedInAgain));
+        // A token without the millisecond claim only has iat, rounded down, so it stays rejected
+        assertTrue(tokenRevocationService.isRevoked("user123", Instant.ofEpochSecond(loggedInAgain.getEpochSecond() - 1)));
+    }
+
+    @Test
+    void syncRevocations_ShouldApplyCutOffsWrittenByOtherReplicas() {
+        // Arrange
+        long cutOff = Instant.now().toEpochMilli();
+        when(mongoTemplate.find(any(Query.class), eq(TokenRevocationEntity.class))).thenReturn(List.of(
+                new TokenRevocationEntity("user456", cutOff, Instant.now())));
+
+        // Act
+        tokenRevocationService.syncRevocations();
+
+        // Assert
+        assertTrue(tokenRevocationService.isRevoked("user456", Instant.ofEpochMilli(cutOff - 10)));
+        assertFalse(tokenRevocationService.isRevoked("user456", Instant.ofEpochMilli(cutOff + 10)));
+    }
+}
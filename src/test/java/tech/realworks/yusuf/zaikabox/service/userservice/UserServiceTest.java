@@ -97,5 +97,18 @@ class UserServiceTest {
         verify(userRepository).findByEmail(email);
     }
 
+    @Test
+    void findByUserId_WhenPrincipalCarriesUserId_ShouldNotQueryRepository() {
+        // Arrange
+        when(authenticationFacade.getCurrentUserId()).thenReturn(Optional.of("1234"));
+
+        // Act
+        String userId = userService.findByUserId();
+
+        // Assert
+        assertEquals("1234", userId);
+        verifyNoInteractions(userRepository);
+    }
+
 
 }
@@ -0,0 +1,228 @@
+package tech.realworks.yusuf.zaikabox.service.webhook;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tech.realworks.yusuf.zaikabox.entity.OrderEntity;
+import tech.realworks.yusuf.zaikabox.entity.WebhookEventEntity;
+import tech.realworks.yusuf.zaikabox.entity.WebhookEventEntity.State;
+import tech.realworks.yusuf.zaikabox.repository.CartRepository;
+import tech.realworks.yusuf.zaikabox.repository.OrderRepository;
+import tech.realworks.yusuf.zaikabox.repository.PaymentRequestRepository;
+import tech.realworks.yusuf.zaikabox.service.BillingService;
+import tech.realworks.yusuf.zaikabox.service.BillingServiceImpl;
+import tech.realworks.yusuf.zaikabox.service.OrderPricingService;
+import tech.realworks.yusuf.zaikabox.service.bill.PdfBillCache;
+import tech.realworks.yusuf.zaikabox.service.bill.TextBillRenderer;
+import tech.realworks.yusuf.zaikabox.service.outbox.OutboxService;
+import tech.realworks.yusuf.zaikabox.service.payment.PaymentGateway;
+import tech.realworks.yusuf.zaikabox.service.userservice.UserService;
+import tech.realworks.yusuf.zaikabox.util.OrderIdGenerator;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class WebhookInboxServiceTest {
+
+    private static final String PAYLOAD = "{\"event\":\"payment.captured\",\"payload\":{}}";
+
+    // As Razorpay sends it: payment.captured has no payload.order
+    private static final String CAPTURED_PAYLOAD = """
+            {"entity":"event","account_id":"acc_BFQ7uQEaa7j2z7","event":"payment.captured","contains":["payment"],
+             "payload":{"payment":{"entity":{"id":"pay_DESlfW9H8K9uqM","entity":"payment","amount":100,
+             "currency":"INR","status":"captured","order_id":"order_DESlLckIVRkHWj","invoice_id":null,
+             "international":false,"method":"netbanking","amount_refunded":0,"refund_status":null,"captured":true,
+             "description":null,"card_id":null,"bank":"HDFC","wallet":null,"vpa":null,
+             "email":"gaurav.kumar@example.com","contact":"+919876543210","notes":[],"fee":2,"tax":0,
+             "error_code":null,"error_description":null,"created_at":1567674599}}},"created_at":1567674606}
+            """;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BillingService billingService = mock(BillingService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebhookInboxService webhookInboxService =
+            new WebhookInboxService(mongoTemplate, billingService, meterRegistry, 1, 10, 3, 1000, 60);
+
+    @AfterEach
+    void tearDown() {
+        webhookInboxService.shutdown();
+    }
+
+    @Test
+    void receive_ShouldStoreVerifiedEventUnderItsId() {
+        // Arrange
+        when(billingService.isValidWebhookSignature(PAYLOAD, "sig")).thenReturn(true);
+
+        // Act
+        webhookInboxService.receive("evt_1", PAYLOAD, "sig");
+
+        // Assert
+        ArgumentCaptor<WebhookEventEntity> event = ArgumentCaptor.forClass(WebhookEventEntity.class);
+        verify(mongoTemplate).insert(event.capture());
+        assertEquals("evt_1", event.getValue().getId());
+        assertEquals("payment.captured", event.getValue().getEvent());
+        assertEquals(State.PENDING, event.getValue().getStatus());
+        assertEquals(PAYLOAD, event.getValue().getPayload());
+        verify(billingService, never()).processWebhook(anyString(), anyString());
+        assertEquals(1.0, meterRegistry.counter("zaikabox.webhooks.events", "outcome", "received").count());
+    }
+
+    @Test
+    void receive_ShouldDropRedeliveredEvent() {
+        // Arrange
+        when(billingService.isValidWebhookSignature(PAYLOAD, "sig")).thenReturn(true);
+        when(mongoTemplate.insert(any(WebhookEventEntity.class))).thenThrow(new DuplicateKeyException("duplicate"));
+
+        // Act
+        webhookInboxService.receive(null, PAYLOAD, "sig");
+
+        // Assert
+        assertEquals(1.0, meterRegistry.counter("zaikabox.webhooks.events", "outcome", "duplicate").count());
+        assertEquals(0.0, meterRegistry.counter("zaikabox.webhooks.events", "outcome", "received").count());
+    }
+
+    @Test
+    void receive_ShouldRejectInvalidSignatureWithoutStoring() {
+        when(billingService.isValidWebhookSignature(PAYLOAD, "forged")).thenReturn(false);
+
+        assertThrows(SecurityException.class, () -> webhookInboxService.receive("evt_1", PAYLOAD, "forged"));
+        verify(mongoTemplate, never()).insert(any(WebhookEventEntity.class));
+    }
+
+    @Test
+    void process_ShouldMarkEventProcessed() {
+        // Arrange
+        claim(event(1));
+
+        // Act
+        webhookInboxService.process("evt_1");
+
+        // Assert
+        verify(billingService).processWebhook(PAYLOAD, "sig");
+        assertEquals(State.PROCESSED, recordedUpdate().getUpdateObject().get("$set", Document.class).get("status"));
+    }
+
+    @Test
+    void process_ShouldScheduleRetryWithBackoff() {
+        // Arrange
+        claim(event(2));
+        doThrow(new DataAccessResourceFailureException("Mongo unavailable")).when(billingService).processWebhook(PAYLOAD, "sig");
+
+        // Act
+        webhookInboxService.process("evt_1");
+
+        // Assert
+        Document set = recordedUpdate().getUpdateObject().get("$set", Document.class);
+        assertEquals(State.PENDING, set.get("status"));
+        assertTrue(set.getString("lastError").contains("Mongo unavailable"));
+        assertEquals(Duration.ofSeconds(2), webhookInboxService.backoff(2));
+    }
+
+    @Test
+    void process_ShouldParkEventAsDeadAfterLastAttempt() {
+        // Arrange
+        claim(event(3));
+        doThrow(new IllegalStateException("boom")).when(billingService).processWebhook(PAYLOAD, "sig");
+
+        // Act
+        webhookInboxService.process("evt_1");
+
+        // Assert
+        assertEquals(State.DEAD, recordedUpdate().getUpdateObject().get("$set", Document.class).get("status"));
+        assertEquals(1.0, meterRegistry.counter("zaikabox.webhooks.events", "outcome", "dead").count());
+    }
+
+    @Test
+    void process_ShouldParkEventThatCannotSucceedWithoutRetrying() {
+        // Arrange
+        claim(event(1));
+        doThrow(new NoSuchElementException("Payment Request not found")).when(billingService).processWebhook(PAYLOAD, "sig");
+
+        // Act
+        webhookInboxService.process("evt_1");
+
+        // Assert
+        Document set = recordedUpdate().getUpdateObject().get("$set", Document.class);
+        assertEquals(State.DEAD, set.get("status"));
+        assertTrue(set.getString("lastError").contains("Payment Request not found"));
+        assertEquals(0.0, meterRegistry.counter("zaikabox.webhooks.events", "outcome", "retried").count());
+    }
+
+    @Test
+    void process_ShouldCompletePaymentFromCapturedEventWithoutOrderObject() {
+        // Arrange
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        BillingServiceImpl billing = new BillingServiceImpl(orderRepository, mock(OrderPricingService.class),
+                mock(CartRepository.class), mock(PaymentRequestRepository.class), mock(UserService.class),
+                mock(PaymentGateway.class), mock(ApplicationEventPublisher.class), mock(OrderIdGenerator.class),
+                mongoTemplate, mock(PdfBillCache.class), mock(TextBillRenderer.class), mock(OutboxService.class));
+        WebhookInboxService inbox = new WebhookInboxService(mongoTemplate, billing, meterRegistry, 1, 10, 3, 1000, 60);
+        WebhookEventEntity event = event(1);
+        event.setPayload(CAPTURED_PAYLOAD);
+        claim(event);
+        // Another caller already created the order, so this delivery only has to find it
+        when(orderRepository.findByRazorpayOrderId("order_DESlLckIVRkHWj"))
+                .thenReturn(Optional.of(OrderEntity.builder().orderId("FD12345").razorpayOrderId("order_DESlLckIVRkHWj").build()));
+
+        try {
+            // Act
+            inbox.process("evt_1");
+        } finally {
+            inbox.shutdown();
+        }
+
+        // Assert
+        verify(orderRepository).findByRazorpayOrderId("order_DESlLckIVRkHWj");
+        assertEquals(State.PROCESSED, recordedUpdate().getUpdateObject().get("$set", Document.class).get("status"));
+    }
+
+    @Test
+    void process_ShouldSkipEventClaimedElsewhere() {
+        // Act
+        webhookInboxService.process("evt_1");
+
+        // Assert
+        verify(billingService, never()).processWebhook(anyString(), anyString());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(WebhookEventEntity.class));
+    }
+
+    private void claim(WebhookEventEntity event) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(WebhookEventEntity.class))).thenReturn(event);
+    }
+
+    private Update recordedUpdate() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(WebhookEventEntity.class));
+        return update.getValue();
+    }
+
+    private WebhookEventEntity event(int attempts) {
+        return WebhookEventEntity.builder()
+                .id("evt_1")
+                .event("payment.captured")
+                .payload(PAYLOAD)
+                .signature("sig")
+                .status(State.PROCESSING)
+                .attempts(attempts)
+                .lockedUntil(Instant.now().plusSeconds(60))
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package tech.realworks.yusuf.zaikabox.util;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.realworks.yusuf.zaikabox.entity.Role;
+import tech.realworks.yusuf.zaikabox.service.userservice.AuthenticatedUser;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "c3VwZXJzZWNyZXQxMjM0NTY3ODkwMTIzNDU2Nzg5MDEyMzQ1Njc4OTA=";
+
+    private JwtUtil jwtUtil;
+    private AuthenticatedUser user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxTtlSeconds", 300L);
+        jwtUtil.init();
+
+        user = new AuthenticatedUser("user123", "user@example.com", "secret", Role.CUSTOMER);
+    }
+
+    @Test
+    void parseAndValidate_ShouldExposeClaimsWrittenByGenerateToken() {
+        // Arrange
+        String token = jwtUtil.generateToken(user);
+
+        // Act
+        VerifiedJwt verified = jwtUtil.parseAndValidate(token);
+
+        // Assert
+        assertEquals("user@example.com", verified.getSubject());
+        assertEquals("user123", verified.getUserId());
+        assertEquals("CUSTOMER", verified.getRole());
+        assertEquals("ROLE_CUSTOMER", verified.getAuthorities());
+        assertNotNull(verified.getIssuedAt());
+        assertTrue(jwtUtil.isValidFor(verified, user));
+    }
+
+    @Test
+    void parseAndValidate_ShouldExposeIssueTimeInMilliseconds() {
+        // Arrange
+        long before = System.currentTimeMillis();
+        String token = jwtUtil.generateToken(user);
+        long after = System.currentTimeMillis();
+
+        // Act
+        VerifiedJwt verified = jwtUtil.parseAndValidate(token);
+
+        // Assert
+        long issuedAt = verified.getIssuedAt().toEpochMilli();
+        assertTrue(issuedAt >= before && issuedAt <= after);
+    }
+
+    @Test
+    void parseAndValidate_ShouldReuseVerifiedTokenFromCache() {
+        // Arrange
+        String token = jwtUtil.generateToken(user);
+
+        // Act
+        VerifiedJwt first = jwtUtil.parseAndValidate(token);
+        VerifiedJwt second = jwtUtil.parseAndValidate(token);
+
+        // Assert
+        assertSame(first, second);
+    }
+
+    @Test
+    void parseAndValidate_WithTokenSignedByAnotherKey_ShouldReject() {
+        // Arrange
+        String forged = Jwts.builder()
+                .subject("user@example.com")
+                .claim("role", "ADMIN")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(new byte[32]))
+                .compact();
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtUtil.parseAndValidate(forged));
+    }
+
+    @Test
+    void parseAndValidate_WithExpiredToken_ShouldReject() {
+        // Arrange
+        String expired = Jwts.builder()
+                .subject("user@example.com")
+                .issuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .expiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtUtil.parseAndValidate(expired));
+    }
+}
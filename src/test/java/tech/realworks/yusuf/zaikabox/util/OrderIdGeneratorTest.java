@@ -0,0 +1,87 @@
+package tech.realworks.yusuf.zaikabox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIdGeneratorTest {
+
+    private static final long NOW = OrderIdGenerator.EPOCH_MILLIS + 86_400_000L;
+
+    @Test
+    void nextId_ShouldBeUniqueAcrossConcurrentCallers() throws Exception {
+        // Arrange
+        OrderIdGenerator generator = new OrderIdGenerator(7, System::currentTimeMillis);
+        int threads = 8;
+        int idsPerThread = 50_000;
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Act
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < idsPerThread; i++) {
+                    ids.add(generator.nextId());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(threads * idsPerThread, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id.startsWith("FD") && id.length() == 15));
+    }
+
+    @Test
+    void nextId_ShouldKeepIncreasingWhenClockStallsOrGoesBackwards() {
+        // Arrange
+        AtomicLong clock = new AtomicLong(NOW);
+        OrderIdGenerator generator = new OrderIdGenerator(1, clock::get);
+
+        // Act / Assert: exhaust more than one millisecond's sequence, then step the clock back
+        String previous = generator.nextId();
+        for (int i = 0; i < 5_000; i++) {
+            if (i == 2_500) {
+                clock.set(NOW - 10_000);
+            }
+            String next = generator.nextId();
+            assertTrue(next.compareTo(previous) > 0, next + " should sort after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void nextId_ShouldDifferBetweenNodesAtTheSameInstant() {
+        // Arrange
+        OrderIdGenerator first = new OrderIdGenerator(1, () -> NOW);
+        OrderIdGenerator second = new OrderIdGenerator(2, () -> NOW);
+
+        // Act / Assert
+        assertNotEquals(first.nextId(), second.nextId());
+    }
+
+    @Test
+    void constructor_ShouldRejectNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderIdGenerator(OrderIdGenerator.MAX_NODE_ID + 1, () -> NOW));
+        assertThrows(IllegalArgumentException.class, () -> new OrderIdGenerator(-1, () -> NOW));
+    }
+}